@@ -42,6 +42,12 @@ public class AudioClip {
         this.format = tempFormat;
     }
 
+    // Already converted PCM data, e.g. restored from the asset cache
+    public AudioClip(byte[] pcmData, AudioFormat format) {
+        this.data = pcmData;
+        this.format = format;
+    }
+
     private record DoomSoundResult(byte[] data, float sampleRate) {
     }
     
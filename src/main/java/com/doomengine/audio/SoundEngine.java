@@ -49,6 +49,13 @@ public class SoundEngine implements AudioService {
         }
     }
     
+    /**
+     * Registers an already converted clip, replacing any previous sound with the same name.
+     */
+    public void addSound(String soundName, AudioClip clip) {
+        soundClips.put(soundName.toUpperCase(), clip);
+    }
+
     public void playSound(String soundName) {
         playSound(soundName, 1.0f, false);
     }
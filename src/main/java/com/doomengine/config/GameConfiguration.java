@@ -14,6 +14,8 @@ public class GameConfiguration {
     private final double fov;
     private final double halfFov;
     private final double screenDistance;
+    private final double renderScale;         // Internal view resolution, x 320x200
+    private final boolean dynamicResolution;  // Let the renderer lower renderScale to hold the frame rate
     
     // Texture settings
     private final int textureWidth;
@@ -43,6 +45,11 @@ public class GameConfiguration {
     }
     
     public GameConfiguration(boolean soundEnabled, double scale, double targetFps, float masterVolume) {
+        this(soundEnabled, scale, targetFps, masterVolume, scale, false);
+    }
+
+    public GameConfiguration(boolean soundEnabled, double scale, double targetFps, float masterVolume,
+                             double renderScale, boolean dynamicResolution) {
         // Screen settings
         this.doomWidth = 320;
         this.doomHeight = 200;
@@ -54,6 +61,8 @@ public class GameConfiguration {
         this.fov = 90.0;
         this.halfFov = fov / 2.0;
         this.screenDistance = halfWidth / Math.tan(Math.toRadians(halfFov));
+        this.renderScale = renderScale;
+        this.dynamicResolution = dynamicResolution;
         
         // Texture settings
         this.textureWidth = 64;
@@ -90,6 +99,8 @@ public class GameConfiguration {
     public double getFov() { return fov; }
     public double getHalfFov() { return halfFov; }
     public double getScreenDistance() { return screenDistance; }
+    public double getRenderScale() { return renderScale; }
+    public boolean isDynamicResolution() { return dynamicResolution; }
     
     public int getTextureWidth() { return textureWidth; }
     public int getTextureHeight() { return textureHeight; }
@@ -4,9 +4,11 @@ import com.doomengine.config.GameConfiguration;
 import com.doomengine.game.objects.GameDefinitions;
 import com.doomengine.misc.Constants;
 import com.doomengine.misc.InputHandler;
+import com.doomengine.misc.ScriptedInput;
 import com.doomengine.rendering.*;
 import com.doomengine.rendering.bsp.BSP;
 import com.doomengine.rendering.bsp.SegHandler;
+import com.doomengine.rendering.bsp.SegRenderCache;
 import com.doomengine.services.AudioService;
 import com.doomengine.services.CollisionService;
 import com.doomengine.services.GameEngineTmp;
@@ -17,48 +19,94 @@ import com.doomengine.wad.datatypes.Thing;
 import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
 
 public class DoomEngine extends JPanel implements Runnable, GameEngineTmp {
+    private static final Logger LOGGER = Logger.getLogger(DoomEngine.class.getName());
+
+    /**
+     * Outcome of {@link #runHeadless}: how many tics ran, how long they took, and a CRC32 of
+     * the last rendered frame's pixels for comparing runs.
+     */
+    public record HeadlessRun(long tics, long elapsedNanos, long frameChecksum) {
+        public double ticsPerSecond() {
+            return elapsedNanos > 0 ? tics * 1_000_000_000.0 / elapsedNanos : 0;
+        }
+    }
 
     private final String wadPath;
-    private final String mapName;
+    private final List<String> pwadPaths; // Mounted over the IWAD, last one wins
+    private String mapName; // Map currently being played
     private final GameConfiguration config;
     private final AudioService audioService;
     private final InputService inputService;
     private CollisionService collisionService;
 
     private JFrame frame;
-    private boolean running = false;
+    private volatile boolean running = false;
 
-    // --- Double buffering for screen image ---
-    private final FrameBuffer visibleScreenBuffer;
-    private final FrameBuffer renderScreenBuffer;
-
-    // --- Depth buffer for sprite occlusion ---
-    private final double[] depthBuffer; // Depth value for each pixel [WIDTH * HEIGHT]
-    private final Object screenLock = new Object(); // For synchronizing access to visibleScreenImage
+    // --- Double buffering for screen image, both at the view resolution ---
+    // A finished frame is handed over by swapping the two, never by copying
+    private FrameBuffer visibleScreenBuffer;
+    private FrameBuffer renderScreenBuffer;
+    private final Object screenLock = new Object(); // Guards the swap against presentation
     // --- End double buffering fields ---
 
+    // --- Presentation ---
+    private CanvasPresenter canvas; // Active rendering target; null when Swing paints this panel
+    private final Consumer<Graphics2D> screenPainter = this::drawScreen;
+    private FrameRecorder recorder; // Copies finished frames to disk in the background; null unless recording
+
+    // --- Simulation/render hand-over ---
+    private final Object renderLock = new Object(); // Held while a frame renders; level changes wait for it
+    private final Object snapshotLock = new Object();
+    private FrameSnapshot latestSnapshot; // Newest published tic, guarded by snapshotLock
+    private volatile FrameSnapshot presentedSnapshot; // The frame in visibleScreenBuffer
+    private final AtomicInteger presentedFrames = new AtomicInteger(); // Since the last FPS update
+    private long tic;
+    private int levelGeneration; // Bumped on every level start so stale snapshots are dropped
+
     private WADDataService wadDataService;
     private MapRenderer mapRenderer;
     private Player player;
     private DoorManager doorManager;
     private BSP bsp;
     private SegHandler segHandler;
+    private SegRenderCache segRenderCache; // Per-level wall data shared by every SegHandler
     private ViewRenderer viewRenderer;
     private ObjectManager objectManager;
+    private LevelLoader levelLoader;
+    private ParallelRenderer parallelRenderer; // Null when rendering on the game thread
+    private volatile String pendingMapName; // Swapped in at the start of the next frame
+    private volatile ViewSize viewSize; // Internal render resolution, scaled to the window when presented
+    private final ResolutionGovernor resolutionGovernor; // Null unless dynamic resolution is enabled
 
     private long lastTime = System.nanoTime();
     private double deltaTime = 0;
 
     private boolean showMap = false;
+    private boolean assetCacheEnabled = true; // Reuse decoded assets from ~/.doomj/cache
+    private boolean fixedPointRendering = false; // Render with 16.16 integer arithmetic instead of doubles
+    private int renderThreads = 1; // Screen strips rendered in parallel; 1 renders serially
+    private boolean pipelined = false; // Render on its own thread, one tic behind the simulation
     private final int currentSkillLevel = 1; // Default to Skill 1 (I'm Too Young To Die - Easy)
 
     public DoomEngine(String wadPath, String mapName, GameConfiguration config,
                       AudioService audioService, InputService inputService) {
+        this(wadPath, Collections.emptyList(), mapName, config, audioService, inputService);
+    }
+
+    public DoomEngine(String wadPath, List<String> pwadPaths, String mapName, GameConfiguration config,
+                      AudioService audioService, InputService inputService) {
         this.wadPath = wadPath;
+        this.pwadPaths = List.copyOf(pwadPaths);
         this.mapName = mapName;
         this.config = config;
         this.audioService = audioService;
@@ -70,36 +118,46 @@ public class DoomEngine extends JPanel implements Runnable, GameEngineTmp {
             addKeyListener((InputHandler) inputService);
         }
 
-        // Initialize screen images for double buffering
-        visibleScreenBuffer = new FrameBuffer(config.getWidth(), config.getHeight());
-        renderScreenBuffer = new FrameBuffer(config.getWidth(), config.getHeight());
-
-        // Initialize depth buffer
-        depthBuffer = new double[config.getWidth() * config.getHeight()];
+        // Screen images are allocated at the view resolution
+        viewSize = new ViewSize(config.getRenderScale());
+        allocateViewBuffers();
+        resolutionGovernor = config.isDynamicResolution()
+                ? new ResolutionGovernor(config.getRenderScale(), config.getNsPerFrame()) : null;
+    }
 
+    private void allocateViewBuffers() {
+        synchronized (screenLock) {
+            renderScreenBuffer = new FrameBuffer(viewSize.width, viewSize.height);
+            visibleScreenBuffer = new FrameBuffer(viewSize.width, viewSize.height);
+        }
     }
 
     private void onInit() throws IOException {
-        wadDataService = new WADDataService(wadPath, mapName); // wadData needs to be initialized first
+        wadDataService = new WADDataService(wadPath, pwadPaths, mapName, assetCacheEnabled); // wadData needs to be initialized first
+        levelLoader = new LevelLoader(wadDataService, currentSkillLevel);
+        GameRandom.reset(); // Before anything spawns: monsters roll their AI timers when created
+        startLevel(levelLoader.prepare(wadDataService.getMap()));
+    }
+
+    /**
+     * Makes a prepared level current and rebuilds everything that holds per-map state.
+     * Global assets stay loaded; the following map starts loading in the background.
+     */
+    private void startLevel(LevelLoader.PreparedLevel level) {
+        wadDataService.setMap(level.map());
+        mapName = level.map().mapName;
+        levelGeneration++;
 
         // Player needs to be initialized before ObjectManager, as ObjectManager creates MapObjects
         // which might depend on the player (e.g., for initial floor height or as a target).
-        Thing playerThing = null;
-        if (wadDataService.things != null && !wadDataService.things.isEmpty()) {
-            playerThing = wadDataService.things.stream()
-                    .filter(t -> t.type == 1) // Assuming type 1 is a player start
-                    .findFirst()
-                    .orElseGet(() -> wadDataService.things.get(0));
-        }
-        if (playerThing == null) {
-            throw new IOException("Player Thing not found in WAD data for map " + mapName);
-        }
+        Thing playerThing = level.playerStart();
+
         // Create BSP first since it's needed as collision service
         bsp = new BSP(this);
         this.collisionService = bsp; // Set BSP as collision service now that wadData is available
 
         // Create door manager (no dependencies on engine)
-        doorManager = new DoorManager(wadDataService, collisionService);
+        doorManager = new DoorManager(wadDataService, collisionService, level.doorLinedefs());
 
         bsp.setDoorService(doorManager);
 
@@ -114,15 +172,63 @@ public class DoomEngine extends JPanel implements Runnable, GameEngineTmp {
                 config, collisionService, audioService, inputService, objectManager, doorManager, this);
         
         // Initialize map objects now that player is created
-        objectManager.initializeMapObjects(player);
+        objectManager.initializeMapObjects(player, level.spawnThings());
         
         // Inject player into DoorManager
         doorManager.setPlayer(player);
         
-        segHandler = new SegHandler(this);
-        viewRenderer = new ViewRenderer(this);
+        segRenderCache = new SegRenderCache(wadDataService.geometry, wadDataService.segments,
+                wadDataService.sectors, wadDataService.assetData);
+        createRenderers();
         mapRenderer = new MapRenderer(this);
 
+        levelLoader.preload(LevelLoader.nextMapName(mapName, false));
+    }
+
+    /**
+     * Builds the renderers for the current level at the current view size.
+     */
+    private void createRenderers() {
+        bsp.setViewSize(viewSize);
+        viewRenderer = new ViewRenderer(this);
+        segHandler = new SegHandler(this);
+        bsp.setSegHandler(segHandler);
+        if (renderThreads > 1) {
+            if (parallelRenderer == null) {
+                parallelRenderer = new ParallelRenderer(renderThreads);
+            }
+            parallelRenderer.setLevel(this);
+        }
+    }
+
+    /**
+     * Switches the internal render resolution. Only call between frames, from the thread that renders.
+     */
+    private void resizeView(ViewSize newSize) {
+        LOGGER.info("View resolution " + viewSize + " -> " + newSize);
+        viewSize = newSize;
+        allocateViewBuffers();
+        createRenderers();
+    }
+
+    @Override
+    public void exitLevel(boolean secret) {
+        String next = LevelLoader.nextMapName(mapName, secret);
+        if (next == null || !wadDataService.hasMap(next)) {
+            LOGGER.info("No map after " + mapName + (secret ? " (secret exit)" : ""));
+            return;
+        }
+        pendingMapName = next;
+    }
+
+    private void changeLevel(String nextMapName) {
+        long start = System.nanoTime();
+        try {
+            startLevel(levelLoader.take(nextMapName));
+            LOGGER.info("Entered " + mapName + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to load map " + nextMapName, e);
+        }
     }
 
     public synchronized void start() {
@@ -145,20 +251,35 @@ public class DoomEngine extends JPanel implements Runnable, GameEngineTmp {
         final double targetFps = 60.0;
         final double nsPerFrame = 1_000_000_000.0 / targetFps;
         long lastFpsTime = System.nanoTime();
-        int frames = 0;
+
+        Thread renderThread = null;
+        if (pipelined) {
+            renderThread = new Thread(this::renderLoop, "render");
+            renderThread.setDaemon(true);
+            renderThread.start();
+        }
 
         while (running) {
             long now = System.nanoTime();
             deltaTime = (now - lastTime) / 1_000_000.0;
             lastTime = now;
 
-            update();
-            repaint();
+            applyPendingLevelChange();
+
+            FrameSnapshot snapshot = tick();
+            if (pipelined) {
+                synchronized (snapshotLock) {
+                    latestSnapshot = snapshot;
+                    snapshotLock.notifyAll();
+                }
+            } else {
+                renderFrame(snapshot);
+                present();
+            }
 
-            frames++;
             if (System.nanoTime() - lastFpsTime >= 1_000_000_000) {
-                frame.setTitle("DOOM Engine - FPS: " + frames + " - Map: " + mapName);
-                frames = 0;
+                frame.setTitle("DOOM Engine - FPS: " + presentedFrames.getAndSet(0) + " - Map: " + mapName
+                        + " - View: " + viewSize);
                 lastFpsTime = System.nanoTime();
             }
 
@@ -172,41 +293,191 @@ public class DoomEngine extends JPanel implements Runnable, GameEngineTmp {
             }
         }
         // Ensure the application exits cleanly if the loop terminates
+        if (renderThread != null) {
+            synchronized (snapshotLock) {
+                snapshotLock.notifyAll();
+            }
+            try {
+                renderThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        levelLoader.close();
+        if (parallelRenderer != null) {
+            parallelRenderer.close();
+        }
+        if (recorder != null) {
+            recorder.close();
+        }
         if (frame != null) {
             frame.dispose(); // Close the window
         }
         System.exit(0); // Terminate the application
     }
 
+    /**
+     * Loads the WAD and runs the full simulation and renderer for a number of tics on the
+     * calling thread, into the off-screen buffers only: no window, no repaint, no frame pacing.
+     * Each tic advances the game by one fixed frame time and {@link GameRandom} restarts its
+     * sequence, so a run with scripted input is repeatable however fast it executes and its
+     * frame checksum can be compared between runs. Returns instead of exiting the JVM.
+     *
+     * @param tics tics to run; fewer if the input presses Escape
+     */
+    public HeadlessRun runHeadless(long tics) throws IOException {
+        running = true;
+        onInit();
+        double ticMillis = config.getNsPerFrame() / 1_000_000.0;
+
+        long start = System.nanoTime();
+        long ran = 0;
+        try {
+            while (running && ran < tics) {
+                deltaTime = ticMillis;
+                applyPendingLevelChange();
+                if (inputService instanceof ScriptedInput) {
+                    ((ScriptedInput) inputService).setTic(tic);
+                }
+                renderFrame(tick());
+                ran++;
+            }
+        } finally {
+            running = false;
+            levelLoader.close();
+            if (parallelRenderer != null) {
+                parallelRenderer.close();
+            }
+            if (recorder != null) {
+                recorder.close();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        CRC32 checksum = new CRC32();
+        synchronized (screenLock) {
+            int[] pixels = visibleScreenBuffer.getPixelData();
+            ByteBuffer bytes = ByteBuffer.allocate(pixels.length * Integer.BYTES);
+            bytes.asIntBuffer().put(pixels);
+            checksum.update(bytes);
+        }
+        return new HeadlessRun(ran, elapsed, checksum.getValue());
+    }
+
+    /**
+     * Level changes happen between frames, never halfway through a render.
+     */
+    private void applyPendingLevelChange() {
+        String nextMapName = pendingMapName;
+        if (nextMapName != null) {
+            pendingMapName = null;
+            synchronized (renderLock) {
+                changeLevel(nextMapName);
+            }
+        }
+    }
+
     public void setCollisionService(CollisionService collisionService) {
         this.collisionService = collisionService;
     }
 
-    private void update() {
+    /**
+     * Pipelined mode: renders the newest published snapshot whenever one arrives. Snapshots
+     * published while a frame is being drawn are skipped in favour of the latest.
+     */
+    private void renderLoop() {
+        FrameSnapshot rendered = null;
+        while (running) {
+            FrameSnapshot snapshot;
+            synchronized (snapshotLock) {
+                while (running && (latestSnapshot == null || latestSnapshot == rendered)) {
+                    try {
+                        snapshotLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                snapshot = latestSnapshot;
+            }
+            if (!running) break;
+
+            synchronized (renderLock) {
+                if (snapshot.levelGeneration == levelGeneration) { // Else captured before a level change
+                    renderFrame(snapshot);
+                }
+            }
+            rendered = snapshot;
+            present();
+        }
+    }
+
+    /**
+     * Puts the visible buffer on screen: drawn and flipped right here with active rendering,
+     * otherwise left to Swing's next paint.
+     */
+    private void present() {
+        if (canvas != null) {
+            canvas.present(screenPainter);
+        } else {
+            repaint();
+        }
+    }
+
+    /**
+     * Draws one snapshot into the render buffer and swaps it with the visible buffer.
+     * Reads nothing from the live game state, so it may run on the render thread.
+     */
+    private void renderFrame(FrameSnapshot snapshot) {
+        long start = System.nanoTime();
+
         // Clear the render framebuffer (for renderScreenImage)
         renderScreenBuffer.clear(0xFF000000); // Opaque black
 
-        // Clear depth buffer (initialize to infinity = no geometry drawn yet)
-        java.util.Arrays.fill(depthBuffer, Double.MAX_VALUE);
-
-        player.update();
-        segHandler.update();
-        bsp.update(); // This will trigger rendering into renderFramebuffer via SegHandler & ViewRenderer
-        objectManager.update();
-        doorManager.update();
+        if (parallelRenderer != null) {
+            parallelRenderer.renderWorld(renderScreenBuffer.getPixelData(), snapshot);
+        } else {
+            segHandler.update(snapshot, renderScreenBuffer.getPixelData());
+            viewRenderer.getPlaneRenderer().clear();
+            bsp.update(snapshot); // This will trigger rendering into renderFramebuffer via SegHandler & ViewRenderer
+            viewRenderer.getPlaneRenderer().drawPlanes(renderScreenBuffer.getPixelData(), snapshot);
+        }
 
         // Draw world sprites (enemies, etc.) to the render buffer with occlusion
         if (viewRenderer != null) {
             // Use the new occlusion-aware sprite rendering
-            viewRenderer.drawWorldSpritesWithOcclusion(renderScreenBuffer.getPixelData(), objectManager.getVisibleSortedMapObjects());
+            if (parallelRenderer != null) {
+                parallelRenderer.renderSprites(renderScreenBuffer.getPixelData(), viewRenderer,
+                        viewRenderer.prepareVisSprites(snapshot));
+            } else {
+                viewRenderer.drawWorldSpritesWithOcclusion(renderScreenBuffer.getPixelData(), snapshot, segHandler.getDrawSegs());
+            }
         }
 
-        // After all rendering to renderScreenImage is complete, copy it to visibleScreenImage
+        // The finished frame becomes visible and the next one renders over the previous
+        FrameBuffer finished = renderScreenBuffer;
         synchronized (screenLock) {
-            Graphics g = visibleScreenBuffer.getImageBuffer().getGraphics();
-            g.drawImage(renderScreenBuffer.getImageBuffer(), 0, 0, null);
-            g.dispose();
+            renderScreenBuffer = visibleScreenBuffer;
+            visibleScreenBuffer = finished;
+            presentedSnapshot = snapshot;
+        }
+        if (recorder != null) {
+            // Only copied here; the recorder's own thread does the writing
+            recorder.capture(finished.getPixelData(), finished.getWidth(), finished.getHeight());
+        }
+        presentedFrames.incrementAndGet();
+
+        if (resolutionGovernor != null && resolutionGovernor.frameRendered(System.nanoTime() - start)) {
+            resizeView(new ViewSize(resolutionGovernor.getScale()));
         }
+    }
+
+    /**
+     * Runs one game tic and captures what the renderer needs from it.
+     */
+    private FrameSnapshot tick() {
+        player.update();
+        objectManager.update();
+        doorManager.update();
 
         if (inputService.isKeyPressed(java.awt.event.KeyEvent.VK_M) && !mapToggleDebounce) {
             showMap = !showMap;
@@ -227,6 +498,9 @@ public class DoomEngine extends JPanel implements Runnable, GameEngineTmp {
         if (!inputService.isKeyPressed(java.awt.event.KeyEvent.VK_T)) {
             testSoundDebounce = false;
         }
+
+        return FrameSnapshot.capture(tic++, levelGeneration, player,
+                objectManager.getVisibleSortedMapObjects(), wadDataService.sectors);
     }
 
     private boolean mapToggleDebounce = false;
@@ -235,15 +509,22 @@ public class DoomEngine extends JPanel implements Runnable, GameEngineTmp {
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
+        drawScreen((Graphics2D) g);
+    }
 
+    /**
+     * Draws the visible frame scaled to the window, with the weapon, HUD and automap on top.
+     */
+    private void drawScreen(Graphics2D g2d) {
+        // Scale the view up to the window in this one blit
         synchronized (screenLock) {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
             g2d.drawImage(visibleScreenBuffer.getImageBuffer(), 0, 0, Constants.WIDTH, Constants.HEIGHT, null);
         }
 
         // Draw player sprite (weapon) overlay directly on top
         if (viewRenderer != null) { // Ensure viewRenderer is initialized
-            viewRenderer.drawSprite(g2d);
+            viewRenderer.drawSprite(g2d, presentedSnapshot);
         }
 
         // Draw HUD overlay
@@ -257,7 +538,6 @@ public class DoomEngine extends JPanel implements Runnable, GameEngineTmp {
                 mapRenderer.draw(g2d);
             }
         }
-        // g2d.dispose(); // Do not dispose g here, it's managed by Swing
     }
 
     public WADDataService getWadData() {
@@ -280,6 +560,10 @@ public class DoomEngine extends JPanel implements Runnable, GameEngineTmp {
         return viewRenderer;
     }
 
+    public SegRenderCache getSegRenderCache() {
+        return segRenderCache;
+    }
+
     public double getDeltaTime() {
         return deltaTime;
     }
@@ -306,95 +590,75 @@ public class DoomEngine extends JPanel implements Runnable, GameEngineTmp {
         return renderScreenBuffer.getPixelData();
     }
 
-    // Depth buffer for sprite occlusion
-    public double[] getDepthBuffer() {
-        return depthBuffer;
-    }
-
-    private static void printUsage() {
-        System.out.println("DOOM Engine");
-        System.out.println("Usage: java -jar doomj.jar [OPTIONS] [WAD_FILE] [MAP_NAME]");
-        System.out.println();
-        System.out.println("Arguments:");
-        System.out.println("  WAD_FILE    Path to DOOM WAD file (default: DOOM1.WAD)");
-        System.out.println("  MAP_NAME    Map to load (default: E1M1)");
-        System.out.println();
-        System.out.println("Options:");
-        System.out.println("  --nosound, -ns    Disable sound effects");
-        System.out.println("  --help, -h        Show this help message");
-        System.out.println();
-        System.out.println("Examples:");
-        System.out.println("  java -jar doomj.jar DOOM2.WAD MAP01");
-        System.out.println("  java -jar doomj.jar --nosound DOOM1.WAD E1M2");
-        System.out.println("  java -jar doomj.jar -ns");
-    }
-
-    public static void main(String[] args) {
-        // Configure logging to reduce spam
-        Logger rootLogger = Logger.getLogger("");
-        rootLogger.setLevel(Level.WARNING);
-
-        // Parse command line arguments
-        String wadFilePath = "DOOM1.WAD";
-        String mapToLoad = "E1M1";
-        boolean soundEnabled = true;
-
-        for (int i = 0; i < args.length; i++) {
-            String arg = args[i];
-            if (arg.equals("--nosound") || arg.equals("-ns")) {
-                soundEnabled = false;
-            } else if (arg.equals("--help") || arg.equals("-h")) {
-                printUsage();
-                return;
-            } else if (i == 0 && !arg.startsWith("-")) {
-                wadFilePath = arg;
-            } else if (i == 1 && !arg.startsWith("-")) {
-                mapToLoad = arg;
-            } else if (arg.startsWith("-") && !arg.equals("--nosound") && !arg.equals("-ns")) {
-                System.err.println("Unknown option: " + arg);
-                printUsage();
-                return;
-            }
-        }
+    public void setAssetCacheEnabled(boolean assetCacheEnabled) {
+        this.assetCacheEnabled = assetCacheEnabled;
+    }
 
-        // Configure sound engine
-        com.doomengine.audio.SoundEngine.getInstance().setEnabled(soundEnabled);
-        if (!soundEnabled) {
-            System.out.println("Sound disabled");
-        }
+    public void setFixedPointRendering(boolean fixedPointRendering) {
+        this.fixedPointRendering = fixedPointRendering;
+    }
+
+    public boolean isFixedPointRendering() {
+        return fixedPointRendering;
+    }
+
+    public void setRenderThreads(int renderThreads) {
+        this.renderThreads = renderThreads;
+    }
 
-        final String finalWadPath = wadFilePath;
-        final String finalMapName = mapToLoad;
-        final boolean finalSoundEnabled = soundEnabled;
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
 
-        SwingUtilities.invokeLater(() -> {
-            // Create dependencies
-            DoomEngine engine = getDoomEngine(finalSoundEnabled, finalWadPath, finalMapName);
+    /**
+     * Presents frames from the game loop (or render thread) through a page-flipped Canvas
+     * instead of asking Swing to repaint. Call before {@link #getViewComponent()}.
+     */
+    public void setActiveRendering(boolean activeRendering) {
+        if (activeRendering && canvas == null) {
+            canvas = new CanvasPresenter(config.getWidth(), config.getHeight());
+            if (inputService instanceof InputHandler) {
+                canvas.addKeyListener((InputHandler) inputService);
+            }
+        } else if (!activeRendering) {
+            canvas = null;
+        }
+    }
 
-            // Set BSP as collision service - BSP will be created in onInit()
-            engine.setCollisionService(null); // Temporarily null, will be set in onInit()
+    /**
+     * Hands every rendered frame to the recorder until the engine stops, then closes it.
+     * Frames still queued when the JVM exits are written by a shutdown hook.
+     */
+    public void setRecorder(FrameRecorder recorder) {
+        Runtime.getRuntime().addShutdownHook(new Thread(recorder::close, "frame-recorder-shutdown"));
+        this.recorder = recorder;
+    }
 
-            engine.frame = new JFrame("DOOM Engine");
-            engine.frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            engine.frame.setResizable(false);
-            engine.frame.add(engine);
-            engine.frame.pack();
-            engine.frame.setLocationRelativeTo(null);
-            engine.frame.setVisible(true);
-            engine.requestFocusInWindow(); // Crucial for KeyListener to work immediately
-            engine.start();
-        });
+    /**
+     * The component to put in the window: the active rendering Canvas, or this panel.
+     */
+    public Component getViewComponent() {
+        return canvas != null ? canvas : this;
     }
 
-    private static DoomEngine getDoomEngine(boolean finalSoundEnabled, String finalWadPath, String finalMapName) {
-        GameConfiguration config = new GameConfiguration(finalSoundEnabled);
-        AudioService audioService = new com.doomengine.audio.SoundEngine();
-        audioService.setEnabled(finalSoundEnabled);
-        InputService inputService = new InputHandler();
+    public ViewSize getViewSize() {
+        return viewSize;
+    }
 
-        // We need to create the engine first, then pass it to BSP
-        // This is a circular dependency we'll need to handle
-        return new DoomEngine(finalWadPath, finalMapName, config, audioService, inputService);
+    /**
+     * Puts the view in a new window and starts the game loop. Call on the event dispatch thread.
+     */
+    public void showWindow() {
+        frame = new JFrame("DOOM Engine");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setResizable(false);
+        Component view = getViewComponent();
+        frame.add(view);
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+        view.requestFocusInWindow(); // Crucial for KeyListener to work immediately
+        start();
     }
 }
 
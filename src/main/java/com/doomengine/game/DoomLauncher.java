@@ -0,0 +1,282 @@
+package com.doomengine.game;
+
+import com.doomengine.config.GameConfiguration;
+import com.doomengine.misc.Constants;
+import com.doomengine.misc.InputHandler;
+import com.doomengine.misc.ScriptedInput;
+import com.doomengine.rendering.FrameRecorder;
+import com.doomengine.rendering.ViewSize;
+import com.doomengine.services.AudioService;
+import com.doomengine.services.InputService;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Command line entry point. Kept apart from {@link DoomEngine}, which is a JPanel: loading
+ * that class initialises AWT, and headless mode must set java.awt.headless before then.
+ */
+public final class DoomLauncher {
+    private DoomLauncher() {
+    }
+
+    private static void printUsage() {
+        System.out.println("DOOM Engine");
+        System.out.println("Usage: java -jar doomj.jar [OPTIONS] [WAD_FILE] [MAP_NAME]");
+        System.out.println();
+        System.out.println("Arguments:");
+        System.out.println("  WAD_FILE    Path to DOOM WAD file (default: DOOM1.WAD)");
+        System.out.println("  MAP_NAME    Map to load (default: E1M1)");
+        System.out.println();
+        System.out.println("Options:");
+        System.out.println("  --nosound, -ns    Disable sound effects");
+        System.out.println("  -file PWAD...     Load one or more PWADs on top of WAD_FILE");
+        System.out.println("  --nocache         Decode all assets from the WADs, bypassing the asset cache");
+        System.out.println("  --fixed           Render with 16.16 fixed-point arithmetic (deterministic)");
+        System.out.println("  --threads N       Render the view as N parallel strips (0 = one per core)");
+        System.out.println("  --pipelined       Render on a separate thread, overlapping the next game tic");
+        System.out.println("  --active          Present frames by page flipping from the game loop instead of Swing repaints");
+        System.out.println("  --headless TICS   Run TICS tics with no window or sound, as fast as possible, and print timing");
+        System.out.println("  --input FILE      With --headless, hold keys from a script of FROM TO KEY... lines (default: none)");
+        System.out.println("  --record PATH     Record the view: a .y4m/.rgb file, or a directory of images");
+        System.out.println("  --record-format F Recording format: y4m, raw, ppm or png (default y4m)");
+        System.out.println("  --record-block    Slow rendering down rather than drop frames the recorder can't keep up with");
+        System.out.println("  --scale S         Render the view at S x 320x200 and scale it to the window (1-4, default 2.25)");
+        System.out.println("  --dynamic-res     Lower the render scale when frames take too long, raise it when they don't");
+        System.out.println("  --help, -h        Show this help message");
+        System.out.println();
+        System.out.println("Examples:");
+        System.out.println("  java -jar doomj.jar DOOM2.WAD MAP01");
+        System.out.println("  java -jar doomj.jar --nosound DOOM1.WAD E1M2");
+        System.out.println("  java -jar doomj.jar -ns");
+        System.out.println("  java -jar doomj.jar DOOM2.WAD MAP01 -file mymod.wad music.wad");
+    }
+
+    public static void main(String[] args) {
+        // AWT reads the headless flag once, when its first class initialises (even Color does),
+        // so it has to be set before anything else runs
+        if (Arrays.asList(args).contains("--headless")) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        // Configure logging to reduce spam
+        Logger rootLogger = Logger.getLogger("");
+        rootLogger.setLevel(Level.WARNING);
+
+        // Parse command line arguments
+        String wadFilePath = "DOOM1.WAD";
+        String mapToLoad = "E1M1";
+        boolean soundEnabled = true;
+        boolean useAssetCache = true;
+        boolean fixedPoint = false;
+        int renderThreads = 1;
+        boolean pipelined = false;
+        boolean activeRendering = false;
+        long headlessTics = 0;
+        String inputScript = null;
+        String recordPath = null;
+        FrameRecorder.Format recordFormat = FrameRecorder.Format.Y4M;
+        FrameRecorder.Overflow recordOverflow = FrameRecorder.Overflow.DROP;
+        double renderScale = Constants.SCALE;
+        boolean dynamicResolution = false;
+        List<String> pwadFiles = new ArrayList<>();
+        int positional = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--nosound") || arg.equals("-ns")) {
+                soundEnabled = false;
+            } else if (arg.equals("--nocache")) {
+                useAssetCache = false;
+            } else if (arg.equals("--fixed")) {
+                fixedPoint = true;
+            } else if (arg.equals("--pipelined")) {
+                pipelined = true;
+            } else if (arg.equals("--active")) {
+                activeRendering = true;
+            } else if (arg.equals("--headless") && i + 1 < args.length) {
+                try {
+                    headlessTics = Long.parseLong(args[++i]);
+                } catch (NumberFormatException e) {
+                    headlessTics = -1;
+                }
+                if (headlessTics <= 0) {
+                    System.err.println("Invalid tic count: " + args[i]);
+                    printUsage();
+                    return;
+                }
+            } else if (arg.equals("--input") && i + 1 < args.length) {
+                inputScript = args[++i];
+            } else if (arg.equals("--record") && i + 1 < args.length) {
+                recordPath = args[++i];
+            } else if (arg.equals("--record-format") && i + 1 < args.length) {
+                try {
+                    recordFormat = FrameRecorder.Format.valueOf(args[++i].toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Invalid recording format: " + args[i]);
+                    printUsage();
+                    return;
+                }
+            } else if (arg.equals("--record-block")) {
+                recordOverflow = FrameRecorder.Overflow.BLOCK;
+            } else if (arg.equals("--dynamic-res")) {
+                dynamicResolution = true;
+            } else if (arg.equals("--scale") && i + 1 < args.length) {
+                try {
+                    renderScale = Double.parseDouble(args[++i]);
+                } catch (NumberFormatException e) {
+                    renderScale = -1;
+                }
+                if (renderScale < 1 || renderScale > 4) {
+                    System.err.println("Invalid render scale: " + args[i]);
+                    printUsage();
+                    return;
+                }
+            } else if (arg.equals("--threads") && i + 1 < args.length) {
+                try {
+                    renderThreads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid thread count: " + args[i]);
+                    printUsage();
+                    return;
+                }
+                if (renderThreads <= 0) {
+                    renderThreads = Runtime.getRuntime().availableProcessors();
+                }
+            } else if (arg.equals("--help") || arg.equals("-h")) {
+                printUsage();
+                return;
+            } else if (arg.equals("-file") || arg.equals("--file")) {
+                // Every following non-option argument is a PWAD
+                while (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                    pwadFiles.add(args[++i]);
+                }
+            } else if (positional == 0 && !arg.startsWith("-")) {
+                wadFilePath = arg;
+                positional++;
+            } else if (positional == 1 && !arg.startsWith("-")) {
+                mapToLoad = arg;
+                positional++;
+            } else if (arg.startsWith("-")) {
+                System.err.println("Unknown option: " + arg);
+                printUsage();
+                return;
+            }
+        }
+
+        if (headlessTics > 0) {
+            GameConfiguration config = createConfiguration(false, renderScale, false);
+            FrameRecorder recorder = recordPath != null
+                    ? openRecorder(Path.of(recordPath), recordFormat, recordOverflow, config) : null;
+            runHeadless(wadFilePath, pwadFiles, mapToLoad, inputScript, headlessTics,
+                    useAssetCache, fixedPoint, renderThreads, config, recorder);
+            return;
+        }
+
+        // Fail before any window opens if the recording can't be written
+        GameConfiguration config = createConfiguration(soundEnabled, renderScale, dynamicResolution);
+        FrameRecorder recorder = recordPath != null
+                ? openRecorder(Path.of(recordPath), recordFormat, recordOverflow, config) : null;
+
+        // Configure sound engine
+        com.doomengine.audio.SoundEngine.getInstance().setEnabled(soundEnabled);
+        if (!soundEnabled) {
+            System.out.println("Sound disabled");
+        }
+
+        final String finalWadPath = wadFilePath;
+        final List<String> finalPwadPaths = pwadFiles;
+        final String finalMapName = mapToLoad;
+        final boolean finalSoundEnabled = soundEnabled;
+        final GameConfiguration finalConfig = config;
+        final boolean finalUseAssetCache = useAssetCache;
+        final boolean finalFixedPoint = fixedPoint;
+        final int finalRenderThreads = renderThreads;
+        final boolean finalPipelined = pipelined;
+        final boolean finalActiveRendering = activeRendering;
+        final FrameRecorder finalRecorder = recorder;
+
+        SwingUtilities.invokeLater(() -> {
+            // Create dependencies
+            DoomEngine engine = getDoomEngine(finalSoundEnabled, finalWadPath, finalPwadPaths, finalMapName,
+                    finalConfig, new InputHandler());
+
+            // Set BSP as collision service - BSP will be created in onInit()
+            engine.setCollisionService(null); // Temporarily null, will be set in onInit()
+            engine.setAssetCacheEnabled(finalUseAssetCache);
+            engine.setFixedPointRendering(finalFixedPoint);
+            engine.setRenderThreads(finalRenderThreads);
+            engine.setPipelined(finalPipelined);
+            engine.setActiveRendering(finalActiveRendering);
+            if (finalRecorder != null) {
+                engine.setRecorder(finalRecorder);
+            }
+            engine.showWindow();
+        });
+    }
+
+    /**
+     * Opens the recording at the view size the engine will start with, or exits if it can't be written.
+     */
+    private static FrameRecorder openRecorder(Path output, FrameRecorder.Format format,
+                                              FrameRecorder.Overflow overflow, GameConfiguration config) {
+        ViewSize size = new ViewSize(config.getRenderScale());
+        int fps = (int) Math.round(1_000_000_000.0 / config.getNsPerFrame());
+        try {
+            return new FrameRecorder(output, format, overflow, size.width, size.height, fps);
+        } catch (IOException e) {
+            System.err.println("Cannot record to " + output + ": " + e);
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /**
+     * Command line headless mode: no AWT display is ever opened and the sound engine stays off.
+     */
+    private static void runHeadless(String wadPath, List<String> pwadPaths, String mapName, String inputScript,
+                                    long tics, boolean useAssetCache, boolean fixedPoint, int renderThreads,
+                                    GameConfiguration config, FrameRecorder recorder) {
+        com.doomengine.audio.SoundEngine.getInstance().setEnabled(false);
+        try {
+            InputService input = inputScript != null ? ScriptedInput.load(Path.of(inputScript)) : new ScriptedInput();
+            DoomEngine engine = getDoomEngine(false, wadPath, pwadPaths, mapName, config, input);
+            engine.setAssetCacheEnabled(useAssetCache);
+            engine.setFixedPointRendering(fixedPoint);
+            engine.setRenderThreads(renderThreads);
+            if (recorder != null) {
+                engine.setRecorder(recorder);
+            }
+
+            DoomEngine.HeadlessRun run = engine.runHeadless(tics);
+            System.out.printf("%d tics in %.1f ms (%.0f tics/s), view %s, frame CRC32 %08x%n",
+                    run.tics(), run.elapsedNanos() / 1_000_000.0, run.ticsPerSecond(),
+                    engine.getViewSize(), run.frameChecksum());
+        } catch (IOException e) {
+            System.err.println("Headless run failed: " + e);
+            System.exit(1);
+        }
+        System.exit(0); // Level loader threads are not waited for; a pending asset cache write is, by its shutdown hook
+    }
+
+    private static GameConfiguration createConfiguration(boolean soundEnabled, double renderScale,
+                                                         boolean dynamicResolution) {
+        return new GameConfiguration(soundEnabled, Constants.SCALE, 60.0, 1.0f, renderScale, dynamicResolution);
+    }
+
+    private static DoomEngine getDoomEngine(boolean finalSoundEnabled, String finalWadPath, List<String> finalPwadPaths,
+                                            String finalMapName, GameConfiguration config,
+                                            InputService inputService) {
+        AudioService audioService = new com.doomengine.audio.SoundEngine();
+        audioService.setEnabled(finalSoundEnabled);
+
+        // We need to create the engine first, then pass it to BSP
+        // This is a circular dependency we'll need to handle
+        return new DoomEngine(finalWadPath, finalPwadPaths, finalMapName, config, audioService, inputService);
+    }}
@@ -40,12 +40,12 @@ public class Door {
     private final double openCeilHeight;   // Ceiling height when fully open
     private final double closedCeilHeight; // Ceiling height when fully closed
     private final double speed;
-    private long openTime;
-    private final long stayOpenDuration;
+    private int openTics; // Updates since the door last opened or was used
+    private final int stayOpenTics;
 
     // Door timing constants
     private static final double DOOR_SPEED = 8.0; // Units per frame (increased for faster doors)
-    private static final long STAY_OPEN_TIME = 8000; // 8 seconds
+    private static final int STAY_OPEN_TICS = 8 * 60; // 8 seconds of 60 Hz game updates; never wall time, so runs repeat
 
     public Door(Linedef linedef, Sector sector, DoorType doorType, KeyType requiredKey, WADDataService wadDataService, CollisionService collisionService) {
         this.linedef = linedef;
@@ -75,12 +75,12 @@ public class Door {
             this.currentCeilHeight = originalCeilHeight;  // Keep it at original (open) height
             this.targetCeilHeight = originalCeilHeight;
             this.state = DoorState.OPEN;
-            this.openTime = System.currentTimeMillis(); // Set open time so it can auto-close
+            this.openTics = 0; // Counts up to auto-close
         }
 
         sector.ceilHeight = (short) currentCeilHeight;
         this.speed = DOOR_SPEED;
-        this.stayOpenDuration = STAY_OPEN_TIME;
+        this.stayOpenTics = STAY_OPEN_TICS;
     }
 
     public boolean canOpen(Player player) {
@@ -109,7 +109,7 @@ public class Door {
                 break;
             case OPEN:
                 // In classic DOOM, using an open door resets the timer to keep it open longer
-                openTime = System.currentTimeMillis();
+                openTics = 0;
                 LOGGER.info("Door use - resetting open timer");
                 break;
             case OPENING:
@@ -155,17 +155,16 @@ public class Door {
                 if (currentCeilHeight >= targetCeilHeight) {
                     currentCeilHeight = targetCeilHeight;
                     state = DoorState.OPEN;
-                    openTime = System.currentTimeMillis();
-                    LOGGER.info("Door fully open at height " + currentCeilHeight + " at time " + openTime);
+                    openTics = 0;
+                    LOGGER.info("Door fully open at height " + currentCeilHeight);
                 }
                 break;
 
             case OPEN:
                 // Check if door should close automatically
                 if (doorType == DoorType.NORMAL || doorType == DoorType.AUTOMATIC) {
-                    long timeOpen = System.currentTimeMillis() - openTime;
-                    if (timeOpen > stayOpenDuration) {
-                        LOGGER.info("Door auto-closing after " + timeOpen + "ms (stay open duration: " + stayOpenDuration + "ms)");
+                    if (++openTics > stayOpenTics) {
+                        LOGGER.info("Door auto-closing after " + stayOpenTics + " tics");
                         close();
                     }
                 }
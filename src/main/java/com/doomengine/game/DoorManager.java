@@ -3,12 +3,14 @@ package com.doomengine.game;
 import com.doomengine.geometry.Vector2D;
 import com.doomengine.services.CollisionService;
 import com.doomengine.services.DoorService;
+import com.doomengine.wad.MapData;
 import com.doomengine.wad.WADDataService;
 import com.doomengine.wad.datatypes.Linedef;
 import com.doomengine.wad.datatypes.Sector;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
@@ -23,43 +25,56 @@ public class DoorManager implements DoorService {
     private Player player;
 
     public DoorManager(WADDataService wadDataService, CollisionService collisionService) {
+        this(wadDataService, collisionService, findDoorLinedefs(wadDataService.getMap()));
+    }
+
+    /**
+     * @param doorLinedefs Door linedef indices grouped by door sector, as returned by
+     *                     {@link #findDoorLinedefs(MapData)} for the current map.
+     */
+    public DoorManager(WADDataService wadDataService, CollisionService collisionService,
+                       Map<Sector, List<Integer>> doorLinedefs) {
         this.wadDataService = wadDataService;
         this.collisionService = collisionService;
         this.doors = new ArrayList<>();
         this.linedefToDoor = new HashMap<>();
         this.sectorToDoor = new HashMap<>();
 
-        initializeDoors();
+        initializeDoors(doorLinedefs);
     }
 
-    private void initializeDoors() {
-        Map<Sector, List<Linedef>> sectorToLinedefs = new HashMap<>();
-
-        // First pass: group linedefs by their door sector
-        for (int i = 0; i < wadDataService.linedefs.size(); i++) {
-            Linedef linedef = wadDataService.linedefs.get(i);
+    /**
+     * Groups a map's door linedefs by the sector they move. Only reads the map, so the
+     * level loader can build this table in the background before the map is swapped in.
+     */
+    public static Map<Sector, List<Integer>> findDoorLinedefs(MapData map) {
+        Map<Sector, List<Integer>> sectorToLinedefs = new LinkedHashMap<>();
+        for (int i = 0; i < map.linedefs.size(); i++) {
+            Linedef linedef = map.linedefs.get(i);
             if (!isDoorType(linedef.lineType)) continue;
 
-            Sector doorSector = getDoorSector(linedef);
+            Sector doorSector = getDoorSector(map, linedef);
             if (doorSector != null) {
-                sectorToLinedefs.computeIfAbsent(doorSector, k -> new ArrayList<>()).add(linedef);
+                sectorToLinedefs.computeIfAbsent(doorSector, k -> new ArrayList<>()).add(i);
             }
         }
+        return sectorToLinedefs;
+    }
 
-        // Second pass: create one Door object per sector, tracking all its linedefs
-        for (Map.Entry<Sector, List<Linedef>> entry : sectorToLinedefs.entrySet()) {
+    private void initializeDoors(Map<Sector, List<Integer>> sectorToLinedefs) {
+        // Create one Door object per sector, tracking all its linedefs
+        for (Map.Entry<Sector, List<Integer>> entry : sectorToLinedefs.entrySet()) {
             Sector sector = entry.getKey();
-            List<Linedef> linedefs = entry.getValue();
+            List<Integer> linedefIndices = entry.getValue();
 
             // Use the first linedef to determine door type
-            Linedef primaryLinedef = linedefs.get(0);
-            Door door = createDoorFromLinedef(primaryLinedef, getLinedefIndex(primaryLinedef));
+            Linedef primaryLinedef = wadDataService.linedefs.get(linedefIndices.get(0));
+            Door door = createDoorFromLinedef(primaryLinedef, sector);
 
             if (door != null) {
                 doors.add(door);
                 // Map ALL linedefs of this door to the same Door object
-                for (Linedef linedef : linedefs) {
-                    int linedefIndex = getLinedefIndex(linedef);
+                for (int linedefIndex : linedefIndices) {
                     linedefToDoor.put(linedefIndex, door);
                     LOGGER.info("Mapped linedef " + linedefIndex + " to door for sector with ceiling " +
                             sector.ceilHeight + " and floor " + sector.floorHeight);
@@ -70,7 +85,7 @@ public class DoorManager implements DoorService {
         LOGGER.info("Initialized " + doors.size() + " doors");
     }
 
-    private boolean isDoorType(int lineType) {
+    private static boolean isDoorType(int lineType) {
         return switch (lineType) {   // Door: open, wait, close
             // Door: open, stay open
             // Door: close
@@ -94,32 +109,31 @@ public class DoorManager implements DoorService {
         return sectorToDoor.get(sector);
     }
 
-    private Door createDoorFromLinedef(Linedef linedef, int linedefIndex) {
+    private Door createDoorFromLinedef(Linedef linedef, Sector sector) {
         // DOOM linedef special values for doors
         return switch (linedef.lineType) {
             case 1 ->   // Door: open, wait, close
-                    createNormalDoor(linedef);
+                    createNormalDoor(linedef, sector);
             case 26 ->  // Door: blue key
-                    createKeyDoor(linedef, KeyType.BLUE_KEY);
+                    createKeyDoor(linedef, sector, KeyType.BLUE_KEY);
             case 27 ->  // Door: yellow key
-                    createKeyDoor(linedef, KeyType.YELLOW_KEY);
+                    createKeyDoor(linedef, sector, KeyType.YELLOW_KEY);
             case 28 ->  // Door: red key
-                    createKeyDoor(linedef, KeyType.RED_KEY);
+                    createKeyDoor(linedef, sector, KeyType.RED_KEY);
             case 32 ->  // Door: blue skull key
-                    createKeyDoor(linedef, KeyType.BLUE_SKULL);
+                    createKeyDoor(linedef, sector, KeyType.BLUE_SKULL);
             case 33 ->  // Door: red skull key
-                    createKeyDoor(linedef, KeyType.RED_SKULL);
+                    createKeyDoor(linedef, sector, KeyType.RED_SKULL);
             case 34 ->  // Door: yellow skull key
-                    createKeyDoor(linedef, KeyType.YELLOW_SKULL);   // Door: open, stay open
+                    createKeyDoor(linedef, sector, KeyType.YELLOW_SKULL);   // Door: open, stay open
             // Door: close
             case 2, 3, 4 ->   // Door: open, wait, close (fast)
-                    createNormalDoor(linedef);
+                    createNormalDoor(linedef, sector);
             default -> null; // Not a door
         };
     }
 
-    private Door createNormalDoor(Linedef linedef) {
-        Sector sector = getDoorSector(linedef);
+    private Door createNormalDoor(Linedef linedef, Sector sector) {
         if (sector != null) {
             LOGGER.info("Creating door with sector - floor: " + sector.floorHeight + ", ceiling: " + sector.ceilHeight + ", floor texture: " + sector.floorTexture + ", ceiling texture: " + sector.ceilTexture);
             return new Door(linedef, sector, Door.DoorType.NORMAL, null, wadDataService, collisionService);
@@ -127,21 +141,20 @@ public class DoorManager implements DoorService {
         return null;
     }
 
-    private Door createKeyDoor(Linedef linedef, KeyType keyType) {
-        Sector sector = getDoorSector(linedef);
+    private Door createKeyDoor(Linedef linedef, Sector sector, KeyType keyType) {
         if (sector != null) {
             return new Door(linedef, sector, Door.DoorType.KEY_LOCKED, keyType, wadDataService, collisionService);
         }
         return null;
     }
 
-    private Sector getDoorSector(Linedef linedef) {
+    private static Sector getDoorSector(MapData map, Linedef linedef) {
         LOGGER.info("Getting door sector for linedef with tag " + linedef.sectorTag +
                 ", frontSidedef: " + linedef.frontSidedefId + ", backSidedef: " + linedef.backSidedefId);
 
         if (linedef.sectorTag != 0) {
             // Tagged door - find sector with matching tag
-            for (Sector sector : wadDataService.sectors) {
+            for (Sector sector : map.sectors) {
                 if (sector.tag == linedef.sectorTag) {
                     return sector;
                 }
@@ -153,17 +166,17 @@ public class DoorManager implements DoorService {
         Sector frontSector = null;
         Sector backSector = null;
 
-        if (linedef.frontSidedefId != -1 && linedef.frontSidedefId < wadDataService.sidedefs.size()) {
-            int frontSectorIndex = wadDataService.sidedefs.get(linedef.frontSidedefId).sectorId;
-            if (frontSectorIndex >= 0 && frontSectorIndex < wadDataService.sectors.size()) {
-                frontSector = wadDataService.sectors.get(frontSectorIndex);
+        if (linedef.frontSidedefId != -1 && linedef.frontSidedefId < map.sidedefs.size()) {
+            int frontSectorIndex = map.sidedefs.get(linedef.frontSidedefId).sectorId;
+            if (frontSectorIndex >= 0 && frontSectorIndex < map.sectors.size()) {
+                frontSector = map.sectors.get(frontSectorIndex);
             }
         }
 
-        if (linedef.backSidedefId != -1 && linedef.backSidedefId < wadDataService.sidedefs.size()) {
-            int backSectorIndex = wadDataService.sidedefs.get(linedef.backSidedefId).sectorId;
-            if (backSectorIndex >= 0 && backSectorIndex < wadDataService.sectors.size()) {
-                backSector = wadDataService.sectors.get(backSectorIndex);
+        if (linedef.backSidedefId != -1 && linedef.backSidedefId < map.sidedefs.size()) {
+            int backSectorIndex = map.sidedefs.get(linedef.backSidedefId).sectorId;
+            if (backSectorIndex >= 0 && backSectorIndex < map.sectors.size()) {
+                backSector = map.sectors.get(backSectorIndex);
             }
         }
 
@@ -225,6 +238,17 @@ public class DoorManager implements DoorService {
         return false;
     }
 
+    @Override
+    public boolean isExitSwitchInRange(Vector2D position, double useRange, boolean secret) {
+        int exitType = secret ? 51 : 11; // S1 Exit Level / S1 Secret Exit
+        for (Linedef linedef : wadDataService.linedefs) {
+            if (linedef.lineType == exitType && getDistanceToLinedef(position, linedef) <= useRange) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Check if a linedef ID corresponds to a door
      */
@@ -247,18 +271,6 @@ public class DoorManager implements DoorService {
                 (linedef1.startVertexId == linedef2.startVertexId && linedef1.endVertexId == linedef2.endVertexId);
     }
 
-    /**
-     * Get the index of a linedef in the WAD data
-     */
-    private int getLinedefIndex(Linedef linedef) {
-        for (int i = 0; i < wadDataService.linedefs.size(); i++) {
-            if (wadDataService.linedefs.get(i) == linedef) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
     private double getDistanceToLinedef(Vector2D point, Linedef linedef) {
         // Get the linedef endpoints
         Vector2D start = wadDataService.vertexes.get(linedef.startVertexId);
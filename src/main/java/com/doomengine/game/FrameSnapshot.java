@@ -0,0 +1,97 @@
+package com.doomengine.game;
+
+import com.doomengine.game.objects.MapObject;
+import com.doomengine.wad.datatypes.Sector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything the renderer reads from the simulation for one tic, copied once the tic is done.
+ * The renderer never looks at live Player, MapObject or Sector state, so in pipelined mode it
+ * can draw one snapshot while the game thread is already simulating the next tic.
+ * <p>
+ * Doors are captured through the sector ceiling heights they move.
+ */
+public final class FrameSnapshot {
+    /** A map object as it is drawn this tic. */
+    public record ObjectView(double x, double y, double z, double renderHeight,
+                             String spriteName, boolean fullBright) {
+    }
+
+    public final long tic;
+    public final int levelGeneration; // Which loaded level the snapshot belongs to
+
+    // View
+    public final double viewX;
+    public final double viewY;
+    public final double viewZ;     // Eye height in world units
+    public final double viewAngle; // Degrees
+    public final String weaponSprite;
+
+    public final List<ObjectView> objects; // Farthest from the view first
+
+    // Per sector, indexed like WADDataService.sectors
+    private final short[] floorHeights;
+    private final short[] ceilHeights;
+    private final double[] lightLevels;
+
+    private FrameSnapshot(long tic, int levelGeneration, Player player, List<ObjectView> objects,
+                          short[] floorHeights, short[] ceilHeights, double[] lightLevels) {
+        this.tic = tic;
+        this.levelGeneration = levelGeneration;
+        this.viewX = player.pos.x();
+        this.viewY = player.pos.y();
+        this.viewZ = player.getEyeLevelViewZ();
+        this.viewAngle = player.angle;
+        this.weaponSprite = player.getCurrentWeaponSprite();
+        this.objects = objects;
+        this.floorHeights = floorHeights;
+        this.ceilHeights = ceilHeights;
+        this.lightLevels = lightLevels;
+    }
+
+    /**
+     * Copies the current game state. Must run on the game thread, between tics.
+     *
+     * @param objects visible map objects sorted farthest first, as ObjectManager returns them
+     */
+    public static FrameSnapshot capture(long tic, int levelGeneration, Player player,
+                                        List<MapObject> objects, List<Sector> sectors) {
+        List<ObjectView> views = new ArrayList<>(objects.size());
+        for (MapObject mo : objects) {
+            if (mo.currentSpriteLumpName == null) continue;
+            views.add(new ObjectView(mo.pos.x(), mo.pos.y(), mo.z, mo.renderHeight,
+                    mo.currentSpriteLumpName, mo.currentSpriteFullBright));
+        }
+
+        short[] floorHeights = new short[sectors.size()];
+        short[] ceilHeights = new short[sectors.size()];
+        double[] lightLevels = new double[sectors.size()];
+        for (int i = 0; i < sectors.size(); i++) {
+            Sector sector = sectors.get(i);
+            floorHeights[i] = sector.floorHeight;
+            ceilHeights[i] = sector.ceilHeight;
+            lightLevels[i] = sector.lightLevel;
+        }
+        return new FrameSnapshot(tic, levelGeneration, player, List.copyOf(views),
+                floorHeights, ceilHeights, lightLevels);
+    }
+
+    public int floorHeight(int sectorId) {
+        return floorHeights[sectorId];
+    }
+
+    public int ceilHeight(int sectorId) {
+        return ceilHeights[sectorId];
+    }
+
+    /** Sector light in 0..1. */
+    public double lightLevel(int sectorId) {
+        return lightLevels[sectorId];
+    }
+
+    public int sectorCount() {
+        return lightLevels.length;
+    }
+}
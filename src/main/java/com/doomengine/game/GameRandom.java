@@ -0,0 +1,33 @@
+package com.doomengine.game;
+
+import java.util.Random;
+
+/**
+ * The one source of randomness for gameplay: AI timing and wandering, attack spread, pain
+ * chance and damage rolls. Like vanilla's P_Random it is seeded, not drawn from the clock,
+ * so a run that starts from {@link #reset} with the same input plays out the same way.
+ * <p>
+ * Only the game thread may draw from it; a draw from anywhere else would shift every roll after it.
+ */
+public final class GameRandom {
+    private static final long SEED = 0x444F4F4DL; // "DOOM"
+
+    private static final Random random = new Random(SEED);
+
+    private GameRandom() {
+    }
+
+    /**
+     * Restarts the sequence. Called when a game starts.
+     */
+    public static void reset() {
+        random.setSeed(SEED);
+    }
+
+    /**
+     * The next value in [0, 1), for use wherever Math.random() would be.
+     */
+    public static double nextDouble() {
+        return random.nextDouble();
+    }
+}
@@ -0,0 +1,155 @@
+package com.doomengine.game;
+
+import com.doomengine.wad.MapData;
+import com.doomengine.wad.WADDataService;
+import com.doomengine.wad.datatypes.Sector;
+import com.doomengine.wad.datatypes.Thing;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prepares levels on a background thread while the current one is being played.
+ * <p>
+ * Everything that only depends on the WAD contents is done on the loader thread:
+ * reading and linking the map lumps, building {@link com.doomengine.wad.MapGeometry},
+ * composing the map's textures and flats, the door table and the skill-filtered spawn
+ * list. What is left for the game thread when the level is swapped in is creating the
+ * BSP, renderers, doors and map objects, which takes a few milliseconds.
+ */
+public class LevelLoader implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(LevelLoader.class.getName());
+
+    private static final Pattern EPISODE_MAP = Pattern.compile("E(\\d)M(\\d)");
+    private static final Pattern DOOM2_MAP = Pattern.compile("MAP(\\d\\d)");
+
+    /**
+     * A map with everything the game thread needs to start it.
+     *
+     * @param doorLinedefs Door linedef indices grouped by door sector (see {@link DoorManager#findDoorLinedefs})
+     * @param spawnThings  Things to spawn at the loader's skill level, without the player start
+     */
+    public record PreparedLevel(MapData map, Thing playerStart,
+                                Map<Sector, List<Integer>> doorLinedefs, List<Thing> spawnThings) {
+    }
+
+    private final WADDataService wadDataService;
+    private final int skillLevel;
+    private final ExecutorService worker;
+    private final Map<String, Future<PreparedLevel>> pending = new HashMap<>();
+
+    public LevelLoader(WADDataService wadDataService, int skillLevel) {
+        this.wadDataService = wadDataService;
+        this.skillLevel = skillLevel;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "level-loader");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY); // Never compete with the game thread for a core
+            return thread;
+        });
+    }
+
+    /**
+     * Starts preparing a map in the background, unless it is already being prepared.
+     * Unknown map names are ignored.
+     */
+    public synchronized void preload(String mapName) {
+        if (mapName == null || !wadDataService.hasMap(mapName)) return;
+        pending.computeIfAbsent(mapName.toUpperCase(), name -> worker.submit(() -> load(name)));
+    }
+
+    /**
+     * Returns a prepared map, waiting for its background load to finish if needed.
+     * Maps that were never preloaded are loaded on the calling thread.
+     */
+    public PreparedLevel take(String mapName) throws IOException {
+        Future<PreparedLevel> future;
+        synchronized (this) {
+            future = pending.remove(mapName.toUpperCase());
+        }
+        if (future == null) {
+            return load(mapName);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading map " + mapName, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            throw new IOException("Failed to load map " + mapName, e.getCause());
+        }
+    }
+
+    /**
+     * Prepares a map that has already been read, e.g. the one loaded at startup.
+     */
+    public PreparedLevel prepare(MapData map) throws IOException {
+        Thing playerStart = findPlayerStart(map.things);
+        if (playerStart == null) {
+            throw new IOException("Player Thing not found in WAD data for map " + map.mapName);
+        }
+        return new PreparedLevel(map, playerStart, DoorManager.findDoorLinedefs(map),
+                ObjectManager.selectSpawnThings(map.things, playerStart, skillLevel));
+    }
+
+    private PreparedLevel load(String mapName) throws IOException {
+        long start = System.nanoTime();
+        MapData map = wadDataService.loadMap(mapName);
+        wadDataService.assetData.precacheMapTextures(map.sidedefs, map.sectors);
+        PreparedLevel level = prepare(map);
+        LOGGER.info("Prepared map " + map.mapName + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return level;
+    }
+
+    private static Thing findPlayerStart(List<Thing> things) {
+        if (things == null || things.isEmpty()) return null;
+        return things.stream()
+                .filter(t -> t.type == 1) // Player 1 start
+                .findFirst()
+                .orElseGet(() -> things.get(0));
+    }
+
+    /**
+     * The map that follows {@code mapName} in the vanilla episode order, or null after
+     * the last map of an episode or for names that are not ExMy / MAPxx.
+     *
+     * @param secret Whether the level was left through a secret exit
+     */
+    public static String nextMapName(String mapName, boolean secret) {
+        Matcher episode = EPISODE_MAP.matcher(mapName.toUpperCase());
+        if (episode.matches()) {
+            int e = Integer.parseInt(episode.group(1));
+            int m = Integer.parseInt(episode.group(2));
+            if (secret) return "E" + e + "M9";
+            if (m == 9) {
+                // Secret levels return to the map after the one holding the secret exit
+                int[] afterSecret = {4, 6, 7, 3};
+                return e >= 1 && e <= afterSecret.length ? "E" + e + "M" + afterSecret[e - 1] : null;
+            }
+            return m < 8 ? "E" + e + "M" + (m + 1) : null;
+        }
+        Matcher doom2 = DOOM2_MAP.matcher(mapName.toUpperCase());
+        if (doom2.matches()) {
+            int m = Integer.parseInt(doom2.group(1));
+            if (secret) return m == 15 ? "MAP31" : m == 31 ? "MAP32" : null;
+            if (m == 31 || m == 32) return "MAP16";
+            return m < 30 ? String.format("MAP%02d", m + 1) : null;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        worker.shutdownNow();
+    }
+}
@@ -36,19 +36,41 @@ public class ObjectManager implements ObjectService {
     }
     
     public void initializeMapObjects(Player player) {
+        initializeMapObjects(player, selectSpawnThings(wadDataService.things, getPlayerThing(player),
+                engineTmp.getCurrentSkillLevel()));
+    }
+
+    /**
+     * Spawns the given things, typically a list prepared by {@link #selectSpawnThings}.
+     */
+    public void initializeMapObjects(Player player, List<Thing> spawnThings) {
         this.player = player; // Store player as dependency
-        Thing playerThing = getPlayerThing(player);
-        int currentSkill = engineTmp.getCurrentSkillLevel();
 
-        for (Thing thing : wadDataService.things) {
+        for (Thing thing : spawnThings) {
             MobjInfoDef mobjInfo = gameDefinitions.getMobjInfoByDoomedNum(thing.type);
 
             if (mobjInfo == null) {
                 continue; // Not a defined object type, skip.
             }
 
+            try {
+                MapObject mo = new GenericMapObject(thing, gameDefinitions, wadDataService.assetData, collisionService, audioService, engineTmp, this);
+                mapObjects.add(mo);
+            } catch (IllegalArgumentException e) {
+                // Silently skip objects that fail to spawn
+            }
+        }
+    }
+
+    /**
+     * Picks the things of a map that should spawn for a single player at the given skill.
+     * Depends only on the thing list, so it can run on the level loader thread.
+     */
+    public static List<Thing> selectSpawnThings(List<Thing> things, Thing playerThing, int currentSkill) {
+        List<Thing> spawnThings = new ArrayList<>();
+        for (Thing thing : things) {
             // 1. Skip if this Thing is the main player (already handled by DoomEngine)
-            if (thing.type == playerThing.type &&
+            if (playerThing != null && thing.type == playerThing.type &&
                     playerThing.pos.x() == thing.pos.x() &&
                     playerThing.pos.y() == thing.pos.y()) {
                 continue;
@@ -98,16 +120,12 @@ public class ObjectManager implements ObjectService {
             }
 
             if (shouldSpawn) {
-                try {
-                    MapObject mo = new GenericMapObject(thing, gameDefinitions, wadDataService.assetData, collisionService, audioService, engineTmp, this);
-                    mapObjects.add(mo);
-                } catch (IllegalArgumentException e) {
-                    // Silently skip objects that fail to spawn
-                }
+                spawnThings.add(thing);
             }
         }
+        return spawnThings;
     }
-    
+
     private Thing getPlayerThing(Player player) {
         // Find the original Thing that matches the player's initial position
         for (Thing thing : wadDataService.things) {
@@ -539,6 +539,15 @@ public class Player extends MapObject {
         LOGGER.info("Door use attempt: " + (doorUsed ? "SUCCESS" : "FAILED"));
 
         if (!doorUsed) {
+            // Exit switches end the level; the engine swaps in the next map between frames
+            if (doorService.isExitSwitchInRange(this.pos, 64.0, false)) {
+                gameEngineTmp.exitLevel(false);
+                return;
+            }
+            if (doorService.isExitSwitchInRange(this.pos, 64.0, true)) {
+                gameEngineTmp.exitLevel(true);
+                return;
+            }
             // Try to pick up items
             tryPickupItems();
         }
@@ -149,7 +149,7 @@ public class PlayerHUD {
         
         // Check if we have AssetData and sprites available
         if (assetData != null && assetData.sprites != null) {
-            BufferedImage faceImage = assetData.sprites.get(currentFaceSprite);
+            BufferedImage faceImage = assetData.getSpriteImage(currentFaceSprite);
             
             if (faceImage != null) {
                 // Draw the DOOM guy face sprite
@@ -1,6 +1,7 @@
 package com.doomengine.game.objects;
 
 import com.doomengine.audio.SoundEngine;
+import com.doomengine.game.GameRandom;
 import com.doomengine.game.ObjectManager;
 import com.doomengine.game.Player;
 import com.doomengine.geometry.Vector2D;
@@ -57,8 +58,8 @@ public enum Actions implements MobjAction {
                     self.info.missileState != StateNum.S_NULL;
 
             // Try to attack if in range and random chance
-            if ((shouldTryMeleeAttack || shouldTryMissileAttack) && Math.random() < 0.1) { // 10% chance per tic
-                if (shouldTryMeleeAttack && (Math.random() < 0.5 || !shouldTryMissileAttack)) {
+            if ((shouldTryMeleeAttack || shouldTryMissileAttack) && GameRandom.nextDouble() < 0.1) { // 10% chance per tic
+                if (shouldTryMeleeAttack && (GameRandom.nextDouble() < 0.5 || !shouldTryMissileAttack)) {
                     // Prefer melee if close enough
                     setMobjState(self, self.info.meleeState);
                     return;
@@ -459,7 +460,7 @@ public enum Actions implements MobjAction {
 
         // Calculate attack angle with random spread
         double baseAngle = source.angle;
-        double attackAngle = baseAngle + (Math.random() - 0.5) * spread;
+        double attackAngle = baseAngle + (GameRandom.nextDouble() - 0.5) * spread;
 
         // Calculate end point
         double angleRad = Math.toRadians(attackAngle);
@@ -517,7 +518,7 @@ public enum Actions implements MobjAction {
     private static void performPlayerHitscanAttack(Player player, ObjectManager objectManager, int damage, double range, double spread) {
         // Calculate attack angle with spread
         double baseAngle = player.angle;
-        double attackAngle = baseAngle + (Math.random() - 0.5) * spread;
+        double attackAngle = baseAngle + (GameRandom.nextDouble() - 0.5) * spread;
 
         // Calculate end point
         double angleRad = Math.toRadians(attackAngle);
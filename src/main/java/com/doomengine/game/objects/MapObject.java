@@ -1,6 +1,7 @@
 package com.doomengine.game.objects;
 
 import com.doomengine.game.DoomEngine;
+import com.doomengine.game.GameRandom;
 import com.doomengine.game.ObjectManager;
 import com.doomengine.game.Player;
 import com.doomengine.geometry.Vector2D;
@@ -8,9 +9,9 @@ import com.doomengine.services.AudioService;
 import com.doomengine.services.CollisionService;
 import com.doomengine.services.GameEngineTmp;
 import com.doomengine.wad.assets.AssetData;
+import com.doomengine.wad.assets.IndexedImage;
 import com.doomengine.wad.datatypes.Thing;
 
-import java.awt.image.BufferedImage;
 import java.util.logging.Logger;
 
 import static com.doomengine.game.objects.Actions.*;
@@ -162,7 +163,7 @@ public abstract class MapObject {
             if (info.deathState != StateNum.S_NULL) {
                 setState(info.deathState);
             }
-        } else if (Math.random() < (info.painChance / 255.0)) {
+        } else if (GameRandom.nextDouble() < (info.painChance / 255.0)) {
             // Pain chance
             if (info.painState != StateNum.S_NULL) {
                 setState(info.painState);
@@ -192,7 +193,7 @@ public abstract class MapObject {
 
 
         // Cache sprite offsets if needed, from AssetData.Patch.header
-        BufferedImage spriteImage = assetData.sprites.get(this.currentSpriteLumpName);
+        IndexedImage spriteImage = assetData.sprites.get(this.currentSpriteLumpName);
         if (spriteImage != null) { // Should always be found if AssetData is correct
             // The Patch object in AssetData would hold the original offsets.
             // For now, assume sprite origin is center-bottom or use fixed offsets.
@@ -222,7 +223,7 @@ public abstract class MapObject {
     private void initializeAI() {
         if (isEnemy()) {
             aiState = AIState.IDLE;
-            aiTics = 70 + (int) (Math.random() * 140); // 2-6 seconds before first action
+            aiTics = 70 + (int) (GameRandom.nextDouble() * 140); // 2-6 seconds before first action
 
             // Set enemy-specific AI parameters
             switch (type) {
@@ -396,7 +397,7 @@ public abstract class MapObject {
             aiTics--;
             if (aiTics <= 0) {
                 aiState = AIState.WANDERING;
-                aiTics = 105 + (int) (Math.random() * 210); // 3-9 seconds
+                aiTics = 105 + (int) (GameRandom.nextDouble() * 210); // 3-9 seconds
             }
         }
     }
@@ -413,15 +414,15 @@ public abstract class MapObject {
         aiTics--;
         if (aiTics <= 0) {
             // Pick a random direction and move
-            double randomAngle = Math.random() * 360.0;
+            double randomAngle = GameRandom.nextDouble() * 360.0;
             moveInDirection(randomAngle);
-            aiTics = 35 + (int) (Math.random() * 70); // 1-3 seconds
+            aiTics = 35 + (int) (GameRandom.nextDouble() * 70); // 1-3 seconds
         }
 
         // Occasionally go back to idle
-        if (Math.random() < 0.02) { // 2% chance per frame
+        if (GameRandom.nextDouble() < 0.02) { // 2% chance per frame
             aiState = AIState.IDLE;
-            aiTics = 70 + (int) (Math.random() * 140); // 2-6 seconds
+            aiTics = 70 + (int) (GameRandom.nextDouble() * 140); // 2-6 seconds
         }
     }
 
@@ -438,10 +439,10 @@ public abstract class MapObject {
             // Attack if in range and not on cooldown
             if ((inMeleeRange || inMissileRange) && attackCooldown <= 0) {
                 // Higher attack chance and add some debug output
-                if (Math.random() < 0.25) { // 25% chance per frame when in range
+                if (GameRandom.nextDouble() < 0.25) { // 25% chance per frame when in range
                     aiState = AIState.ATTACKING;
                     aiTics = 35; // 1 second attack duration
-                    attackCooldown = 70 + (int) (Math.random() * 70); // 2-4 second cooldown
+                    attackCooldown = 70 + (int) (GameRandom.nextDouble() * 70); // 2-4 second cooldown
 
                     // Switch to appropriate attack state based on enemy type and range
                     StateNum attackState = getAttackState(inMeleeRange);
@@ -561,7 +562,7 @@ public abstract class MapObject {
         if (aiTics <= 0) {
             // Give up searching, go back to wandering
             aiState = AIState.WANDERING;
-            aiTics = 105 + (int) (Math.random() * 210);
+            aiTics = 105 + (int) (GameRandom.nextDouble() * 210);
             target = null;
             return;
         }
@@ -574,7 +575,7 @@ public abstract class MapObject {
                 moveInDirection(angleToLastPos);
             } else {
                 // Reached last known position, search randomly
-                double randomAngle = Math.random() * 360.0;
+                double randomAngle = GameRandom.nextDouble() * 360.0;
                 moveInDirection(randomAngle);
             }
         }
@@ -770,7 +771,7 @@ public abstract class MapObject {
                     target.health -= info.damage;
                     if (target.health <= 0) {
                         target.setState(target.info.deathState);
-                    } else if (Math.random() < (target.info.painChance / 255.0)) {
+                    } else if (GameRandom.nextDouble() < (target.info.painChance / 255.0)) {
                         target.setState(target.info.painState);
                     }
                 }
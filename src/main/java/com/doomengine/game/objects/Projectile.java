@@ -1,5 +1,6 @@
 package com.doomengine.game.objects;
 
+import com.doomengine.game.GameRandom;
 import com.doomengine.game.ObjectManager;
 import com.doomengine.game.Player;
 import com.doomengine.geometry.Vector2D;
@@ -47,7 +48,7 @@ public class Projectile extends MapObject {
         switch (projectileType) {
             case MT_TROOPSHOT: // Imp fireball
                 this.speed = 300.0; // units per second
-                this.damage = 8 + (int) (Math.random() * 8); // 8-15 damage
+                this.damage = 8 + (int) (GameRandom.nextDouble() * 8); // 8-15 damage
                 this.explosive = true;
                 this.blastRadius = 128.0;
                 this.lifeTime = 105; // 3 seconds at 35fps
@@ -55,7 +56,7 @@ public class Projectile extends MapObject {
 
             case MT_HEADSHOT: // Cacodemon fireball
                 this.speed = 350.0;
-                this.damage = 10 + (int) (Math.random() * 10); // 10-19 damage
+                this.damage = 10 + (int) (GameRandom.nextDouble() * 10); // 10-19 damage
                 this.explosive = true;
                 this.blastRadius = 128.0;
                 this.lifeTime = 140; // 4 seconds
@@ -63,7 +64,7 @@ public class Projectile extends MapObject {
 
             case MT_BRUISERSHOT: // Baron/Knight fireball
                 this.speed = 400.0;
-                this.damage = 8 + (int) (Math.random() * 8); // 8-15 damage
+                this.damage = 8 + (int) (GameRandom.nextDouble() * 8); // 8-15 damage
                 this.explosive = true;
                 this.blastRadius = 128.0;
                 this.lifeTime = 140;
@@ -71,7 +72,7 @@ public class Projectile extends MapObject {
 
             case MT_ROCKET: // Rocket launcher
                 this.speed = 600.0;
-                this.damage = 128 + (int) (Math.random() * 128); // 128-255 damage
+                this.damage = 128 + (int) (GameRandom.nextDouble() * 128); // 128-255 damage
                 this.explosive = true;
                 this.blastRadius = 256.0;
                 this.lifeTime = 175; // 5 seconds
@@ -79,7 +80,7 @@ public class Projectile extends MapObject {
 
             case MT_PLASMA: // Plasma rifle
                 this.speed = 800.0;
-                this.damage = 8 + (int) (Math.random() * 8); // 8-15 damage
+                this.damage = 8 + (int) (GameRandom.nextDouble() * 8); // 8-15 damage
                 this.explosive = false;
                 this.blastRadius = 0;
                 this.lifeTime = 70; // 2 seconds
@@ -87,7 +88,7 @@ public class Projectile extends MapObject {
 
             case MT_BFG: // BFG9000
                 this.speed = 800.0;
-                this.damage = 500 + (int) (Math.random() * 500); // 500-999 damage
+                this.damage = 500 + (int) (GameRandom.nextDouble() * 500); // 500-999 damage
                 this.explosive = true;
                 this.blastRadius = 512.0;
                 this.lifeTime = 210; // 6 seconds
@@ -95,7 +96,7 @@ public class Projectile extends MapObject {
 
             case MT_FATSHOT: // Mancubus fireball
                 this.speed = 350.0;
-                this.damage = 8 + (int) (Math.random() * 8); // 8-15 damage
+                this.damage = 8 + (int) (GameRandom.nextDouble() * 8); // 8-15 damage
                 this.explosive = true;
                 this.blastRadius = 128.0;
                 this.lifeTime = 140;
@@ -103,7 +104,7 @@ public class Projectile extends MapObject {
 
             case MT_ARACHPLAZ: // Arachnotron plasma
                 this.speed = 700.0;
-                this.damage = 5 + (int) (Math.random() * 5); // 5-9 damage
+                this.damage = 5 + (int) (GameRandom.nextDouble() * 5); // 5-9 damage
                 this.explosive = false;
                 this.blastRadius = 0;
                 this.lifeTime = 105;
@@ -400,7 +401,7 @@ public class Projectile extends MapObject {
         } else {
             // Apply pain state if target has one
             if (target.info.painState != StateNum.S_NULL &&
-                    Math.random() < (target.info.painChance / 255.0)) {
+                    GameRandom.nextDouble() < (target.info.painChance / 255.0)) {
                 target.setState(target.info.painState);
             }
         }
@@ -439,7 +440,7 @@ public class Projectile extends MapObject {
                     if (obj.health <= 0 && obj.info.deathState != StateNum.S_NULL) {
                         obj.setState(obj.info.deathState);
                     } else if (obj.info.painState != StateNum.S_NULL &&
-                            Math.random() < (obj.info.painChance / 255.0)) {
+                            GameRandom.nextDouble() < (obj.info.painChance / 255.0)) {
                         obj.setState(obj.info.painState);
                     }
                 }
@@ -0,0 +1,102 @@
+package com.doomengine.geometry;
+
+/**
+ * Binary angle measurement, as vanilla's tables.c: a full turn is 2^32, so an angle is a
+ * plain {@code int} that wraps around for free and differences need no normalising.
+ * Read it as unsigned for 0-360 degrees, or as signed for -180 to 180 relative to a direction.
+ * <p>
+ * Trigonometry goes through fine tables of 8192 steps per turn and {@link #pointToAngle}
+ * through a tangent-to-angle table, so the hot rendering paths neither allocate nor call
+ * into Math's transcendental functions.
+ */
+public final class Bam {
+    public static final int ANG45 = 0x20000000;
+    public static final int ANG90 = 0x40000000;
+    public static final int ANG180 = 0x80000000;
+    public static final int ANG270 = 0xC0000000;
+    public static final int ANG1 = ANG45 / 45;
+
+    public static final int FINEANGLES = 8192;
+    public static final int FINEMASK = FINEANGLES - 1;
+    public static final int ANGLETOFINESHIFT = 19; // BAM to fine angle index
+
+    private static final int SLOPERANGE = 2048;   // Tangent steps per octant
+    private static final double TURN = 4294967296.0; // 2^32
+
+    // Sine over a turn and a quarter, so cosine reads the same table a quarter turn ahead
+    private static final double[] FINE_SINE = new double[FINEANGLES * 5 / 4];
+    // Tangent from -90 to +90 degrees
+    private static final double[] FINE_TANGENT = new double[FINEANGLES / 2];
+    // Angle of each slope 0..1 in SLOPERANGE steps, for the first octant
+    private static final int[] TAN_TO_ANGLE = new int[SLOPERANGE + 1];
+
+    static {
+        // Sampled half a step in, as vanilla, so no entry is exactly zero or infinite
+        for (int i = 0; i < FINE_SINE.length; i++) {
+            FINE_SINE[i] = Math.sin((i + 0.5) * 2 * Math.PI / FINEANGLES);
+        }
+        for (int i = 0; i < FINE_TANGENT.length; i++) {
+            FINE_TANGENT[i] = Math.tan((i - FINEANGLES / 4 + 0.5) * 2 * Math.PI / FINEANGLES);
+        }
+        for (int i = 0; i <= SLOPERANGE; i++) {
+            TAN_TO_ANGLE[i] = (int) Math.round(Math.atan((double) i / SLOPERANGE) / (2 * Math.PI) * TURN);
+        }
+    }
+
+    private Bam() {
+    }
+
+    public static int fromDegrees(double degrees) {
+        return (int) (long) Math.floor(degrees / 360.0 * TURN);
+    }
+
+    /** Degrees in [0, 360). */
+    public static double toDegrees(int angle) {
+        return Integer.toUnsignedLong(angle) * 360.0 / TURN;
+    }
+
+    public static double sin(int angle) {
+        return FINE_SINE[angle >>> ANGLETOFINESHIFT];
+    }
+
+    public static double cos(int angle) {
+        return FINE_SINE[(angle >>> ANGLETOFINESHIFT) + FINEANGLES / 4];
+    }
+
+    /** Tangent, which repeats every half turn. */
+    public static double tan(int angle) {
+        return FINE_TANGENT[((angle + ANG90) >>> ANGLETOFINESHIFT) & (FINEANGLES / 2 - 1)];
+    }
+
+    /**
+     * Angle of the vector (dx, dy), as vanilla's R_PointToAngle: the vector is folded into the
+     * first octant, where its slope indexes the tangent-to-angle table.
+     */
+    public static int pointToAngle(double dx, double dy) {
+        if (dx == 0 && dy == 0) return 0;
+        if (dx >= 0) {
+            if (dy >= 0) {
+                return dx > dy ? TAN_TO_ANGLE[slopeDiv(dy, dx)]                 // Octant 0
+                        : ANG90 - 1 - TAN_TO_ANGLE[slopeDiv(dx, dy)];           // Octant 1
+            }
+            dy = -dy;
+            return dx > dy ? -TAN_TO_ANGLE[slopeDiv(dy, dx)]                    // Octant 7
+                    : ANG270 + TAN_TO_ANGLE[slopeDiv(dx, dy)];                  // Octant 6
+        }
+        dx = -dx;
+        if (dy >= 0) {
+            return dx > dy ? ANG180 - 1 - TAN_TO_ANGLE[slopeDiv(dy, dx)]        // Octant 3
+                    : ANG90 + TAN_TO_ANGLE[slopeDiv(dx, dy)];                   // Octant 2
+        }
+        dy = -dy;
+        return dx > dy ? ANG180 + TAN_TO_ANGLE[slopeDiv(dy, dx)]                // Octant 4
+                : ANG270 - 1 - TAN_TO_ANGLE[slopeDiv(dx, dy)];                  // Octant 5
+    }
+
+    /** Slope num/den (both non-negative, num <= den) in tangent table steps. */
+    private static int slopeDiv(double num, double den) {
+        if (den < 1e-9) return SLOPERANGE;
+        int slope = (int) (num * SLOPERANGE / den);
+        return Math.min(slope, SLOPERANGE);
+    }
+}
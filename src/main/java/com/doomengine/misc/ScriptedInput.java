@@ -0,0 +1,96 @@
+package com.doomengine.misc;
+
+import com.doomengine.services.InputService;
+
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Input for headless runs: keys are held for tic ranges read from a script instead of
+ * coming from a keyboard. An empty script is null input, nothing is ever pressed.
+ * <p>
+ * Each script line is {@code FROM TO KEY...}: the keys, named as KeyEvent's VK_ constants
+ * without the prefix (UP, LEFT, CONTROL, SPACE, ...), are held from tic FROM to tic TO
+ * inclusive. Blank lines and lines starting with # are ignored.
+ */
+public class ScriptedInput implements InputService {
+    private record Hold(long fromTic, long toTic, int keyCode) {
+    }
+
+    private final List<Hold> holds;
+    private volatile long tic;
+
+    public ScriptedInput() {
+        this.holds = List.of();
+    }
+
+    private ScriptedInput(List<Hold> holds) {
+        this.holds = holds;
+    }
+
+    public static ScriptedInput load(Path script) throws IOException {
+        List<Hold> holds = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(script)) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] fields = line.split("\\s+");
+            if (fields.length < 3) {
+                throw new IOException(script + ":" + lineNumber + ": expected FROM TO KEY...");
+            }
+            long from, to;
+            try {
+                from = Long.parseLong(fields[0]);
+                to = Long.parseLong(fields[1]);
+            } catch (NumberFormatException e) {
+                throw new IOException(script + ":" + lineNumber + ": invalid tic range", e);
+            }
+            for (int i = 2; i < fields.length; i++) {
+                holds.add(new Hold(from, to, keyCode(fields[i], script, lineNumber)));
+            }
+        }
+        return new ScriptedInput(List.copyOf(holds));
+    }
+
+    private static int keyCode(String name, Path script, int lineNumber) throws IOException {
+        try {
+            return KeyEvent.class.getField("VK_" + name.toUpperCase()).getInt(null);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IOException(script + ":" + lineNumber + ": unknown key " + name, e);
+        }
+    }
+
+    /**
+     * Sets the tic whose keys {@link #isKeyPressed} reports. Called by the engine before each tic.
+     */
+    public void setTic(long tic) {
+        this.tic = tic;
+    }
+
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        long now = tic;
+        for (Hold hold : holds) {
+            if (hold.keyCode == keyCode && now >= hold.fromTic && now <= hold.toTic) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void addKeyListener(KeyListener listener) {
+        // No key events are ever generated
+    }
+
+    @Override
+    public void removeKeyListener(KeyListener listener) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.doomengine.rendering;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.function.Consumer;
+
+/**
+ * Active rendering: a Canvas whose frames are drawn and flipped by the thread that calls
+ * {@link #present}, through a page-flipping BufferStrategy. Swing's repaint manager and the
+ * event dispatch thread are not involved, so a frame reaches the screen when the game loop
+ * says so rather than whenever the EDT gets round to painting.
+ */
+public class CanvasPresenter extends Canvas {
+    private static final int BUFFERS = 2;
+
+    private BufferStrategy strategy; // Created on the first present, once the canvas is displayable
+
+    public CanvasPresenter(int width, int height) {
+        setPreferredSize(new Dimension(width, height));
+        setIgnoreRepaint(true); // Never painted by AWT; present() does all drawing
+        setFocusable(true);
+    }
+
+    /**
+     * Draws a frame with the painter and shows it. Redraws if the back buffer's contents were
+     * lost, e.g. when the window was minimised. Does nothing until the canvas is on screen.
+     */
+    public void present(Consumer<Graphics2D> painter) {
+        if (strategy == null) {
+            if (!isDisplayable()) return;
+            createBufferStrategy(BUFFERS);
+            strategy = getBufferStrategy();
+        }
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    painter.accept(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync(); // Flush the flip now on platforms that queue drawing
+    }
+}
@@ -1,39 +1,40 @@
 package com.doomengine.rendering;
 
-// Represents a "drawn segment" of a wall or portal, used for sprite occlusion.
+// A wall or portal as drawn, kept for clipping sprites as vanilla's drawseg_t.
+// Sprites behind it are clipped by its silhouette: the rows its upper and lower parts cover.
 public class DrawSeg {
+    public static final int SIL_NONE = 0;
+    public static final int SIL_BOTTOM = 1;
+    public static final int SIL_TOP = 2;
+    public static final int SIL_BOTH = 3;
+
+    public final int segId;
     public final int x1;
     public final int x2;          // Screen space horizontal boundaries (inclusive)
-    public final double scale;        // Average scale for depth comparison (larger scale = closer)
-    public final boolean isMasked;    // True if this is a masked (transparent) mid-texture
-    public final String maskedTextureName; // Name of the texture if isMasked is true
+    public final double scale1;   // Scale at x1 and x2 (larger scale = closer)
+    public final double scale2;
+    public final int silhouette;  // Which of SIL_BOTTOM/SIL_TOP can hide sprites behind the seg
+
+    // Sprites with their feet at or above bottomSilHeight pass over the bottom silhouette,
+    // sprites with their head at or below topSilHeight pass under the top one
+    public final double bottomSilHeight;
+    public final double topSilHeight;
 
-    // Per-column Y-coordinates of the top and bottom edges of this segment on screen.
-    // These define what this segment occludes.
-    // Array index corresponds to (screen_column - x1).
-    public final short[] sprtopclip;
-    public final short[] sprbottomclip;
+    // Per column (index x - x1): sprite rows must be below sprTopClip and above sprBottomClip
+    public final int[] sprTopClip;
+    public final int[] sprBottomClip;
 
-    public DrawSeg(int x1, int x2, double scale, boolean isMasked, String maskedTextureName, int screenHeight) {
+    public DrawSeg(int segId, int x1, int x2, double scale1, double scale2, int silhouette,
+                   double bottomSilHeight, double topSilHeight, int[] sprTopClip, int[] sprBottomClip) {
+        this.segId = segId;
         this.x1 = x1;
         this.x2 = x2;
-        this.scale = scale;
-        this.isMasked = isMasked;
-        this.maskedTextureName = isMasked ? maskedTextureName : null;
-
-        int numColumns = (x2 - x1 + 1);
-        if (numColumns > 0) {
-            this.sprtopclip = new short[numColumns];
-            this.sprbottomclip = new short[numColumns];
-            // Default initialization (e.g., full height if masked, or will be filled by SegHandler)
-            for (int i = 0; i < numColumns; i++) {
-                this.sprtopclip[i] = 0; // Default: top of screen
-                this.sprbottomclip[i] = (short)(screenHeight - 1); // Default: bottom of screen
-            }
-        } else {
-            // Should not happen for valid segments, but handle defensively
-            this.sprtopclip = new short[0];
-            this.sprbottomclip = new short[0];
-        }
+        this.scale1 = scale1;
+        this.scale2 = scale2;
+        this.silhouette = silhouette;
+        this.bottomSilHeight = bottomSilHeight;
+        this.topSilHeight = topSilHeight;
+        this.sprTopClip = sprTopClip;
+        this.sprBottomClip = sprBottomClip;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package com.doomengine.rendering;
+
+/**
+ * 16.16 fixed-point helpers for the integer rendering path, after vanilla's m_fixed.
+ * Products go through long so they cannot overflow before the shift.
+ */
+public final class FixedPoint {
+    public static final int FRAC_BITS = 16;
+    public static final int FRAC_UNIT = 1 << FRAC_BITS;
+
+    private FixedPoint() {
+    }
+
+    public static int toFixed(double value) {
+        return (int) Math.round(value * FRAC_UNIT);
+    }
+
+    public static double toDouble(int fixed) {
+        return fixed / (double) FRAC_UNIT;
+    }
+
+    /**
+     * a / b, saturating instead of overflowing when the quotient does not fit.
+     */
+    public static int div(int a, int b) {
+        if ((Math.abs(a) >> 14) >= Math.abs(b)) {
+            return (a ^ b) < 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        }
+        return (int) (((long) a << FRAC_BITS) / b);
+    }
+
+    /**
+     * Screen row of a point {@code worldZ} (fixed, relative to the eye) at the given scale,
+     * rounded like the double path and kept within one row of the screen.
+     */
+    public static int projectY(int worldZ, int scale, ViewSize viewSize) {
+        long y = ((long) viewSize.halfHeight << FRAC_BITS) - (((long) worldZ * scale) >> FRAC_BITS);
+        y = (y + (FRAC_UNIT >> 1)) >> FRAC_BITS;
+        return (int) Math.max(-1, Math.min(viewSize.height, y));
+    }
+}
@@ -12,15 +12,12 @@ public class FrameBuffer {
     private int height; // Removed final
     private BufferedImage imageBuffer;
     private int[] pixelData;
-    private final double[] zBuffer; // Added z-buffer
 
     public FrameBuffer(int width, int height) {
         this.width = width;
         this.height = height;
         this.imageBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         this.pixelData = ((DataBufferInt) this.imageBuffer.getRaster().getDataBuffer()).getData();
-        this.zBuffer = new double[width * height]; // Initialize z-buffer
-        Arrays.fill(this.zBuffer, Double.POSITIVE_INFINITY); // Initialize with infinity
     }
 
     public FrameBuffer(BufferedImage image) { // New constructor, makes a copy
@@ -31,8 +28,6 @@ public class FrameBuffer {
         g.drawImage(image, 0, 0, null);
         g.dispose();
         this.pixelData = ((DataBufferInt) this.imageBuffer.getRaster().getDataBuffer()).getData();
-        this.zBuffer = new double[width * height]; // Initialize z-buffer
-        Arrays.fill(this.zBuffer, Double.POSITIVE_INFINITY); // Initialize with infinity
     }
 
     public int getWidth() {
@@ -53,7 +48,6 @@ public class FrameBuffer {
 
     public void clear(int color) {
         Arrays.fill(pixelData, color);
-        Arrays.fill(zBuffer, Double.POSITIVE_INFINITY); // Clear z-buffer
     }
 
     public void setPixel(int x, int y, int r, int g, int b) {
@@ -71,35 +65,6 @@ public class FrameBuffer {
         pixelData[x + y * width] = (a << 24) | (r << 16) | (g << 8) | b;
     }
 
-    public void setPixel(int x, int y, int r, int g, int b, double z) { // Added z parameter
-        if (x < 0 || x >= width || y < 0 || y >= height) return;
-        int index = x + y * width;
-        if (z < zBuffer[index]) { // Check z-buffer
-            pixelData[index] = (255 << 24) | (r << 16) | (g << 8) | b;
-            zBuffer[index] = z; // Update z-buffer
-        }
-    }
-
-    public void setPixel(int x, int y, int[] rgb, double z) { // Added z parameter
-        if (x < 0 || x >= width || y < 0 || y >= height) return;
-        int index = x + y * width;
-        if (z < zBuffer[index]) { // Check z-buffer
-            pixelData[index] = (255 << 24) | (rgb[0] << 16) | (rgb[1] << 8) | rgb[2];
-            zBuffer[index] = z; // Update z-buffer
-        }
-    }
-
-    public void setPixelWithAlpha(int x, int y, int r, int g, int b, int a, double z) { // Added z parameter
-        if (x < 0 || x >= width || y < 0 || y >= height) return;
-        int index = x + y * width;
-        if (z < zBuffer[index]) { // Check z-buffer
-            pixelData[index] = (a << 24) | (r << 16) | (g << 8) | b;
-            // Alpha blending might need special handling with z-buffer,
-            // for now, just update if z is closer.
-            zBuffer[index] = z;
-        }
-    }
-
     // Methods from ImageUtils, now non-static
     public void scaleSelf(int targetWidth, int targetHeight) {
         if (targetWidth <= 0 || targetHeight <= 0) {
@@ -0,0 +1,235 @@
+package com.doomengine.rendering;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records rendered frames to disk without the renderer waiting on I/O.
+ * <p>
+ * {@link #capture} copies a finished frame into one of a fixed ring of preallocated slots and
+ * returns; an encoder thread writes filled slots out and hands them back. When every slot is
+ * still waiting to be written the frame is either dropped or the renderer waits for a slot,
+ * as configured. Frames are the view's ARGB pixels at a fixed size; frames of any other size
+ * (after a view resolution change) are skipped.
+ */
+public class FrameRecorder implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(FrameRecorder.class.getName());
+    private static final int SLOTS = 8;
+
+    public enum Format {
+        PPM,  // Directory of binary PPM images, one per frame
+        PNG,  // Directory of PNG images, one per frame
+        RAW,  // One file of packed RGB24 frames
+        Y4M   // One YUV4MPEG2 stream, 4:4:4
+    }
+
+    /** What capture does when the encoder has fallen behind by every slot. */
+    public enum Overflow {
+        DROP,  // Skip the frame; the renderer never waits
+        BLOCK  // Wait for the encoder to free a slot; every frame is kept
+    }
+
+    private final Path output;
+    private final Format format;
+    private final Overflow overflow;
+    private final int width;
+    private final int height;
+
+    private final BlockingQueue<int[]> freeSlots = new ArrayBlockingQueue<>(SLOTS);
+    private final BlockingQueue<int[]> filledSlots = new ArrayBlockingQueue<>(SLOTS + 1); // + end marker
+    private static final int[] END_OF_STREAM = new int[0];
+    private final Thread encoder;
+
+    private OutputStream stream; // RAW and Y4M only
+    private final byte[] frameBytes; // Encoder's RGB or YUV conversion buffer
+    private BufferedImage image; // PNG only
+    private long framesWritten; // Encoder thread only; read once it has been joined
+    private final AtomicLong framesDropped = new AtomicLong();
+    private final AtomicLong framesSkipped = new AtomicLong();
+    private volatile boolean failed;
+    private volatile boolean closed;
+
+    /**
+     * @param output file for RAW and Y4M, directory (created if missing) for PPM and PNG
+     * @param fps    frame rate written into the Y4M header
+     */
+    public FrameRecorder(Path output, Format format, Overflow overflow, int width, int height, int fps)
+            throws IOException {
+        this.output = output;
+        this.format = format;
+        this.overflow = overflow;
+        this.width = width;
+        this.height = height;
+        this.frameBytes = new byte[width * height * 3];
+
+        for (int i = 0; i < SLOTS; i++) {
+            freeSlots.add(new int[width * height]);
+        }
+
+        switch (format) {
+            case PPM, PNG -> Files.createDirectories(output);
+            case RAW -> stream = new BufferedOutputStream(Files.newOutputStream(output), 1 << 20);
+            case Y4M -> {
+                stream = new BufferedOutputStream(Files.newOutputStream(output), 1 << 20);
+                stream.write(("YUV4MPEG2 W" + width + " H" + height + " F" + fps + ":1 Ip A1:1 C444\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        if (format == Format.PNG) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+
+        encoder = new Thread(this::encodeLoop, "frame-encoder");
+        encoder.setDaemon(true);
+        encoder.start();
+    }
+
+    /**
+     * Queues a copy of a finished frame for writing. Never touches the disk; with
+     * {@link Overflow#BLOCK} it may wait for the encoder to free a slot, but not past close.
+     */
+    public void capture(int[] pixels, int frameWidth, int frameHeight) {
+        if (failed || closed) return;
+        if (frameWidth != width || frameHeight != height) {
+            framesSkipped.incrementAndGet();
+            return;
+        }
+
+        int[] slot;
+        if (overflow == Overflow.DROP) {
+            slot = freeSlots.poll();
+        } else {
+            try {
+                // Waits in steps so a close() while blocked, once the encoder has gone, ends the wait
+                do {
+                    slot = freeSlots.poll(50, TimeUnit.MILLISECONDS);
+                } while (slot == null && !closed && !failed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (slot == null) {
+            if (!closed) framesDropped.incrementAndGet();
+            return;
+        }
+        System.arraycopy(pixels, 0, slot, 0, slot.length);
+        synchronized (this) {
+            // Frames must queue ahead of the end marker, or the encoder never sees them
+            if (closed) {
+                freeSlots.add(slot);
+                return;
+            }
+            filledSlots.add(slot); // Never full: there are only SLOTS slots plus the end marker
+        }
+    }
+
+    private void encodeLoop() {
+        try {
+            while (true) {
+                int[] slot = filledSlots.take();
+                if (slot == END_OF_STREAM) break;
+                if (!failed) {
+                    try {
+                        writeFrame(slot);
+                        framesWritten++;
+                    } catch (IOException e) {
+                        failed = true;
+                        LOGGER.log(Level.SEVERE, "Frame recording to " + output + " failed; recording stopped", e);
+                    }
+                }
+                freeSlots.add(slot);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeFrame(int[] argb) throws IOException {
+        switch (format) {
+            case PPM -> {
+                toRgb(argb);
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(framePath("ppm")))) {
+                    out.write(("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+                    out.write(frameBytes);
+                }
+            }
+            case PNG -> {
+                image.setRGB(0, 0, width, height, argb, 0, width);
+                ImageIO.write(image, "png", framePath("png").toFile());
+            }
+            case RAW -> {
+                toRgb(argb);
+                stream.write(frameBytes);
+            }
+            case Y4M -> {
+                toYuv444(argb);
+                stream.write("FRAME\n".getBytes(StandardCharsets.US_ASCII));
+                stream.write(frameBytes);
+            }
+        }
+    }
+
+    private Path framePath(String extension) {
+        return output.resolve(String.format("frame%06d.%s", framesWritten, extension));
+    }
+
+    private void toRgb(int[] argb) {
+        for (int i = 0, o = 0; i < argb.length; i++) {
+            int c = argb[i];
+            frameBytes[o++] = (byte) (c >> 16);
+            frameBytes[o++] = (byte) (c >> 8);
+            frameBytes[o++] = (byte) c;
+        }
+    }
+
+    // Planar Y, Cb, Cr with BT.601 studio-range coefficients, as Y4M players expect
+    private void toYuv444(int[] argb) {
+        int plane = argb.length;
+        for (int i = 0; i < plane; i++) {
+            int c = argb[i];
+            int r = (c >> 16) & 0xFF;
+            int g = (c >> 8) & 0xFF;
+            int b = c & 0xFF;
+            frameBytes[i] = (byte) (((66 * r + 129 * g + 25 * b + 128) >> 8) + 16);
+            frameBytes[plane + i] = (byte) (((-38 * r - 74 * g + 112 * b + 128) >> 8) + 128);
+            frameBytes[2 * plane + i] = (byte) (((112 * r - 94 * g - 18 * b + 128) >> 8) + 128);
+        }
+    }
+
+    /**
+     * Writes out every queued frame, then closes the output. Safe to call more than once.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        filledSlots.add(END_OF_STREAM);
+        try {
+            encoder.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to close " + output, e);
+            }
+        }
+        LOGGER.info("Recorded " + framesWritten + " frames to " + output + " (" + framesDropped.get() + " dropped, "
+                + framesSkipped.get() + " skipped at another resolution)");
+    }
+}
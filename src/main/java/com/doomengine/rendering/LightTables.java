@@ -0,0 +1,93 @@
+package com.doomengine.rendering;
+
+import com.doomengine.misc.Constants;
+import com.doomengine.wad.assets.AssetData;
+
+/**
+ * Vanilla light diminishing: COLORMAP light levels resolved through the current palette,
+ * so shading a texel is a single lookup of its palette index in the selected table.
+ * <p>
+ * Walls and sprites pick a table per column from their scale (scalelight), floors and
+ * ceilings per row from their distance (zlight), both indexed by the sector light level.
+ */
+public final class LightTables {
+    public static final int LIGHT_LEVELS = 16;
+    private static final int LIGHT_SEG_SHIFT = 4;  // Sector light 0-255 to light level 0-15
+    private static final int NUM_COLORMAPS = 32;   // Light-diminished maps; 32 and 33 are invulnerability and black
+    private static final int MAX_LIGHT_SCALE = 48;
+    private static final int LIGHT_SCALE_STEPS = 16; // Table entries per unit of (320-wide) scale
+    private static final int MAX_LIGHT_Z = 128;
+    private static final int LIGHT_Z_UNITS = 16;     // Map units per zlight entry
+    private static final int DIST_MAP = 2;
+
+    private final int[][] colormaps;    // [colormap][palette index] -> ARGB
+    private final int[][][] scaleLight; // [light level][scale step] -> colormap
+    private final int[][][] zLight;     // [light level][distance step] -> colormap
+    private final double viewScale;     // View width relative to 320
+
+    public LightTables(AssetData assetData, ViewSize viewSize) {
+        this.viewScale = viewSize.scale;
+        byte[][] maps = assetData.colormaps;
+        int[] palette = assetData.currentPaletteArgb;
+        this.colormaps = new int[maps.length][256];
+        for (int i = 0; i < maps.length; i++) {
+            for (int c = 0; c < 256; c++) {
+                colormaps[i][c] = palette[maps[i][c] & 0xFF];
+            }
+        }
+
+        // Same tables as R_InitLightTables / R_ExecuteSetViewSize for a full-width view
+        this.scaleLight = new int[LIGHT_LEVELS][MAX_LIGHT_SCALE][];
+        this.zLight = new int[LIGHT_LEVELS][MAX_LIGHT_Z][];
+        for (int i = 0; i < LIGHT_LEVELS; i++) {
+            int startMap = ((LIGHT_LEVELS - 1 - i) * 2) * NUM_COLORMAPS / LIGHT_LEVELS;
+            for (int j = 0; j < MAX_LIGHT_SCALE; j++) {
+                scaleLight[i][j] = colormaps[clampColormap(startMap - j / DIST_MAP)];
+            }
+            for (int j = 0; j < MAX_LIGHT_Z; j++) {
+                int scale = (Constants.DOOM_W / 2) / (j + 1);
+                zLight[i][j] = colormaps[clampColormap(startMap - scale / DIST_MAP)];
+            }
+        }
+    }
+
+    private static int clampColormap(int level) {
+        return Math.max(0, Math.min(NUM_COLORMAPS - 1, level));
+    }
+
+    /**
+     * Light level index (0-15) for a sector light in 0..1, with an extra vanilla contrast step.
+     */
+    public static int lightLevel(double sectorLight, int contrast) {
+        int level = ((int) Math.round(sectorLight * 255.0) >> LIGHT_SEG_SHIFT) + contrast;
+        return Math.max(0, Math.min(LIGHT_LEVELS - 1, level));
+    }
+
+    /** The unlit table, used for the sky and fullbright sprites. */
+    public int[] fullBright() {
+        return colormaps[0];
+    }
+
+    /**
+     * Table for a wall or sprite column drawn at the given screen scale.
+     */
+    public int[] forScale(int lightLevel, double scale) {
+        int step = (int) (scale / viewScale * LIGHT_SCALE_STEPS); // Normalised to the 320-wide view
+        if (step >= MAX_LIGHT_SCALE) step = MAX_LIGHT_SCALE - 1;
+        if (step < 0) step = 0;
+        return scaleLight[lightLevel][step];
+    }
+
+    /**
+     * Distance-indexed tables for a floor or ceiling at the given light level;
+     * select a row's table with {@link #zIndex(double)}.
+     */
+    public int[][] forPlane(int lightLevel) {
+        return zLight[lightLevel];
+    }
+
+    public static int zIndex(double distance) {
+        int step = (int) (distance / LIGHT_Z_UNITS);
+        return step >= MAX_LIGHT_Z ? MAX_LIGHT_Z - 1 : Math.max(step, 0);
+    }
+}
@@ -7,25 +7,22 @@ import com.doomengine.geometry.GeometryUtils;
 import com.doomengine.geometry.Point2D;
 import com.doomengine.geometry.Vector2D;
 import com.doomengine.misc.Constants;
-import com.doomengine.wad.WADDataService;
-import com.doomengine.wad.datatypes.Linedef;
-import com.doomengine.wad.datatypes.Node;
+import com.doomengine.wad.MapGeometry;
 import com.doomengine.wad.datatypes.Seg;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
 
 public class MapRenderer {
-    private final WADDataService wadDataService;
-    private List<Point2D> remappedVertexes;
+    private final MapGeometry geometry;
+    private double[] remappedX;
+    private double[] remappedY;
     private GeometryUtils.BoundingBox mapBounds; // Enhanced bounds using geometry classes
     private final Player player;
     private final Random random = new Random();
 
     public MapRenderer(DoomEngine engine) {
-        this.wadDataService = engine.getWadData();
+        this.geometry = engine.getWadData().geometry;
         this.player = engine.getPlayer();
 
         calculateMapBounds();
@@ -33,19 +30,21 @@ public class MapRenderer {
     }
 
     private void calculateMapBounds() {
-        if (wadDataService.vertexes.isEmpty()) {
+        if (geometry.numVertexes == 0) {
             mapBounds = new GeometryUtils.BoundingBox(-1, -1, 1, 1); // Default bounds
             return;
         }
 
-        // Convert old Vector2D vertices to Point2D and calculate bounds
-        Point2D[] vertices = new Point2D[wadDataService.vertexes.size()];
-        for (int i = 0; i < wadDataService.vertexes.size(); i++) {
-            com.doomengine.geometry.Vector2D v = wadDataService.vertexes.get(i);
-            vertices[i] = new Point2D(v.x(), v.y());
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < geometry.numVertexes; i++) {
+            minX = Math.min(minX, geometry.vertexX[i]);
+            maxX = Math.max(maxX, geometry.vertexX[i]);
+            minY = Math.min(minY, geometry.vertexY[i]);
+            maxY = Math.max(maxY, geometry.vertexY[i]);
         }
 
-        mapBounds = GeometryUtils.boundingBox(vertices);
+        mapBounds = new GeometryUtils.BoundingBox(minX, minY, maxX, maxY);
 
         // Ensure bounds have some extent to prevent division by zero in remap
         if (mapBounds.width() == 0) {
@@ -59,9 +58,11 @@ public class MapRenderer {
     }
 
     private void remapVertexes() {
-        remappedVertexes = new ArrayList<>();
-        for (com.doomengine.geometry.Vector2D v : wadDataService.vertexes) {
-            remappedVertexes.add(new Point2D(remapX(v.x()), remapY(v.y())));
+        remappedX = new double[geometry.numVertexes];
+        remappedY = new double[geometry.numVertexes];
+        for (int i = 0; i < geometry.numVertexes; i++) {
+            remappedX[i] = remapX(geometry.vertexX[i]);
+            remappedY[i] = remapY(geometry.vertexY[i]);
         }
     }
 
@@ -94,13 +95,12 @@ public class MapRenderer {
     public void drawLinedefs(Graphics2D g2d) {
         g2d.setColor(Color.RED);
         g2d.setStroke(new BasicStroke(1));
-        for (Linedef line : wadDataService.linedefs) {
-            if (line.startVertexId < 0 || line.startVertexId >= remappedVertexes.size() ||
-                    line.endVertexId < 0 || line.endVertexId >= remappedVertexes.size()) continue;
+        for (int i = 0; i < geometry.numLinedefs; i++) {
+            int v1 = geometry.linedefStartVertex[i];
+            int v2 = geometry.linedefEndVertex[i];
+            if (v1 >= geometry.numVertexes || v2 >= geometry.numVertexes) continue;
 
-            Point2D p1 = remappedVertexes.get(line.startVertexId);
-            Point2D p2 = remappedVertexes.get(line.endVertexId);
-            g2d.drawLine((int) p1.x(), (int) p1.y(), (int) p2.x(), (int) p2.y());
+            g2d.drawLine((int) remappedX[v1], (int) remappedY[v1], (int) remappedX[v2], (int) remappedY[v2]);
         }
     }
 
@@ -145,38 +145,37 @@ public class MapRenderer {
 
     // For BSP debugging: draw a specific seg on the 2D map
     public void drawSegOnMap(Graphics2D g2d, Seg seg) {
-        if (seg.startVertexId < 0 || seg.startVertexId >= remappedVertexes.size() ||
-                seg.endVertexId < 0 || seg.endVertexId >= remappedVertexes.size()) return;
-        Point2D v1 = remappedVertexes.get(seg.startVertexId);
-        Point2D v2 = remappedVertexes.get(seg.endVertexId);
+        int v1 = Short.toUnsignedInt(seg.startVertexId);
+        int v2 = Short.toUnsignedInt(seg.endVertexId);
+        if (v1 >= geometry.numVertexes || v2 >= geometry.numVertexes) return;
         g2d.setColor(Color.GREEN);
         g2d.setStroke(new BasicStroke(2));
-        g2d.drawLine((int) v1.x(), (int) v1.y(), (int) v2.x(), (int) v2.y());
+        g2d.drawLine((int) remappedX[v1], (int) remappedY[v1], (int) remappedX[v2], (int) remappedY[v2]);
     }
 
     public void drawNode(Graphics2D g2d, int nodeId) {
-        if (nodeId < 0 || nodeId >= wadDataService.nodes.size()) return;
-        Node node = wadDataService.nodes.get(nodeId);
+        if (nodeId < 0 || nodeId >= geometry.numNodes) return;
 
         // Draw partition line
-        double x1p = remapX(node.xPartition);
-        double y1p = remapY(node.yPartition);
-        double x2p = remapX(node.xPartition + node.dxPartition);
-        double y2p = remapY(node.yPartition + node.dyPartition);
+        double x1p = remapX(geometry.nodeX[nodeId]);
+        double y1p = remapY(geometry.nodeY[nodeId]);
+        double x2p = remapX(geometry.nodeX[nodeId] + geometry.nodeDx[nodeId]);
+        double y2p = remapY(geometry.nodeY[nodeId] + geometry.nodeDy[nodeId]);
         g2d.setColor(Color.BLUE);
         g2d.setStroke(new BasicStroke(2));
         g2d.drawLine((int) x1p, (int) y1p, (int) x2p, (int) y2p);
 
         // Draw bounding boxes
-        drawBBox(g2d, node.bbox.get("front"), Color.GREEN);
-        drawBBox(g2d, node.bbox.get("back"), Color.MAGENTA); // Changed from red for better contrast
+        drawBBox(g2d, MapGeometry.bboxIndex(nodeId, 0), Color.GREEN);
+        drawBBox(g2d, MapGeometry.bboxIndex(nodeId, 1), Color.MAGENTA); // Changed from red for better contrast
     }
 
-    private void drawBBox(Graphics2D g2d, Node.BBox bbox, Color color) {
-        double x = remapX(bbox.left);
-        double y = remapY(bbox.top); // Top in world is smaller Y, but remapY inverts
-        double w = remapX(bbox.right) - x;
-        double h = remapY(bbox.bottom) - y; // Bottom in world is larger Y
+    private void drawBBox(Graphics2D g2d, int box, Color color) {
+        short[] bbox = geometry.nodeBBox;
+        double x = remapX(bbox[box + MapGeometry.BOXLEFT]);
+        double y = remapY(bbox[box + MapGeometry.BOXTOP]); // Top in world is smaller Y, but remapY inverts
+        double w = remapX(bbox[box + MapGeometry.BOXRIGHT]) - x;
+        double h = remapY(bbox[box + MapGeometry.BOXBOTTOM]) - y; // Bottom in world is larger Y
 
         g2d.setColor(color);
         g2d.setStroke(new BasicStroke(1));
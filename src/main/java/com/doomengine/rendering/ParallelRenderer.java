@@ -0,0 +1,128 @@
+package com.doomengine.rendering;
+
+import com.doomengine.game.DoomEngine;
+import com.doomengine.game.FrameSnapshot;
+import com.doomengine.misc.Constants;
+import com.doomengine.rendering.bsp.BSP;
+import com.doomengine.rendering.bsp.SegHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Renders the view as vertical strips on a thread pool. Each strip has its own BSP walk,
+ * clip arrays, solid-seg ranges and visplanes, and only ever writes its own columns of the
+ * shared framebuffer, so no locking is needed while drawing.
+ */
+public class ParallelRenderer implements AutoCloseable {
+    private final int stripCount;
+    private final ExecutorService workers;
+    private final List<Callable<Void>> worldTasks = new ArrayList<>();
+    private final List<Callable<Void>> spriteTasks = new ArrayList<>();
+
+    // Per-frame inputs, published to the workers by invokeAll
+    private int[] framebuffer;
+    private FrameSnapshot view;
+    private ViewRenderer viewRenderer;
+    private List<VisSprite> visSprites;
+
+    private record Strip(int xStart, int xEnd, BSP bsp, SegHandler segHandler, PlaneRenderer planes) {
+    }
+
+    public ParallelRenderer(int threads) {
+        this.stripCount = Math.max(1, Math.min(threads, Constants.DOOM_W));
+        this.workers = Executors.newFixedThreadPool(stripCount, new ThreadFactory() {
+            private int next;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "render-strip-" + next++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the per-strip renderers for the engine's current level and view size. Call
+     * after the engine's ViewRenderer has been created.
+     */
+    public void setLevel(DoomEngine engine) {
+        worldTasks.clear();
+        spriteTasks.clear();
+        ViewRenderer renderer = engine.getViewRenderer();
+        ViewSize viewSize = engine.getViewSize();
+        double[] xToAngle = SegHandler.createXToAngleDegrees(viewSize);
+        for (int i = 0; i < stripCount; i++) {
+            int xStart = i * viewSize.width / stripCount;
+            int xEnd = (i + 1) * viewSize.width / stripCount - 1;
+            PlaneRenderer planes = new PlaneRenderer(engine.getWadData().assetData, renderer.getLightTables(),
+                    viewSize, xToAngle, engine.isFixedPointRendering());
+            SegHandler segHandler = new SegHandler(engine, xStart, xEnd, planes);
+            BSP bsp = new BSP(engine);
+            bsp.setViewSize(viewSize);
+            bsp.setSegHandler(segHandler);
+            bsp.setStrip(xStart, xEnd);
+            Strip strip = new Strip(xStart, xEnd, bsp, segHandler, planes);
+            worldTasks.add(() -> {
+                renderWorld(strip);
+                return null;
+            });
+            spriteTasks.add(() -> {
+                viewRenderer.drawVisSprites(framebuffer, visSprites, strip.segHandler().getDrawSegs(), strip.xStart(), strip.xEnd());
+                return null;
+            });
+        }
+    }
+
+    private void renderWorld(Strip strip) {
+        strip.segHandler().update(view, framebuffer);
+        strip.planes().clear();
+        strip.bsp().update(view);
+        strip.planes().drawPlanes(framebuffer, view);
+    }
+
+    /**
+     * Draws walls, floors, ceilings and sky for every strip and waits for all of them.
+     */
+    public void renderWorld(int[] framebuffer, FrameSnapshot view) {
+        this.framebuffer = framebuffer;
+        this.view = view;
+        runAll(worldTasks);
+    }
+
+    /**
+     * Draws the sorted sprites, each strip clipping them to its own columns and by the
+     * walls it drew.
+     */
+    public void renderSprites(int[] framebuffer, ViewRenderer viewRenderer, List<VisSprite> visSprites) {
+        this.framebuffer = framebuffer;
+        this.viewRenderer = viewRenderer;
+        this.visSprites = visSprites;
+        runAll(spriteTasks);
+    }
+
+    private void runAll(List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : workers.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException("Render strip failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,250 @@
+package com.doomengine.rendering;
+
+import com.doomengine.game.FrameSnapshot;
+import com.doomengine.rendering.bsp.SegRenderCache;
+import com.doomengine.wad.assets.AssetData;
+import com.doomengine.wad.assets.IndexedImage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the floors and ceilings seen while walking the BSP as visplanes and draws them
+ * afterwards as horizontal spans, as vanilla's r_plane does.
+ * <p>
+ * Along a screen row a plane is at constant distance, so each span needs one distance
+ * lookup, one light table and a constant texture step; the sky is still drawn per column.
+ */
+public class PlaneRenderer {
+    private final LightTables lightTables;
+    private final ViewSize viewSize;
+    private final double[] xToAngleTable; // Degrees, per screen column
+    private final boolean fixedPoint;
+
+    private final IndexedImage skyTexture;
+    private final double skyInvScale;
+    private final double skyTextureAltitude;
+
+    private final List<Visplane> planes = new ArrayList<>(); // Reused across frames
+    private int planeCount;
+    private final int[] spanStart; // Column where the open span of each row began
+
+    // View-axis distance per unit of height above or below the eye, for each row (0 on the horizon)
+    private final double[] ySlope;
+    private final int[] ySlopeFixed;
+    // Sideways offset per unit of distance, for each column
+    private final double[] xSlope;
+    private final int[] xSlopeFixed;
+
+    // Per-frame view, set by drawPlanes
+    private double viewX, viewY, viewZ, viewCos, viewSin;
+
+    public PlaneRenderer(AssetData assetData, LightTables lightTables, ViewSize viewSize,
+                         double[] xToAngleTable, boolean fixedPoint) {
+        this.lightTables = lightTables;
+        this.viewSize = viewSize;
+        this.spanStart = new int[viewSize.height];
+        this.xToAngleTable = xToAngleTable;
+        this.fixedPoint = fixedPoint;
+
+        this.skyTexture = assetData.skyTex;
+        this.skyInvScale = 160.0 / viewSize.height;
+        this.skyTextureAltitude = 100;
+
+        this.ySlope = new double[viewSize.height];
+        this.ySlopeFixed = new int[viewSize.height];
+        for (int y = 0; y < viewSize.height; y++) {
+            int rowsFromHorizon = viewSize.halfHeight - y;
+            ySlope[y] = rowsFromHorizon == 0 ? 0 : viewSize.screenDist / rowsFromHorizon;
+            ySlopeFixed[y] = FixedPoint.toFixed(ySlope[y]);
+        }
+        this.xSlope = new double[viewSize.width];
+        this.xSlopeFixed = new int[viewSize.width];
+        for (int x = 0; x < viewSize.width; x++) {
+            xSlope[x] = (viewSize.halfWidth - x) / viewSize.screenDist;
+            xSlopeFixed[x] = FixedPoint.toFixed(xSlope[x]);
+        }
+    }
+
+    public void clear() {
+        planeCount = 0;
+    }
+
+    /**
+     * Returns the plane for this height, flat and light, creating it if none exists yet
+     * this frame. All sky is one plane regardless of height and light.
+     *
+     * @param flatId a {@link SegRenderCache} flat id
+     * @param flat   that flat's texels, from the same cache
+     */
+    public Visplane findPlane(double height, int flatId, IndexedImage flat, int lightLevel) {
+        if (flatId == SegRenderCache.SKY_FLAT) {
+            height = 0;
+            lightLevel = 0;
+        }
+        for (int i = 0; i < planeCount; i++) {
+            Visplane plane = planes.get(i);
+            if (plane.height == height && plane.lightLevel == lightLevel && plane.flatId == flatId) {
+                return plane;
+            }
+        }
+        return newPlane(height, flatId, flat, lightLevel);
+    }
+
+    /**
+     * Extends a plane to columns start..stop, or starts a new plane with the same properties
+     * if it already covers any of them (a plane holds one row span per column).
+     */
+    public Visplane checkPlane(Visplane plane, int start, int stop) {
+        int intersectLow = Math.max(start, plane.minX);
+        int intersectHigh = Math.min(stop, plane.maxX);
+        int x = intersectLow;
+        while (x <= intersectHigh && plane.top[x] == Visplane.EMPTY_TOP) {
+            x++;
+        }
+        if (x > intersectHigh) {
+            plane.minX = Math.min(start, plane.minX);
+            plane.maxX = Math.max(stop, plane.maxX);
+            return plane;
+        }
+        Visplane split = newPlane(plane.height, plane.flatId, plane.flat, plane.lightLevel);
+        split.minX = start;
+        split.maxX = stop;
+        return split;
+    }
+
+    private Visplane newPlane(double height, int flatId, IndexedImage flat, int lightLevel) {
+        if (planeCount == planes.size()) {
+            planes.add(new Visplane(viewSize.width));
+        }
+        Visplane plane = planes.get(planeCount++);
+        plane.reset(height, flatId, flat, lightLevel);
+        return plane;
+    }
+
+    public void drawPlanes(int[] framebuffer, FrameSnapshot view) {
+        this.viewX = view.viewX;
+        this.viewY = view.viewY;
+        this.viewZ = view.viewZ;
+        this.viewCos = Math.cos(Math.toRadians(view.viewAngle));
+        this.viewSin = Math.sin(Math.toRadians(view.viewAngle));
+
+        for (int i = 0; i < planeCount; i++) {
+            Visplane plane = planes.get(i);
+            if (plane.minX > plane.maxX) continue;
+            if (plane.flatId == SegRenderCache.SKY_FLAT) {
+                drawSky(framebuffer, plane, view.viewAngle);
+                continue;
+            }
+            IndexedImage flat = plane.flat; // Flat textures are 64x64
+            if (flat == null || flat.widthMask < 0 || flat.heightMask < 0) continue;
+            drawPlane(framebuffer, plane, flat);
+        }
+    }
+
+    private void drawSky(int[] framebuffer, Visplane plane, double viewAngle) {
+        int[] lightTable = lightTables.fullBright(); // Sky is full bright and infinitely far
+        for (int x = plane.minX; x <= plane.maxX; x++) {
+            if (plane.top[x] > plane.bottom[x]) continue;
+            double skyTexColumn = 2.2 * (viewAngle + xToAngleTable[x]);
+            if (fixedPoint) {
+                ViewRenderer.drawWallColumnFixed(viewSize, framebuffer, skyTexture, lightTable,
+                        (int) Math.floor(skyTexColumn), x, plane.top[x], plane.bottom[x],
+                        FixedPoint.toFixed(skyTextureAltitude), FixedPoint.toFixed(skyInvScale));
+            } else {
+                ViewRenderer.drawWallColumn(viewSize, framebuffer, skyTexture, lightTable, skyTexColumn,
+                        x, plane.top[x], plane.bottom[x], skyTextureAltitude, skyInvScale);
+            }
+        }
+    }
+
+    /**
+     * Turns the plane's column ranges into row spans (R_MakeSpans): a row's span opens at the
+     * first column that covers it and is drawn when the next column no longer does.
+     */
+    private void drawPlane(int[] framebuffer, Visplane plane, IndexedImage flat) {
+        int[][] zLight = lightTables.forPlane(plane.lightLevel);
+        double planeZ = plane.height - viewZ;
+
+        int prevTop = Visplane.EMPTY_TOP;
+        int prevBottom = Visplane.EMPTY_BOTTOM;
+        for (int x = plane.minX; x <= plane.maxX + 1; x++) {
+            int top = x <= plane.maxX ? plane.top[x] : Visplane.EMPTY_TOP;
+            int bottom = x <= plane.maxX ? plane.bottom[x] : Visplane.EMPTY_BOTTOM;
+
+            // Close rows the previous column covered but this one does not
+            int t1 = prevTop, b1 = prevBottom;
+            while (t1 < top && t1 <= b1) {
+                mapSpan(framebuffer, flat, zLight, planeZ, t1, spanStart[t1], x - 1);
+                t1++;
+            }
+            while (b1 > bottom && b1 >= t1) {
+                mapSpan(framebuffer, flat, zLight, planeZ, b1, spanStart[b1], x - 1);
+                b1--;
+            }
+            // Open rows this column covers but the previous one did not
+            int t2 = top, b2 = bottom;
+            while (t2 < t1 && t2 <= b2) {
+                spanStart[t2] = x;
+                t2++;
+            }
+            while (b2 > b1 && b2 >= t2) {
+                spanStart[b2] = x;
+                b2--;
+            }
+            prevTop = top;
+            prevBottom = bottom;
+        }
+    }
+
+    /**
+     * Draws row y from x1 to x2. The world point under each pixel moves by a constant step
+     * along the row, so texture coordinates are stepped rather than recomputed.
+     */
+    private void mapSpan(int[] framebuffer, IndexedImage flat, int[][] zLight, double planeZ, int y, int x1, int x2) {
+        if (y < 0 || y >= viewSize.height) return;
+        // View-axis distance to the plane along this row; non-positive means the plane faces away
+        double distance = planeZ * ySlope[y];
+        if (distance <= 0) return;
+
+        int[] lightTable = zLight[LightTables.zIndex(distance)];
+        byte[] texels = flat.texels;
+        int[] columnOffsets = flat.columnOffsets;
+        int uMask = flat.widthMask;
+        int vMask = flat.heightMask;
+        int pixel = x1 + y * viewSize.width;
+
+        if (fixedPoint) {
+            long fixedDistance = ((long) FixedPoint.toFixed(planeZ) * ySlopeFixed[y]) >> FixedPoint.FRAC_BITS;
+            long lateral = (fixedDistance * xSlopeFixed[x1]) >> FixedPoint.FRAC_BITS;
+            int cos = FixedPoint.toFixed(viewCos);
+            int sin = FixedPoint.toFixed(viewSin);
+            // World position of the first pixel; int overflow only drops bits above the texture mask
+            int xFrac = (int) (FixedPoint.toFixed(viewX) + ((fixedDistance * cos - lateral * sin) >> FixedPoint.FRAC_BITS));
+            int yFrac = (int) (FixedPoint.toFixed(viewY) + ((fixedDistance * sin + lateral * cos) >> FixedPoint.FRAC_BITS));
+            int screenDist = FixedPoint.toFixed(viewSize.screenDist);
+            int xStep = (int) (fixedDistance * sin / screenDist);
+            int yStep = (int) (-fixedDistance * cos / screenDist);
+            for (int x = x1; x <= x2; x++) {
+                int u = (xFrac >> FixedPoint.FRAC_BITS) & uMask;
+                int v = (yFrac >> FixedPoint.FRAC_BITS) & vMask;
+                framebuffer[pixel++] = lightTable[texels[columnOffsets[u] + v] & 0xFF];
+                xFrac += xStep;
+                yFrac += yStep;
+            }
+        } else {
+            double lateral = distance * xSlope[x1];
+            double worldX = viewX + distance * viewCos - lateral * viewSin;
+            double worldY = viewY + distance * viewSin + lateral * viewCos;
+            double xStep = distance * viewSin / viewSize.screenDist;
+            double yStep = -distance * viewCos / viewSize.screenDist;
+            for (int x = x1; x <= x2; x++) {
+                int u = (int) Math.floor(worldX) & uMask;
+                int v = (int) Math.floor(worldY) & vMask;
+                framebuffer[pixel++] = lightTable[texels[columnOffsets[u] + v] & 0xFF];
+                worldX += xStep;
+                worldY += yStep;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.doomengine.rendering;
+
+/**
+ * Dynamic resolution: steps the view size down when rendering takes longer than the frame
+ * budget and back up when there is plenty to spare.
+ * <p>
+ * Render times are averaged over several frames and each change is followed by a settling
+ * period, so a single slow frame or the cost of the change itself does not cause flapping.
+ */
+public class ResolutionGovernor {
+    private static final double[] SCALES = {1.0, 1.25, 1.5, 1.75, 2.0, 2.25, 2.5, 3.0, 4.0}; // x 320x200
+    private static final double SMOOTHING = 0.1;      // Weight of the newest frame in the average
+    private static final double LOWER_AT = 0.85;      // Fraction of the budget that triggers a step down
+    private static final double RAISE_BELOW = 0.5;    // Fraction of the budget that allows a step up
+    private static final int SETTLE_FRAMES = 30;      // Frames to wait after a change before stepping down
+    private static final int RAISE_FRAMES = 120;      // Frames below RAISE_BELOW before stepping up
+
+    private final double budgetNanos;
+    private final int maxLevel;
+    private int level;
+    private double averageNanos;
+    private int framesSinceChange;
+    private int framesWithHeadroom;
+
+    /**
+     * @param maxScale    the configured view scale, which is never exceeded
+     * @param frameNanos  render time to stay within
+     */
+    public ResolutionGovernor(double maxScale, double frameNanos) {
+        this.budgetNanos = frameNanos;
+        int max = 0;
+        while (max + 1 < SCALES.length && SCALES[max + 1] <= maxScale) {
+            max++;
+        }
+        this.maxLevel = max;
+        this.level = max;
+    }
+
+    public double getScale() {
+        return SCALES[level];
+    }
+
+    /**
+     * Records how long a frame took to render.
+     *
+     * @return true if the scale changed and the renderer should be rebuilt at {@link #getScale()}
+     */
+    public boolean frameRendered(long renderNanos) {
+        averageNanos = framesSinceChange == 0 ? renderNanos
+                : averageNanos + (renderNanos - averageNanos) * SMOOTHING;
+        framesSinceChange++;
+        if (framesSinceChange < SETTLE_FRAMES) {
+            return false;
+        }
+
+        if (averageNanos > budgetNanos * LOWER_AT && level > 0) {
+            return changeLevel(level - 1);
+        }
+        framesWithHeadroom = averageNanos < budgetNanos * RAISE_BELOW ? framesWithHeadroom + 1 : 0;
+        if (framesWithHeadroom >= RAISE_FRAMES && level < maxLevel) {
+            return changeLevel(level + 1);
+        }
+        return false;
+    }
+
+    private boolean changeLevel(int newLevel) {
+        level = newLevel;
+        framesSinceChange = 0;
+        framesWithHeadroom = 0;
+        return true;
+    }
+}
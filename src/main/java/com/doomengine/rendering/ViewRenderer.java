@@ -2,14 +2,17 @@ package com.doomengine.rendering;
 
 import com.doomengine.misc.Constants;
 import com.doomengine.geometry.*;
-import com.doomengine.game.Player;
-import com.doomengine.game.objects.MapObject;
+import com.doomengine.game.FrameSnapshot;
 import com.doomengine.game.DoomEngine;
+import com.doomengine.rendering.bsp.SegHandler;
+import com.doomengine.wad.MapGeometry;
 import com.doomengine.wad.assets.AssetData;
+import com.doomengine.wad.assets.IndexedImage;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -17,36 +20,35 @@ import java.util.Map;
 public class ViewRenderer {
     private final DoomEngine engine;
     private final AssetData assetData;
-    private final Map<String, BufferedImage> sprites;
-    private final Map<String, int[][]> textures; // TextureName -> int[width][height] ARGB
-    private final Player player;
+    private final Map<String, IndexedImage> sprites;
+    private final LightTables lightTables; // Resolve texel palette indices to lit ARGB
+    private final ViewSize viewSize; // Resolution the view is rendered at
     private final double[] xToAngleTable; // From SegHandler
-
-    // Sky settings
-    private final String skyId;
-    private final int[][] skyTexture; // int[width][height] ARGB
-    private final double skyInvScale; // Precomputed scaling factor
-    private final double skyTextureAltitude; // Relative Y anchor for sky
+    private final PlaneRenderer planeRenderer; // Floors, ceilings and sky, drawn after the walls
+    private static final int CLIP_UNSET = -2; // Sprite clip column not yet limited by any seg
+    // Per-column sprite clip limits. Shared by parallel strips: each only touches its own columns.
+    private final int[] clipTop;
+    private final int[] clipBottom;
 
     public ViewRenderer(DoomEngine engine) {
         this.engine = engine;
         this.assetData = engine.getWadData().assetData;
         this.sprites = this.assetData.sprites;
-        this.textures = this.assetData.textures;
-        this.player = engine.getPlayer();
-        this.xToAngleTable = engine.getSegHandler().getXToAngleTable(); // Get from GeometricSegHandler after it's created
-
-        this.skyId = this.assetData.skyId; // This is "F_SKY1"
-        this.skyTexture = this.assetData.skyTex; // This is the actual texture for "SKY1"
-        this.skyInvScale = 160.0 / Constants.HEIGHT;
-        this.skyTextureAltitude = 100;
+        this.viewSize = engine.getViewSize();
+        this.lightTables = new LightTables(this.assetData, this.viewSize);
+        this.xToAngleTable = SegHandler.createXToAngleDegrees(this.viewSize);
+        this.clipTop = new int[this.viewSize.width];
+        this.clipBottom = new int[this.viewSize.width];
+
+        this.planeRenderer = new PlaneRenderer(this.assetData, this.lightTables, this.viewSize, this.xToAngleTable,
+                engine.isFixedPointRendering());
     }
 
-    public void drawSprite(Graphics2D g2d) { // Takes Graphics2D for final screen blit
-        // Draw current animated weapon sprite using Doom state machine
-        if (player != null) {
-            String weaponSprite = player.getCurrentWeaponSprite();
-            BufferedImage spriteImg = sprites.get(weaponSprite);
+    public void drawSprite(Graphics2D g2d, FrameSnapshot view) { // Takes Graphics2D for final screen blit
+        // Draw the weapon sprite of the frame on screen
+        if (view != null) {
+            String weaponSprite = view.weaponSprite;
+            BufferedImage spriteImg = assetData.getSpriteImage(weaponSprite);
             if (spriteImg != null) {
                 int x = Constants.H_WIDTH - spriteImg.getWidth() / 2;
                 int y = Constants.HEIGHT - spriteImg.getHeight();
@@ -55,301 +57,308 @@ public class ViewRenderer {
         }
     }
 
-    public static void drawWallColumn(int[] framebuffer, double[] depthBuffer, int[][] texture, double textureColumn,
-                                      int x, int y1, int y2,
-                                      double textureAltitude, double invScale, double lightLevel, double depth) {
-        if (y1 > y2 || texture == null) return;
-
-        int texWidth = texture.length;    // Number of columns
-        int texHeight = texture[0].length; // Height of a column
-
-        int texU = ((int) Math.floor(textureColumn) % texWidth + texWidth) % texWidth; // Ensure positive U
-
-        // Texture V (vertical) coordinate calculation
-        // tex_y = tex_alt + (float(y1) - H_HEIGHT) * inv_scale
-        double texV = textureAltitude + ((double) y1 - Constants.H_HEIGHT) * invScale;
+    public LightTables getLightTables() {
+        return lightTables;
+    }
 
-        for (int y = y1; y <= y2; y++) {
-            if (y < 0 || y >= Constants.HEIGHT || x < 0 || x >= Constants.WIDTH) continue;
+    public PlaneRenderer getPlaneRenderer() {
+        return planeRenderer;
+    }
 
-            int currentTexV = ((int) Math.floor(texV) % texHeight + texHeight) % texHeight; // Ensure positive V
+    public ViewSize getViewSize() {
+        return viewSize;
+    }
 
-            int packedARGB = texture[texU][currentTexV]; // Assuming texture stores ARGB
+    /**
+     * @param lightTable Lit ARGB colour per palette index, chosen for this column (see {@link LightTables})
+     */
+    public static void drawWallColumn(ViewSize viewSize, int[] framebuffer, IndexedImage texture, int[] lightTable,
+                                      double textureColumn, int x, int y1, int y2,
+                                      double textureAltitude, double invScale) {
+        if (texture == null || x < 0 || x >= viewSize.width) return;
+        // Clip the span once so the loop needs no per-pixel bounds checks
+        if (y1 < 0) y1 = 0;
+        if (y2 >= viewSize.height) y2 = viewSize.height - 1;
+        if (y1 > y2) return;
 
-            // Apply light level
-            int alpha = (packedARGB >> 24) & 0xFF;
-            int red = (int) (((packedARGB >> 16) & 0xFF) * lightLevel);
-            int green = (int) (((packedARGB >> 8) & 0xFF) * lightLevel);
-            int blue = (int) ((packedARGB & 0xFF) * lightLevel);
+        int texHeight = texture.height;
+        byte[] texels = texture.texels;
 
-            // Clamp colors
-            red = Math.min(255, Math.max(0, red));
-            green = Math.min(255, Math.max(0, green));
-            blue = Math.min(255, Math.max(0, blue));
+        int u = (int) Math.floor(textureColumn);
+        int texU = texture.widthMask >= 0 ? u & texture.widthMask : Math.floorMod(u, texture.width);
+        int column = texture.columnOffsets[texU];
 
-            framebuffer[x + y * Constants.WIDTH] = (alpha << 24) | (red << 16) | (green << 8) | blue;
-            depthBuffer[x + y * Constants.WIDTH] = depth; // Write depth value
-            texV += invScale;
+        // Texture V (vertical) coordinate calculation
+        // tex_y = tex_alt + (float(y1) - H_HEIGHT) * inv_scale
+        double texV = textureAltitude + ((double) y1 - viewSize.halfHeight) * invScale;
+        // Wrap the start into [0, height); V only grows from here, so truncation equals floor
+        texV -= Math.floor(texV / texHeight) * texHeight;
+        if (texV >= texHeight) texV -= texHeight; // Rounding can land exactly on height
+
+        int pixel = x + y1 * viewSize.width;
+        int heightMask = texture.heightMask;
+        if (heightMask >= 0) {
+            for (int y = y1; y <= y2; y++) {
+                framebuffer[pixel] = lightTable[texels[column + ((int) texV & heightMask)] & 0xFF]; // Lit colour in one lookup
+                texV += invScale;
+                pixel += viewSize.width;
+            }
+        } else {
+            // Non-power-of-two height: wrap by subtraction
+            for (int y = y1; y <= y2; y++) {
+                framebuffer[pixel] = lightTable[texels[column + (int) texV] & 0xFF];
+                texV += invScale;
+                while (texV >= texHeight) texV -= texHeight;
+                pixel += viewSize.width;
+            }
         }
     }
 
-
-    public void drawFlat(int[] framebuffer, String textureId, double lightLevel,
-                         int x, int y1, int y2, double worldZ, double screenColumnAngle) {
+    /**
+     * 16.16 fixed-point version of {@link #drawWallColumn}: V starts at {@code textureMid}
+     * and advances by {@code invScale} texels per row, both in fixed point.
+     */
+    public static void drawWallColumnFixed(ViewSize viewSize, int[] framebuffer, IndexedImage texture, int[] lightTable,
+                                           int textureColumn, int x, int y1, int y2,
+                                           int textureMid, int invScale) {
+        if (texture == null || x < 0 || x >= viewSize.width) return;
+        if (y1 < 0) y1 = 0;
+        if (y2 >= viewSize.height) y2 = viewSize.height - 1;
         if (y1 > y2) return;
 
-        if (textureId.equals(this.skyId)) {
-            // Sky rendering uses its own texture and parameters
-            // Enhanced sky rendering using geometry classes
-            Angle playerAngle = Angle.degrees(player.angle);
-            Angle screenAngle = Angle.degrees(screenColumnAngle);
-            Angle totalAngle = playerAngle.add(screenAngle);
-            double skyTexColumn = 2.2 * totalAngle.degrees();
-            drawWallColumn(framebuffer, engine.getDepthBuffer(), this.skyTexture, skyTexColumn, x, y1, y2,
-                    this.skyTextureAltitude, this.skyInvScale, 1.0, Double.MAX_VALUE); // Sky is full bright and infinitely far
+        byte[] texels = texture.texels;
+        int texU = texture.widthMask >= 0 ? textureColumn & texture.widthMask : Math.floorMod(textureColumn, texture.width);
+        int column = texture.columnOffsets[texU];
+
+        int pixel = x + y1 * viewSize.width;
+        int heightMask = texture.heightMask;
+        if (heightMask >= 0) {
+            int frac = textureMid + (y1 - viewSize.halfHeight) * invScale; // Wraps harmlessly under the mask
+            for (int y = y1; y <= y2; y++) {
+                framebuffer[pixel] = lightTable[texels[column + ((frac >> FixedPoint.FRAC_BITS) & heightMask)] & 0xFF];
+                frac += invScale;
+                pixel += viewSize.width;
+            }
         } else {
-            if (!textures.containsKey(textureId)) return;
-            int[][] flatTexture = textures.get(textureId); // Flat textures are 64x64
-            // Enhanced flat rendering using geometry classes
-            Point2D playerPos = new Point2D(this.player.pos.x(), this.player.pos.y());
-            Angle playerAngle = Angle.degrees(this.player.angle);
-            Angle screenAngle = Angle.degrees(screenColumnAngle);
-            drawFlatColumn(framebuffer, flatTexture, x, y1, y2, lightLevel, worldZ, // worldZ is now absolute plane Z
-                    this.player.getEyeLevelViewZ(), // Correctly use player's world eye Z
-                    playerAngle, playerPos, screenAngle);
+            int fracHeight = texture.height << FixedPoint.FRAC_BITS;
+            int frac = (int) Math.floorMod(textureMid + (long) (y1 - viewSize.halfHeight) * invScale, (long) fracHeight);
+            for (int y = y1; y <= y2; y++) {
+                framebuffer[pixel] = lightTable[texels[column + (frac >> FixedPoint.FRAC_BITS)] & 0xFF];
+                frac += invScale;
+                while (frac >= fracHeight) frac -= fracHeight;
+                pixel += viewSize.width;
+            }
         }
     }
 
-    public void drawWorldSpritesWithOcclusion(int[] framebuffer, List<MapObject> mapObjects) {
-        if (player == null || assetData == null || xToAngleTable == null) return;
-        
-        // Step 1: Generate VisSprites from MapObjects
-        List<VisSprite> visSprites = generateVisSprites(mapObjects);
+    public void drawWorldSpritesWithOcclusion(int[] framebuffer, FrameSnapshot view, List<DrawSeg> drawSegs) {
+        if (assetData == null || xToAngleTable == null) return;
+        drawVisSprites(framebuffer, prepareVisSprites(view), drawSegs, 0, viewSize.width - 1);
+    }
+
+    /**
+     * Projects the snapshot's objects and sorts them back to front, ready for {@link #drawVisSprites}.
+     */
+    public List<VisSprite> prepareVisSprites(FrameSnapshot view) {
+        // Step 1: Generate VisSprites from the captured objects
+        List<VisSprite> visSprites = generateVisSprites(view);
         
         // Step 2: Sort sprites back-to-front by depth (farther = larger distance first)
         visSprites.sort((a, b) -> Double.compare(b.depth, a.depth)); // farther (larger distance) first
-        
-        // Step 3: Render each sprite with depth buffer occlusion
-        double[] depthBuffer = engine.getDepthBuffer();
+        return visSprites;
+    }
+
+    /**
+     * Draws sorted sprites clipped by the walls in front of them, limited to screen columns
+     * xStart..xEnd so that parallel strips can each draw their own part.
+     *
+     * @param drawSegs the walls and portals drawn for those columns this frame
+     */
+    public void drawVisSprites(int[] framebuffer, List<VisSprite> visSprites, List<DrawSeg> drawSegs,
+                               int xStart, int xEnd) {
         for (VisSprite sprite : visSprites) {
-            renderSpriteWithDepthTest(framebuffer, depthBuffer, sprite);
+            if (sprite.screenX2 < xStart || sprite.screenX1 > xEnd) continue;
+            int x1 = Math.max(sprite.screenX1, xStart);
+            int x2 = Math.min(sprite.screenX2, xEnd);
+            clipSprite(sprite, drawSegs, x1, x2, clipTop, clipBottom);
+            drawClippedSprite(framebuffer, sprite, x1, x2, clipTop, clipBottom);
+        }
+    }
+
+    /**
+     * Finds the rows of columns x1..x2 the sprite may cover, as vanilla's R_DrawSprite: the
+     * silhouette of the farthest seg in front of the sprite decides each column's limits.
+     */
+    private void clipSprite(VisSprite sprite, List<DrawSeg> drawSegs, int x1, int x2, int[] clipTop, int[] clipBottom) {
+        Arrays.fill(clipTop, x1, x2 + 1, CLIP_UNSET);
+        Arrays.fill(clipBottom, x1, x2 + 1, CLIP_UNSET);
+        double spriteBottom = sprite.object.z();
+        double spriteTop = spriteBottom + sprite.object.renderHeight();
+
+        // From the last drawn seg back to the first, setting only unset columns: the first seg found,
+        // the farthest in front of the sprite, wins. Its clip snapshot already includes every nearer seg
+        for (int i = drawSegs.size() - 1; i >= 0; i--) {
+            DrawSeg ds = drawSegs.get(i);
+            if (ds.x1 > x2 || ds.x2 < x1) continue;
+
+            double lowScale = Math.min(ds.scale1, ds.scale2);
+            double highScale = Math.max(ds.scale1, ds.scale2);
+            if (highScale < sprite.scale
+                    || (lowScale < sprite.scale && !isPointBehindSeg(ds.segId, sprite.object.x(), sprite.object.y()))) {
+                continue; // The seg is behind the sprite
+            }
+
+            int silhouette = ds.silhouette;
+            if (spriteBottom >= ds.bottomSilHeight) silhouette &= ~DrawSeg.SIL_BOTTOM;
+            if (spriteTop <= ds.topSilHeight) silhouette &= ~DrawSeg.SIL_TOP;
+
+            int r1 = Math.max(ds.x1, x1);
+            int r2 = Math.min(ds.x2, x2);
+            for (int x = r1; x <= r2; x++) {
+                if ((silhouette & DrawSeg.SIL_BOTTOM) != 0 && clipBottom[x] == CLIP_UNSET) {
+                    clipBottom[x] = ds.sprBottomClip[x - ds.x1];
+                }
+                if ((silhouette & DrawSeg.SIL_TOP) != 0 && clipTop[x] == CLIP_UNSET) {
+                    clipTop[x] = ds.sprTopClip[x - ds.x1];
+                }
+            }
+        }
+
+        for (int x = x1; x <= x2; x++) {
+            if (clipBottom[x] == CLIP_UNSET) clipBottom[x] = viewSize.height;
+            if (clipTop[x] == CLIP_UNSET) clipTop[x] = -1;
         }
     }
+
+    /**
+     * True if the point is on the back side of the seg, i.e. the seg lies between it and the view.
+     */
+    private boolean isPointBehindSeg(int segId, double x, double y) {
+        MapGeometry geometry = engine.getWadData().geometry;
+        int v1 = geometry.segStartVertex[segId];
+        int v2 = geometry.segEndVertex[segId];
+        double lx = geometry.vertexX[v1];
+        double ly = geometry.vertexY[v1];
+        double dx = geometry.vertexX[v2] - lx;
+        double dy = geometry.vertexY[v2] - ly;
+        return (y - ly) * dx >= dy * (x - lx);
+    }
     
-    private List<VisSprite> generateVisSprites(List<MapObject> mapObjects) {
+    private List<VisSprite> generateVisSprites(FrameSnapshot view) {
         List<VisSprite> visSprites = new ArrayList<>();
-        
-        for (MapObject obj : mapObjects) {
-            if (obj.currentSpriteLumpName == null || !assetData.sprites.containsKey(obj.currentSpriteLumpName)) {
-                continue;
-            }
-            BufferedImage spriteImg = assetData.sprites.get(obj.currentSpriteLumpName);
+        int viewAngle = Bam.fromDegrees(view.viewAngle);
+        double viewCos = Bam.cos(viewAngle);
+        double viewSin = Bam.sin(viewAngle);
+
+        for (FrameSnapshot.ObjectView obj : view.objects) {
+            IndexedImage spriteImg = assetData.sprites.get(obj.spriteName());
             if (spriteImg == null) continue;
             
-            // Enhanced camera space transformation using geometry classes
-            Point2D objPos = new Point2D(obj.pos.x(), obj.pos.y());
-            Point2D playerPos = new Point2D(player.pos.x(), player.pos.y());
-            Angle playerAngle = Angle.degrees(player.angle);
-            
-            // Use Doom-specific camera transformation
-            Vector2D camSpaceVector = DoomGeometryUtils.worldPositionToCameraSpace(objPos, playerPos, playerAngle);
-            double camSpaceX = camSpaceVector.x(); // Horizontal screen offset
-            double camSpaceZ_Depth = camSpaceVector.y(); // Depth
+            // Camera space, as DoomGeometryUtils.worldToCameraSpace
+            double dx = obj.x() - view.viewX;
+            double dy = obj.y() - view.viewY;
+            double camSpaceX = dy * viewCos - dx * viewSin; // Horizontal screen offset
+            double camSpaceZ_Depth = dx * viewCos + dy * viewSin; // Depth
             
             if (camSpaceZ_Depth <= 0.5) continue; // Behind camera or too close
             
-            double scale = Constants.SCREEN_DIST / camSpaceZ_Depth;
+            double scale = viewSize.screenDist / camSpaceZ_Depth;
             
             // Calculate sprite depth to match wall depth format (smaller = closer)
-            double spriteDepth = Constants.SCREEN_DIST / scale; // Same as camSpaceZ_Depth, but explicit calculation
+            double spriteDepth = viewSize.screenDist / scale; // Same as camSpaceZ_Depth, but explicit calculation
             
             // Get original sprite dimensions
-            AssetData.Patch patch = assetData.getSpritePatch(obj.currentSpriteLumpName);
-            double spriteOrigWidth = (patch != null) ? patch.header.width : spriteImg.getWidth() / Constants.SCALE;
-            double spriteOrigHeight = (patch != null) ? patch.header.height : spriteImg.getHeight() / Constants.SCALE;
+            AssetData.Patch patch = assetData.getSpritePatch(obj.spriteName());
+            double spriteOrigWidth = (patch != null) ? patch.header.width : spriteImg.width;
+            double spriteOrigHeight = (patch != null) ? patch.header.height : spriteImg.height;
             
             double spriteScreenWidth = spriteOrigWidth * scale;
             double spriteScreenHeight = spriteOrigHeight * scale;
             
             // Screen position
-            double screenXCenter = Constants.H_WIDTH - camSpaceX * scale;
+            double screenXCenter = viewSize.halfWidth - camSpaceX * scale;
             int screenX1 = (int) Math.round(screenXCenter - spriteScreenWidth / 2.0);
             int screenX2 = (int) Math.round(screenXCenter + spriteScreenWidth / 2.0);
             
             // Sprite Z calculations
-            double objWorldZBase = obj.z;
-            double objWorldZCeilRelPlayer = (objWorldZBase + obj.renderHeight) - player.getEyeLevelViewZ();
-            double objWorldZFloorRelPlayer = objWorldZBase - player.getEyeLevelViewZ();
+            double objWorldZBase = obj.z();
+            double objWorldZCeilRelPlayer = (objWorldZBase + obj.renderHeight()) - view.viewZ;
+            double objWorldZFloorRelPlayer = objWorldZBase - view.viewZ;
             
-            int screenY1 = (int) Math.round(Constants.H_HEIGHT - objWorldZCeilRelPlayer * scale);
-            int screenY2 = (int) Math.round(Constants.H_HEIGHT - objWorldZFloorRelPlayer * scale);
+            int screenY1 = (int) Math.round(viewSize.halfHeight - objWorldZCeilRelPlayer * scale);
+            int screenY2 = (int) Math.round(viewSize.halfHeight - objWorldZFloorRelPlayer * scale);
             
             // Skip if completely off-screen
-            if (screenX2 < 0 || screenX1 >= Constants.WIDTH || screenY2 < 0 || screenY1 >= Constants.HEIGHT) {
+            if (screenX2 < 0 || screenX1 >= viewSize.width || screenY2 < 0 || screenY1 >= viewSize.height) {
                 continue;
             }
             
             // Get light level from sector or use fullbright
             int sectorLightLevel = 200; // Default good lighting for visibility
-            if (engine.getWadData().sectors != null && !engine.getWadData().sectors.isEmpty()) {
-                sectorLightLevel = (int)(engine.getWadData().sectors.get(0).lightLevel * 255.0);
+            if (view.sectorCount() > 0) {
+                sectorLightLevel = (int)(view.lightLevel(0) * 255.0);
             }
-            int lightLevel = obj.currentSpriteFullBright ? 255 : sectorLightLevel;
+            int lightLevel = obj.fullBright() ? 255 : sectorLightLevel;
             
             VisSprite visSprite = new VisSprite(obj, screenX1, screenX2, screenY1, screenY2, 
                                               scale, spriteDepth, spriteImg, 
-                                              obj.currentSpriteFullBright, lightLevel, Constants.HEIGHT);
+                                              obj.fullBright(), lightLevel, viewSize.height);
             visSprites.add(visSprite);
         }
         
         return visSprites;
     }
     
-    private void renderSpriteWithDepthTest(int[] framebuffer, double[] depthBuffer, VisSprite sprite) {
-        BufferedImage spriteImg = sprite.image;
+    /**
+     * Draws a sprite column by column, as vanilla's R_DrawVisSprite: the texture column and
+     * row are stepped in 16.16 fixed point, and only the opaque posts of each column are
+     * visited, so transparent texels cost nothing. Rows outside clipTop/clipBottom are skipped.
+     */
+    private void drawClippedSprite(int[] framebuffer, VisSprite sprite, int x1, int x2, int[] clipTop, int[] clipBottom) {
+        IndexedImage spriteImg = sprite.image;
+        IndexedImage.ColumnPosts posts = spriteImg.posts();
+        byte[] texels = spriteImg.texels;
+        int[] columnOffsets = spriteImg.columnOffsets;
+        int[] lightTable = sprite.fullBright ? lightTables.fullBright()
+                : lightTables.forScale(LightTables.lightLevel(sprite.lightLevelInt / 255.0, 0), sprite.scale);
         int spriteScreenWidth = sprite.screenX2 - sprite.screenX1 + 1;
         int spriteScreenHeight = sprite.screenY2 - sprite.screenY1 + 1;
-        
-        
-        for (int sx = 0; sx < spriteScreenWidth; sx++) {
-            int screenX = sprite.screenX1 + sx;
-            if (screenX < 0 || screenX >= Constants.WIDTH) continue;
-            
-            // Texture U coordinate
-            int texU = (int) ((sx / (double) spriteScreenWidth) * spriteImg.getWidth());
-            if (texU < 0 || texU >= spriteImg.getWidth()) continue;
-            
-            for (int sy = 0; sy < spriteScreenHeight; sy++) {
-                int screenY = sprite.screenY1 + sy;
-                if (screenY < 0 || screenY >= Constants.HEIGHT) continue;
-                
-                int bufferIndex = screenX + screenY * Constants.WIDTH;
-                
-                // Depth test: only draw if sprite is closer than what's already drawn
-                // Closer = smaller distance values (opposite of scale)
-                if (sprite.depth >= depthBuffer[bufferIndex]) {
-                    continue;
+        // Texels per screen pixel (iscale) and screen rows per texel (yscale)
+        int xIScale = (int) (((long) spriteImg.width << FixedPoint.FRAC_BITS) / spriteScreenWidth);
+        int yIScale = (int) (((long) spriteImg.height << FixedPoint.FRAC_BITS) / spriteScreenHeight);
+        long yScale = ((long) spriteScreenHeight << FixedPoint.FRAC_BITS) / spriteImg.height;
+        long topScreen = (long) sprite.screenY1 << FixedPoint.FRAC_BITS;
+        int width = viewSize.width;
+
+        int uFrac = (x1 - sprite.screenX1) * xIScale;
+        for (int x = x1; x <= x2; x++, uFrac += xIScale) {
+            int texU = uFrac >> FixedPoint.FRAC_BITS;
+            if (texU >= spriteImg.width) break;
+            int column = columnOffsets[texU];
+            int minY = clipTop[x] + 1;
+            int maxY = clipBottom[x] - 1;
+            if (minY > maxY) continue;
+
+            for (int post = posts.first[texU]; post < posts.first[texU + 1]; post++) {
+                int postTop = posts.top[post];
+                int postEnd = postTop + posts.length[post];
+                // Screen rows whose centres fall inside the post
+                long postTopScreen = topScreen + postTop * yScale;
+                long postBottomScreen = topScreen + postEnd * yScale;
+                int y1 = (int) ((postTopScreen + FixedPoint.FRAC_UNIT - 1) >> FixedPoint.FRAC_BITS);
+                int y2 = (int) ((postBottomScreen - 1) >> FixedPoint.FRAC_BITS);
+                if (y1 < minY) y1 = minY;
+                if (y2 > maxY) y2 = maxY;
+                if (y1 > y2) continue;
+
+                int vFrac = (y1 - sprite.screenY1) * yIScale;
+                int pixel = x + y1 * width;
+                for (int y = y1; y <= y2; y++, vFrac += yIScale, pixel += width) {
+                    int texV = vFrac >> FixedPoint.FRAC_BITS;
+                    if (texV >= postEnd) break; // Rounding can step one texel past the post
+                    framebuffer[pixel] = lightTable[texels[column + Math.max(texV, postTop)] & 0xFF];
                 }
-                
-                // Texture V coordinate
-                int texV = (int) ((sy / (double) spriteScreenHeight) * spriteImg.getHeight());
-                if (texV < 0 || texV >= spriteImg.getHeight()) continue;
-                
-                int color = spriteImg.getRGB(texU, texV);
-                if ((color >> 24) == 0) continue; // Skip transparent pixels
-                
-                // Apply lighting
-                double light = sprite.fullBright ? 1.0 : (sprite.lightLevelInt / 255.0);
-                int alpha = (color >> 24) & 0xFF;
-                int red = (int) (((color >> 16) & 0xFF) * light);
-                int green = (int) (((color >> 8) & 0xFF) * light);
-                int blue = (int) ((color & 0xFF) * light);
-                red = Math.min(255, Math.max(0, red));
-                green = Math.min(255, Math.max(0, green));
-                blue = Math.min(255, Math.max(0, blue));
-                
-                // Draw pixel and update depth buffer
-                framebuffer[bufferIndex] = (alpha << 24) | (red << 16) | (green << 8) | blue;
-                depthBuffer[bufferIndex] = sprite.depth;
-            }
-        }
-    }
-
-    public static void drawFlatColumn(int[] framebuffer, int[][] flatTexture,
-                                      int x, int y1, int y2, double lightLevel,
-                                      double planeZWorld, double playerEyeZWorld,
-                                      Angle playerAngle, Point2D playerPos,
-                                      Angle screenColumnAngle) {
-
-        // Z-coordinate of the plane relative to the player's eye.
-        // Positive if plane is "above" player's eye Z, negative if "below".
-        double planeZRelativeToEye = planeZWorld - playerEyeZWorld;
-
-        // Enhanced angle calculations using geometry classes
-        Angle worldRayAngle = playerAngle.add(screenColumnAngle);
-
-        // Pre-calculate components using geometry classes
-        double cosRayHorizontalOffsetAngle = screenColumnAngle.cos();
-        // Avoid division by zero if ray is exactly perpendicular to view axis (e.g., FOV approaching 180 deg)
-        if (Math.abs(cosRayHorizontalOffsetAngle) < 1e-9) { // 1e-9 is a small epsilon
-            return;
-        }
-        double cosWorldRayAngle = worldRayAngle.cos();
-        double sinWorldRayAngle = worldRayAngle.sin();
-
-        for (int y = y1; y <= y2; y++) {
-            // Boundary checks for screen coordinates
-            if (y < 0 || y >= Constants.HEIGHT || x < 0 || x >= Constants.WIDTH) {
-                continue;
-            }
-
-            // Vertical position of the pixel in camera space (on projection plane), relative to the horizon.
-            // Positive for pixels above the horizon (typically ceiling part of screen).
-            // Negative for pixels below the horizon (typically floor part of screen).
-            // Screen Y coordinates: 0 at top, Settings.HEIGHT-1 at bottom. Horizon at Settings.H_HEIGHT.
-            double yCameraSpace = (double) Constants.H_HEIGHT - y;
-
-            // Avoid division by zero or extreme values at/near the horizon line.
-            // A pixel on the horizon line (yCameraSpace == 0) implies the plane is infinitely far
-            // or parallel to the view direction at that point.
-            if (Math.abs(yCameraSpace) < 0.5) { // Use 0.5 pixels as a threshold
-                continue;
-            }
-
-            // Calculate distance to the intersection point on the plane, as projected onto the camera's Z-axis (forward view direction).
-            // Formula: z_on_view_axis = (D_proj * plane_Z_relative_to_eye) / y_on_projection_plane_from_horizon
-            // - For a floor: planeZRelativeToEye is negative, yCameraSpace is negative => z_on_view_axis is positive.
-            // - For a ceiling: planeZRelativeToEye is positive, yCameraSpace is positive => z_on_view_axis is positive.
-            double z_on_view_axis = (Constants.SCREEN_DIST * planeZRelativeToEye) / yCameraSpace;
-
-            // If z_on_view_axis is non-positive, the intersection point is behind the camera,
-            // or on a plane that shouldn't be visible from this pixel (e.g., trying to render a floor above the horizon).
-            if (z_on_view_axis <= 0) {
-                continue;
             }
-
-            // Correct for perspective: get the true distance along the actual ray to the intersection point.
-            // This accounts for rays not being parallel to the view axis (i.e., for pixels not at screen center x).
-            double true_dist_along_ray = z_on_view_axis / cosRayHorizontalOffsetAngle;
-
-            // World coordinates of the intersection point on the plane using geometry classes
-            Vector2D rayDirection = Vector2D.fromAngle(worldRayAngle);
-            Point2D worldHitPoint = playerPos.add(rayDirection.multiply(true_dist_along_ray));
-            int packedARGB = getPackedARGB(flatTexture, worldHitPoint);
-
-            // Apply lighting (simple multiplicative)
-            int alpha = (packedARGB >> 24) & 0xFF;
-            int red = (int) (((packedARGB >> 16) & 0xFF) * lightLevel);
-            int green = (int) (((packedARGB >> 8) & 0xFF) * lightLevel);
-            int blue = (int) ((packedARGB & 0xFF) * lightLevel);
-
-            // Clamp color components to the valid [0, 255] range
-            red = Math.min(255, Math.max(0, red));
-            green = Math.min(255, Math.max(0, green));
-            blue = Math.min(255, Math.max(0, blue));
-
-            framebuffer[x + y * Constants.WIDTH] = (alpha << 24) | (red << 16) | (green << 8) | blue;
         }
     }
-
-    private static int getPackedARGB(int[][] flatTexture, Point2D worldHitPoint) {
-        double world_hit_x = worldHitPoint.x();
-        double world_hit_y = worldHitPoint.y();
-
-        // Texture mapping: get texture coordinates from world coordinates.
-        // Assumes texture is aligned with world axes and repeats.
-        // Math.floor ensures correct behavior for negative world coordinates.
-        // Masking (& Settings.TEXTURE_MASK_X/Y) assumes texture dimensions are powers of 2.
-        int texU = ((int) Math.floor(world_hit_x) & Constants.TEXTURE_MASK_X);
-        int texV = ((int) Math.floor(world_hit_y) & Constants.TEXTURE_MASK_Y);
-        // If texture sizes can vary or are not powers of 2, use modulo arithmetic:
-        // texU = (int)Math.floor(world_hit_x) % Settings.TEXTURE_WIDTH;
-        // if (texU < 0) texU += Settings.TEXTURE_WIDTH;
-        // (Similarly for texV and Settings.TEXTURE_HEIGHT)
-
-        // Assuming flatTexture is [TextureWidth][TextureHeight] or [U][V]
-        // Change to flatTexture[texV][texU] if your texture array is [Height][Width] or [V][U]
-        return flatTexture[texU][texV];
-    }
 }
-
@@ -0,0 +1,36 @@
+package com.doomengine.rendering;
+
+import com.doomengine.misc.Constants;
+
+/**
+ * Resolution the 3D view is rendered at, as vanilla's viewwidth/viewheight/centerx/centery.
+ * The window keeps its size ({@link Constants#WIDTH} x {@link Constants#HEIGHT}); a smaller
+ * view is scaled up to it once when the frame is presented.
+ */
+public final class ViewSize {
+    public final double scale; // Relative to the original 320x200
+    public final int width;
+    public final int height;
+    public final int halfWidth;
+    public final int halfHeight;
+    public final double screenDist; // Projection distance for the 90 degree field of view
+
+    public ViewSize(double scale) {
+        this.scale = scale;
+        this.width = (int) (Constants.DOOM_W * scale);
+        this.height = (int) (Constants.DOOM_H * scale);
+        this.halfWidth = width / 2;
+        this.halfHeight = height / 2;
+        this.screenDist = halfWidth / Math.tan(Math.toRadians(Constants.H_FOV));
+    }
+
+    /** The view at window resolution. */
+    public static ViewSize window() {
+        return new ViewSize(Constants.SCALE);
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height;
+    }
+}
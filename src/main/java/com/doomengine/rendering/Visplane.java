@@ -0,0 +1,53 @@
+package com.doomengine.rendering;
+
+import com.doomengine.wad.assets.IndexedImage;
+
+import java.util.Arrays;
+
+// A floor or ceiling region sharing height, texture and light, as vanilla's visplane_t.
+// Walls record the rows it covers per column; PlaneRenderer later draws it as horizontal spans.
+public class Visplane {
+    public static final int EMPTY_TOP = Short.MAX_VALUE; // top > bottom marks a column the plane does not cover
+    public static final int EMPTY_BOTTOM = -1;
+
+    public double height;     // Absolute world Z of the plane (0 for sky)
+    public int flatId;        // SegRenderCache flat id; planes with the same id share a texture
+    public IndexedImage flat; // The flat's texels, null for sky or a missing flat
+    public int lightLevel;    // Light level index 0-15 (see LightTables)
+    public int minX;
+    public int maxX;          // Screen columns touched so far (inclusive); minX > maxX while empty
+
+    // Covered rows per screen column (inclusive)
+    public final int[] top;
+    public final int[] bottom;
+
+    Visplane(int viewWidth) {
+        this.top = new int[viewWidth];
+        this.bottom = new int[viewWidth];
+        Arrays.fill(top, EMPTY_TOP);
+        Arrays.fill(bottom, EMPTY_BOTTOM);
+        this.minX = viewWidth;
+        this.maxX = -1;
+    }
+
+    /**
+     * Reuses this plane for a new region; only the columns the previous one touched need clearing.
+     */
+    void reset(double height, int flatId, IndexedImage flat, int lightLevel) {
+        if (minX <= maxX) {
+            Arrays.fill(top, minX, maxX + 1, EMPTY_TOP);
+            Arrays.fill(bottom, minX, maxX + 1, EMPTY_BOTTOM);
+        }
+        this.height = height;
+        this.flatId = flatId;
+        this.flat = flat;
+        this.lightLevel = lightLevel;
+        this.minX = top.length;
+        this.maxX = -1;
+    }
+
+    public void mark(int x, int y1, int y2) {
+        top[x] = y1;
+        bottom[x] = y2;
+    }
+}
@@ -1,15 +1,15 @@
 package com.doomengine.rendering.bsp;
 
 import com.doomengine.game.DoomEngine;
-import com.doomengine.game.Player;
+import com.doomengine.game.FrameSnapshot;
 import com.doomengine.misc.Constants;
+import com.doomengine.rendering.ViewSize;
 import com.doomengine.geometry.*;
 import com.doomengine.services.CollisionService;
 import com.doomengine.services.DoorService;
-import com.doomengine.wad.datatypes.Node;
+import com.doomengine.wad.MapGeometry;
 import com.doomengine.wad.datatypes.Sector;
 import com.doomengine.wad.datatypes.Seg;
-import com.doomengine.wad.datatypes.SubSector;
 
 import java.util.List;
 import java.util.logging.Logger;
@@ -23,10 +23,7 @@ public class BSP implements CollisionService {
     private static final Logger LOGGER = Logger.getLogger(BSP.class.getName());
     public static final int SUB_SECTOR_IDENTIFIER = 0x8000;
 
-    private final DoomEngine engine;
-    private Player player;
-    private final List<Node> nodes;
-    private final List<SubSector> subSectors;
+    private final MapGeometry geometry;
     private final List<Seg> segs;
     private final List<Sector> sectors;
     private final int rootNodeId;
@@ -34,40 +31,105 @@ public class BSP implements CollisionService {
     private final Angle fieldOfView;
     public boolean isTraverseBsp;
     private DoorService doorService; // To be injected
+    private SegHandler segHandler; // Receives the visible segs; to be injected
+
+    private static final int CLIP_ANGLE = Bam.fromDegrees(Constants.H_FOV); // Half the field of view
+    private static final double MAX_RENDER_DISTANCE = 2000.0; // Segs with both ends further away are skipped
+
+    // The two box corners that bound a node box's silhouette, as vanilla's checkcoord: indexed by
+    // where the view point is relative to the box (row: above/within/below, column:
+    // left/within/right) times 4, giving x1, y1, x2, y2 as offsets into the box
+    private static final int[] CHECK_COORD = {
+            MapGeometry.BOXRIGHT, MapGeometry.BOXTOP, MapGeometry.BOXLEFT, MapGeometry.BOXBOTTOM,
+            MapGeometry.BOXRIGHT, MapGeometry.BOXTOP, MapGeometry.BOXLEFT, MapGeometry.BOXTOP,
+            MapGeometry.BOXRIGHT, MapGeometry.BOXBOTTOM, MapGeometry.BOXLEFT, MapGeometry.BOXTOP,
+            0, 0, 0, 0,
+            MapGeometry.BOXLEFT, MapGeometry.BOXTOP, MapGeometry.BOXLEFT, MapGeometry.BOXBOTTOM,
+            0, 0, 0, 0, // View point inside the box
+            MapGeometry.BOXRIGHT, MapGeometry.BOXBOTTOM, MapGeometry.BOXRIGHT, MapGeometry.BOXTOP,
+            0, 0, 0, 0,
+            MapGeometry.BOXLEFT, MapGeometry.BOXTOP, MapGeometry.BOXRIGHT, MapGeometry.BOXBOTTOM,
+            MapGeometry.BOXLEFT, MapGeometry.BOXBOTTOM, MapGeometry.BOXRIGHT, MapGeometry.BOXBOTTOM,
+            MapGeometry.BOXLEFT, MapGeometry.BOXBOTTOM, MapGeometry.BOXRIGHT, MapGeometry.BOXTOP
+    };
+    private static final int BOX_POS_INSIDE = 5;
+
+    // Part of the screen this traversal renders: columns (inclusive)
+    private ViewSize viewSize = ViewSize.window();
+    private int stripStart = 0;
+    private int stripEnd = viewSize.width - 1;
+
+    // View point for the frame being traversed
+    private double viewX;
+    private double viewY;
+    private int viewAngle; // BAM
+
+    // View-space transform of each vertex, done on first use in a frame: most vertexes are
+    // shared by two segs, and a seg's start vertex is needed again for its wall distance
+    private final int[] vertexAngle;       // BAM world angle from the view point
+    private final double[] vertexDistance; // Distance from the view point
+    private final int[] vertexFrame;       // Frame the entries above were computed for
+    private int frame;
+
+    // Output of addSegmentToFov, consumed immediately by renderSubSector
+    private int projectedX1;
+    private int projectedX2;
+    private int projectedAngle1;
+    private double projectedHypotenuse;
 
     public void setDoorService(DoorService doorService) {
         this.doorService = doorService;
     }
 
+    public void setSegHandler(SegHandler segHandler) {
+        this.segHandler = segHandler;
+    }
+
+    /**
+     * Sets the resolution segs are projected at and resets traversal to the whole view.
+     */
+    public void setViewSize(ViewSize viewSize) {
+        this.viewSize = viewSize;
+        this.stripStart = 0;
+        this.stripEnd = viewSize.width - 1;
+    }
+
+    /**
+     * Restricts traversal to screen columns xStart..xEnd, for a parallel render strip:
+     * segs wholly outside the strip are skipped. Nodes outside it are rejected by the
+     * SegHandler's clip ranges, which start out covering every other column.
+     */
+    public void setStrip(int xStart, int xEnd) {
+        this.stripStart = xStart;
+        this.stripEnd = xEnd;
+    }
+
     public BSP(DoomEngine engine) {
-        this.engine = engine;
-        this.player = null;
-        this.nodes = engine.getWadData().nodes;
-        this.subSectors = engine.getWadData().subSectors;
+        this.geometry = engine.getWadData().geometry;
         this.segs = engine.getWadData().segments;
         this.sectors = engine.getWadData().sectors;
-        this.rootNodeId = this.nodes.size() - 1;
+        this.rootNodeId = this.geometry.rootNodeId;
         this.isTraverseBsp = true;
+        this.vertexAngle = new int[geometry.numVertexes];
+        this.vertexDistance = new double[geometry.numVertexes];
+        this.vertexFrame = new int[geometry.numVertexes];
         
         // Initialize projection and field of view
         this.projection = new Projection(Constants.SCREEN_DIST, Constants.WIDTH, Constants.HEIGHT);
         this.fieldOfView = DoomGeometryUtils.calculateFOV(Constants.WIDTH, Constants.SCREEN_DIST);
     }
 
-    public void update() {
-        if (this.player == null) {
-            this.player = engine.getPlayer();
-        }
-        if (this.player == null) {
-            return;
-        }
-        
+    public void update(FrameSnapshot view) {
         this.isTraverseBsp = true;
+        this.viewX = view.viewX;
+        this.viewY = view.viewY;
+        this.viewAngle = Bam.fromDegrees(view.viewAngle);
+        this.frame++;
         renderBspNode(this.rootNodeId);
     }
 
     /**
-     * BSP traversal matching original logic with geometry classes.
+     * BSP traversal matching original logic, walking the primitive node arrays.
      */
     private void renderBspNode(int nodeId) {
         if (!this.isTraverseBsp) {
@@ -76,7 +138,7 @@ public class BSP implements CollisionService {
 
         if ((nodeId & SUB_SECTOR_IDENTIFIER) != 0) { // Check MSB
             int subSectorIdx = nodeId & (~SUB_SECTOR_IDENTIFIER); // Clear MSB to get index
-            if (subSectorIdx < 0 || subSectorIdx >= subSectors.size()) {
+            if (subSectorIdx >= geometry.numSubSectors) {
                 LOGGER.warning("Invalid subsector index from node ID: " + subSectorIdx);
                 return;
             }
@@ -84,233 +146,186 @@ public class BSP implements CollisionService {
             return;
         }
 
-        if (nodeId < 0 || nodeId >= nodes.size()) {
+        if (nodeId < 0 || nodeId >= geometry.numNodes) {
             LOGGER.warning("Invalid node ID in renderBspNode: " + nodeId);
             return;
         }
-        Node node = this.nodes.get(nodeId);
 
-        boolean isOnBack = isOnBackSide(node, player.pos.x(), player.pos.y()); // Use current player position for rendering logic
+        int side = isOnBackSide(nodeId, viewX, viewY) ? 1 : 0; // Use current player position for rendering logic
 
-        renderBspNode(isOnBack ? node.backChildId : node.frontChildId);
+        renderBspNode(geometry.nodeChild(nodeId, side));
 
-        Node.BBox otherBBox = isOnBack ? node.bbox.get("front") : node.bbox.get("back");
-        if (checkBox(otherBBox)) {
-            renderBspNode(isOnBack ? node.frontChildId : node.backChildId);
+        if (checkBox(MapGeometry.bboxIndex(nodeId, side ^ 1))) {
+            renderBspNode(geometry.nodeChild(nodeId, side ^ 1));
         }
     }
     
     /**
-     * Check if bounding box is potentially visible (matching original logic).
+     * Check if bounding box is potentially visible, as vanilla's R_CheckBBox: the box's
+     * silhouette is the angle between two corners picked from {@link #CHECK_COORD}, clipped to
+     * the field of view, and the box is rejected if solid walls already cover its columns.
+     * @param box index of the box's first entry in {@link MapGeometry#nodeBBox}
      */
-    private boolean checkBox(Node.BBox bbox) {
-        double px = player.pos.x();
-        double py = player.pos.y();
-
-        if (px >= bbox.left && px <= bbox.right && py >= bbox.bottom && py <= bbox.top) {
-            return true; // Player is inside the bbox
+    private boolean checkBox(int box) {
+        short[] bbox = geometry.nodeBBox;
+        int boxX = viewX <= bbox[box + MapGeometry.BOXLEFT] ? 0 : viewX < bbox[box + MapGeometry.BOXRIGHT] ? 1 : 2;
+        int boxY = viewY >= bbox[box + MapGeometry.BOXTOP] ? 0 : viewY > bbox[box + MapGeometry.BOXBOTTOM] ? 1 : 2;
+        int boxPos = (boxY << 2) + boxX;
+        if (boxPos == BOX_POS_INSIDE) {
+            return true; // View point is inside the box
         }
 
-        Point2D vBL = new Point2D(bbox.left, bbox.bottom);
-        Point2D vTL = new Point2D(bbox.left, bbox.top);
-        Point2D vTR = new Point2D(bbox.right, bbox.top);
-        Point2D vBR = new Point2D(bbox.right, bbox.bottom);
-
-        Point2D playerPos = new Point2D(px, py);
-        double aBL = normalizeAngle180(pointToAngle(vBL, playerPos) - player.angle);
-        double aTL = normalizeAngle180(pointToAngle(vTL, playerPos) - player.angle);
-        double aTR = normalizeAngle180(pointToAngle(vTR, playerPos) - player.angle);
-        double aBR = normalizeAngle180(pointToAngle(vBR, playerPos) - player.angle);
+        int corners = boxPos * 4;
+        int angle1 = pointToAngle(bbox[box + CHECK_COORD[corners]], bbox[box + CHECK_COORD[corners + 1]]) - viewAngle;
+        int angle2 = pointToAngle(bbox[box + CHECK_COORD[corners + 2]], bbox[box + CHECK_COORD[corners + 3]]) - viewAngle;
 
-        if (Math.abs(aBL) <= Constants.H_FOV || Math.abs(aTL) <= Constants.H_FOV ||
-                Math.abs(aTR) <= Constants.H_FOV || Math.abs(aBR) <= Constants.H_FOV) {
-            return true;
+        int span = angle1 - angle2;
+        if (Integer.compareUnsigned(span, Bam.ANG180) >= 0) {
+            return true; // Box fills more than half the view circle
         }
 
-        double minAngle = Math.min(Math.min(aBL, aTL), Math.min(aTR, aBR));
-        double maxAngle = Math.max(Math.max(aBL, aTL), Math.max(aTR, aBR));
+        // Clip to FOV, as addSegmentToFov
+        int tSpan = angle1 + CLIP_ANGLE;
+        if (Integer.compareUnsigned(tSpan, 2 * CLIP_ANGLE) > 0) {
+            tSpan -= 2 * CLIP_ANGLE;
+            if (Integer.compareUnsigned(tSpan, span) >= 0) return false; // Entirely to the left
+            angle1 = CLIP_ANGLE;
+        }
+        tSpan = CLIP_ANGLE - angle2;
+        if (Integer.compareUnsigned(tSpan, 2 * CLIP_ANGLE) > 0) {
+            tSpan -= 2 * CLIP_ANGLE;
+            if (Integer.compareUnsigned(tSpan, span) >= 0) return false; // Entirely to the right
+            angle2 = -CLIP_ANGLE;
+        }
 
-        return maxAngle >= -Constants.H_FOV && minAngle <= Constants.H_FOV;
+        if (segHandler == null) return true;
+        // Partly covered columns at either end count as visible
+        int x1 = Math.max(angleToX(angle1), 0);
+        int x2 = Math.min(angleToX(angle2), viewSize.width - 1);
+        return !segHandler.isRangeCovered(x1, x2);
     }
-    
+
     /**
      * Check which side of BSP partition the point is on (matching original logic).
-     * Enhanced to use geometry classes.
      */
-    private boolean isOnBackSide(Node node, double pX, double pY) {
-        Point2D point = new Point2D(pX, pY);
-        Point2D partitionPoint = new Point2D(node.xPartition, node.yPartition);
-        Vector2D toPoint = partitionPoint.vectorTo(point);
-        Vector2D partitionDirection = new Vector2D(node.dxPartition, node.dyPartition);
-        
+    private boolean isOnBackSide(int nodeId, double pX, double pY) {
+        double dx = pX - geometry.nodeX[nodeId];
+        double dy = pY - geometry.nodeY[nodeId];
+
         // Cross product to determine which side of the partition line the point is on
-        double crossProduct = toPoint.cross(partitionDirection);
+        double crossProduct = dx * geometry.nodeDy[nodeId] - dy * geometry.nodeDx[nodeId];
         return crossProduct <= 0;
     }
 
     /**
-     * Enhanced subsector rendering with geometry-based culling.
+     * Subsector rendering with backface and distance culling.
      */
     private void renderSubSector(int subSectorId) {
-        SubSector subSector = this.subSectors.get(subSectorId);
         if (!this.isTraverseBsp) return;
 
-        Point2D playerPos = new Point2D(player.pos.x(), player.pos.y());
-        Angle playerAngle = Angle.degrees(player.angle);
+        int firstSeg = geometry.subSectorFirstSeg[subSectorId];
+        int lastSeg = firstSeg + geometry.subSectorSegCount[subSectorId];
 
-        for (int i = 0; i < subSector.segCount; i++) {
-            int segIndex = subSector.firstSegId + i;
-            if (segIndex >= segs.size()) continue;
-
-            Seg seg = segs.get(segIndex);
-            
-            // Use geometry classes for visibility culling
-            if (!isSegmentVisible(seg, playerPos, playerAngle)) {
+        for (int segIndex = firstSeg; segIndex < lastSeg; segIndex++) {
+            // Use original BSP-style projection logic
+            if (!addSegmentToFov(segIndex)) {
                 continue;
             }
 
-            // Use original BSP-style projection logic
-            double[] segmentProjection = addSegmentToFov(seg, playerPos, playerAngle);
-            if (segmentProjection != null) {
-                // segmentProjection contains {x1, x2, rawWorldAngle1}
-                double screenX1 = segmentProjection[0];
-                double screenX2 = segmentProjection[1];
-                Angle rwAngle1 = Angle.degrees(segmentProjection[2]);
-
-                // Pass to segment handler for rendering
-                if (engine.getSegHandler() != null) {
-                    engine.getSegHandler().classifySegment(seg, screenX1, screenX2, rwAngle1);
+            // Pass to segment handler for rendering
+            if (segHandler != null) {
+                segHandler.classifySegment(segIndex, projectedX1, projectedX2, projectedAngle1, projectedHypotenuse);
+                if (segHandler.isScreenFull()) {
+                    this.isTraverseBsp = false; // Solid walls cover every column; the rest of the tree is hidden
+                    return;
                 }
             }
         }
     }
 
     /**
-     * Enhanced visibility test using geometry classes, based on original BSP logic.
+     * Segment projection as vanilla's R_AddLine, in unsigned BAM arithmetic. On success the
+     * screen range and the raw world angle and distance to the first vertex are left in
+     * projectedX1/projectedX2/projectedAngle1/projectedHypotenuse.
      */
-    private boolean isSegmentVisible(Seg seg, Point2D playerPos, Angle playerAngle) {
-        Point2D segStart = new Point2D(seg.startVertex.x(), seg.startVertex.y());
-        Point2D segEnd = new Point2D(seg.endVertex.x(), seg.endVertex.y());
-        
-        // Calculate angles to segment endpoints (similar to original pointToAngle)
-        Vector2D toStart = playerPos.vectorTo(segStart);
-        Vector2D toEnd = playerPos.vectorTo(segEnd);
-        
-        Angle angle1 = toStart.angle();
-        Angle angle2 = toEnd.angle();
-        
-        // Calculate span (similar to original logic)
-        double span = angle1.subtract(angle2).normalizeTo360().degrees();
-        
-        // Backface culling - if span >= 180, segment is facing away
-        if (span >= 180.0) {
-            return false;
-        }
-        
-        // Quick distance check
-        double distanceToStart = playerPos.distanceTo(segStart);
-        double distanceToEnd = playerPos.distanceTo(segEnd);
-        
-        // Skip very distant segments (simple LOD)
-        double maxRenderDistance = 2000.0; // Configurable
-        return !(distanceToStart > maxRenderDistance) || !(distanceToEnd > maxRenderDistance);
-    }
+    private boolean addSegmentToFov(int segIndex) {
+        int v1 = geometry.segStartVertex[segIndex];
+        int v2 = geometry.segEndVertex[segIndex];
+        if (v1 >= geometry.numVertexes || v2 >= geometry.numVertexes) return false;
 
-    /**
-     * Original BSP-style segment projection logic using geometry classes.
-     * Returns: {x1, x2, raw_world_angle1} or null
-     */
-    private double[] addSegmentToFov(Seg seg, Point2D playerPos, Angle playerAngle) {
-        Point2D vertex1 = new Point2D(seg.startVertex.x(), seg.startVertex.y());
-        Point2D vertex2 = new Point2D(seg.endVertex.x(), seg.endVertex.y());
-        
-        // Calculate angles to vertices (matching original pointToAngle)
-        double angle1 = pointToAngle(vertex1, playerPos); // World angle to vertex1
-        double angle2 = pointToAngle(vertex2, playerPos); // World angle to vertex2
-
-        double span = normalizeAngle360(angle1 - angle2);
+        int angle1 = transformVertex(v1); // World angle to vertex1
+        int angle2 = transformVertex(v2); // World angle to vertex2
 
         // Backface culling
-        if (span >= 180.0) {
-            return null; // Segment is facing away or edge-on
+        int span = angle1 - angle2;
+        if (Integer.compareUnsigned(span, Bam.ANG180) >= 0) {
+            return false; // Segment is facing away or edge-on
         }
 
-        // Store raw world angle for later use by SegHandler
-
-        // Clip to FOV
-        double pAngle = playerAngle.degrees();
-        double tAngle1 = normalizeAngle360(angle1 - pAngle); // Angle of v1 relative to player's view direction
-        double tAngle2 = normalizeAngle360(angle2 - pAngle); // Angle of v2 relative to player's view direction
-
-        double r1 = normalizeAngle180(tAngle1);
-        double r2 = normalizeAngle180(tAngle2);
-
-        if (r2 > Constants.H_FOV && r1 > r2) return null; // Both right, r1 further right
-        if (r2 < -Constants.H_FOV && r1 < r2) return null; // Both left, r1 further left
-
-        double cAngle1 = Math.max(-Constants.H_FOV, Math.min(Constants.H_FOV, r1));
-        double cAngle2 = Math.max(-Constants.H_FOV, Math.min(Constants.H_FOV, r2));
-
-        if (cAngle1 == cAngle2) return null; // Too small or outside
+        // Skip very distant segments (simple LOD)
+        if (vertexDistance[v1] > MAX_RENDER_DISTANCE && vertexDistance[v2] > MAX_RENDER_DISTANCE) {
+            return false;
+        }
 
-        double tempAngle1 = tAngle1; // tempAngle1 is relative to player's view, 0 is forward. Can be > 180.
-        double tempAngle2 = tAngle2;
+        int rwAngle1 = angle1;
+        angle1 -= viewAngle; // Relative to the view direction, positive to the left
+        angle2 -= viewAngle;
 
-        double s1 = normalizeAngle360(tempAngle1 + Constants.H_FOV); // Angle from left FOV edge (positive means inside or to the right)
-        if (s1 > Constants.FOV) { // tempAngle1 is to the left of the left FOV edge
-            if (s1 >= span + Constants.FOV) return null; // Segment entirely to the left of FOV
-            tempAngle1 = Constants.H_FOV; // Clip to left FOV edge
+        // Clip to FOV: angles wrap, so "outside" is one unsigned comparison per edge
+        int tSpan = angle1 + CLIP_ANGLE;
+        if (Integer.compareUnsigned(tSpan, 2 * CLIP_ANGLE) > 0) { // v1 is left of the view
+            tSpan -= 2 * CLIP_ANGLE;
+            if (Integer.compareUnsigned(tSpan, span) >= 0) return false; // Segment entirely to the left
+            angle1 = CLIP_ANGLE;
         }
-
-        double s2 = normalizeAngle360(Constants.H_FOV - tempAngle2); // Angle from right FOV edge (positive means inside or to the left)
-        if (s2 > Constants.FOV) { // tempAngle2 is to the right of the right FOV edge
-            if (s2 >= span + Constants.FOV) return null; // Segment entirely to the right of FOV
-            tempAngle2 = -Constants.H_FOV; // Clip to right FOV edge
+        tSpan = CLIP_ANGLE - angle2;
+        if (Integer.compareUnsigned(tSpan, 2 * CLIP_ANGLE) > 0) { // v2 is right of the view
+            tSpan -= 2 * CLIP_ANGLE;
+            if (Integer.compareUnsigned(tSpan, span) >= 0) return false; // Segment entirely to the right
+            angle2 = -CLIP_ANGLE;
         }
 
-        int x1 = angleToX(tempAngle1);
-        int x2 = angleToX(tempAngle2);
+        int x1 = angleToX(angle1);
+        int x2 = angleToX(angle2);
 
-        if (x1 == x2) return null; // Degenerate segment on screen
+        if (x1 == x2) return false; // Degenerate segment on screen
+        if (Math.max(x1, x2) < stripStart || Math.min(x1, x2) > stripEnd) return false; // Outside this strip
 
-        return new double[]{x1, x2, angle1}; // Use double for x1, x2 before passing to SegHandler
-    }
-    
-    /**
-     * Calculate angle to a point (matching original pointToAngle).
-     * Enhanced to use geometry classes.
-     */
-    private double pointToAngle(Point2D vertex, Point2D playerPos) {
-        Vector2D toVertex = playerPos.vectorTo(vertex);
-        Angle angle = toVertex.angle();
-        return normalizeAngle360(angle.degrees()); // Ensure 0-360 range
+        this.projectedX1 = x1;
+        this.projectedX2 = x2;
+        this.projectedAngle1 = rwAngle1; // Raw world angle for later use by SegHandler
+        this.projectedHypotenuse = vertexDistance[v1];
+        return true;
     }
-    
+
     /**
-     * Convert angle to screen coordinate (matching original angleToX).
+     * Computes the vertex's angle and distance from the view point, once per frame.
+     * @return the BAM world angle from the view point to the vertex
      */
-    private int angleToX(double angle) { // angle is relative to player's FOV center
-        return (int) (Constants.H_WIDTH - Math.tan(Math.toRadians(angle)) * Constants.SCREEN_DIST);
+    private int transformVertex(int v) {
+        if (vertexFrame[v] != frame) {
+            double dx = geometry.vertexX[v] - viewX;
+            double dy = geometry.vertexY[v] - viewY;
+            vertexAngle[v] = Bam.pointToAngle(dx, dy);
+            vertexDistance[v] = Math.sqrt(dx * dx + dy * dy);
+            vertexFrame[v] = frame;
+        }
+        return vertexAngle[v];
     }
     
     /**
-     * Normalize angle to [0, 360) range.
+     * BAM world angle from the view point to a map point (matching original pointToAngle).
      */
-    private double normalizeAngle360(double angle) {
-        angle %= 360.0;
-        if (angle < 0) angle += 360.0;
-        return angle;
+    private int pointToAngle(double x, double y) {
+        return Bam.pointToAngle(x - viewX, y - viewY);
     }
     
     /**
-     * Normalize angle to [-180, 180) range.
+     * Convert a view-relative BAM angle within the field of view to a screen column
+     * (matching original angleToX).
      */
-    private double normalizeAngle180(double angle) {
-        angle = normalizeAngle360(angle);
-        if (angle > 180.0) {
-            angle -= 360.0;
-        }
-        return angle;
+    private int angleToX(int angle) {
+        return (int) (viewSize.halfWidth - Bam.tan(angle) * viewSize.screenDist);
     }
 
     /**
@@ -438,18 +453,15 @@ public class BSP implements CollisionService {
         // Find the subsector containing this point by traversing the BSP tree
         int subSectorIndex = findSubSectorContainingPoint(x, y);
         
-        if (subSectorIndex < 0 || subSectorIndex >= subSectors.size()) {
+        if (subSectorIndex < 0 || subSectorIndex >= geometry.numSubSectors) {
             return 0.0; // Default height if subsector not found
         }
         
-        // Get the subsector and find its sector through one of its segments
-        SubSector subSector = subSectors.get(subSectorIndex);
-        
         // Get the first segment of this subsector to find the sector
-        if (subSector.firstSegId >= 0 && subSector.firstSegId < segs.size()) {
-            Seg seg = segs.get(subSector.firstSegId);
-            if (seg.frontSector != null) {
-                return seg.frontSector.floorHeight;
+        if (geometry.subSectorSegCount[subSectorIndex] > 0) {
+            int sectorId = geometry.segFrontSector[geometry.subSectorFirstSeg[subSectorIndex]];
+            if (sectorId >= 0) {
+                return sectors.get(sectorId).floorHeight;
             }
         }
         
@@ -463,7 +475,7 @@ public class BSP implements CollisionService {
      * @return Index of the subsector containing the point, or -1 if not found
      */
     private int findSubSectorContainingPoint(double x, double y) {
-        if (nodes.isEmpty()) {
+        if (geometry.numNodes == 0) {
             return -1;
         }
         
@@ -472,26 +484,20 @@ public class BSP implements CollisionService {
         // Traverse the BSP tree
         while ((nodeId & SUB_SECTOR_IDENTIFIER) == 0) {
             // This is a node, not a subsector
-            if (nodeId < 0 || nodeId >= nodes.size()) {
+            if (nodeId < 0 || nodeId >= geometry.numNodes) {
                 return -1; // Invalid node
             }
             
-            Node node = nodes.get(nodeId);
-            
             // Determine which side of the partition line the point is on
             // The partition line is defined by (xPartition, yPartition) + t * (dxPartition, dyPartition)
             // We use the cross product to determine the side
-            double dx = x - node.xPartition;
-            double dy = y - node.yPartition;
-            double cross = dx * node.dyPartition - dy * node.dxPartition;
+            double dx = x - geometry.nodeX[nodeId];
+            double dy = y - geometry.nodeY[nodeId];
+            double cross = dx * geometry.nodeDy[nodeId] - dy * geometry.nodeDx[nodeId];
             
             // If cross product is positive, point is on the front side (right side)
             // If negative, point is on the back side (left side)
-            if (cross >= 0) {
-                nodeId = node.frontChildId;
-            } else {
-                nodeId = node.backChildId;
-            }
+            nodeId = geometry.nodeChild(nodeId, cross >= 0 ? 0 : 1);
         }
         
         // We've reached a subsector (MSB is set)
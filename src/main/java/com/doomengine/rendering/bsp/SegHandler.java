@@ -1,16 +1,19 @@
 package com.doomengine.rendering.bsp;
 
-import com.doomengine.misc.Constants;
 import com.doomengine.geometry.*;
-import com.doomengine.game.Player;
+import com.doomengine.game.FrameSnapshot;
 import com.doomengine.game.DoomEngine;
 import com.doomengine.rendering.DrawSeg;
+import com.doomengine.rendering.FixedPoint;
+import com.doomengine.rendering.LightTables;
+import com.doomengine.rendering.PlaneRenderer;
 import com.doomengine.rendering.ViewRenderer;
+import com.doomengine.rendering.ViewSize;
+import com.doomengine.rendering.Visplane;
+import com.doomengine.wad.MapGeometry;
 import com.doomengine.wad.WADDataService;
-import com.doomengine.wad.datatypes.Linedef;
-import com.doomengine.wad.datatypes.Sector;
+import com.doomengine.wad.assets.IndexedImage;
 import com.doomengine.wad.datatypes.Seg;
-import com.doomengine.wad.datatypes.Sidedef;
 
 import java.util.*;
 
@@ -24,89 +27,113 @@ public class SegHandler {
 
     private final DoomEngine engine;
     private final WADDataService wadDataService;
-    private final Player player;
-    private final int[] framebuffer;
-    private final Map<String, int[][]> textures;
-    private final String skyId;
-
-    private Seg currentSeg;
-    private Angle rwAngle1; // Raw world angle to the start of the segment
-    private final Set<Integer> screenRange;
-    private final Angle[] xToAngleTable; // Using Angle class instead of double array
+    private final MapGeometry geometry;
+    private int[] framebuffer; // Render target of the frame being drawn
+    private final ViewSize viewSize; // Resolution the view is rendered at
+    private final boolean fixedPoint; // Step scale and texture columns across segs in 16.16 fixed point
+    private FrameSnapshot view; // Frame being drawn; sector heights and light are read from it
+
+    private final SegRenderCache renderCache;
+    private final FixedWallStep fixedStep = new FixedWallStep(); // Reused by every wall range
+
+    private int currentSegId;
+    private int currentFrontSectorId;
+    private int currentBackSectorId;
+    private int rwAngle1;  // BAM world angle from the view point to the start of the segment
+    private double rwHypotenuse; // Distance from the view point to the start of the segment
+    private int viewAngle; // BAM view direction for the frame being drawn
+    // Column ranges already covered by solid walls, as vanilla's solidsegs: sorted, disjoint,
+    // never adjacent, and bounded by sentinels just off both screen edges
+    private final int[] solidFirst;
+    private final int[] solidLast;
+    private int solidCount;
+    private final int[] xToAngle; // BAM angle of each screen column from the view centre
 
     // Clipping arrays for portal rendering
     private final int[] upperClip;
     private final int[] lowerClip;
     
-    // DrawSeg tracking for sprite occlusion
+    // Walls and portals drawn this frame, for clipping sprites
     private final List<DrawSeg> drawSegs;
 
+    // Screen columns this handler draws (inclusive) and where it records floors and ceilings
+    private final int stripStart;
+    private final int stripEnd;
+    private final PlaneRenderer planeRenderer;
+
     public SegHandler(DoomEngine engine) {
+        this(engine, 0, engine.getViewSize().width - 1, engine.getViewRenderer().getPlaneRenderer());
+    }
+
+    /**
+     * A handler for one vertical strip of the screen, for parallel rendering: columns outside
+     * stripStart..stripEnd start out covered, so walls there are never drawn.
+     */
+    public SegHandler(DoomEngine engine, int stripStart, int stripEnd, PlaneRenderer planeRenderer) {
         this.engine = engine;
+        this.stripStart = stripStart;
+        this.stripEnd = stripEnd;
+        this.planeRenderer = planeRenderer;
         this.wadDataService = engine.getWadData();
-        this.player = engine.getPlayer();
-        this.framebuffer = engine.getFramebuffer();
-        this.textures = this.wadDataService.assetData.textures;
-        this.skyId = this.wadDataService.assetData.skyId;
-
-        this.xToAngleTable = createXToAngleTable();
-        this.upperClip = new int[Constants.WIDTH];
-        this.lowerClip = new int[Constants.WIDTH];
-        this.screenRange = new HashSet<>();
+        this.geometry = this.wadDataService.geometry;
+        this.renderCache = engine.getSegRenderCache();
+        this.viewSize = engine.getViewSize();
+        this.fixedPoint = engine.isFixedPointRendering();
+
+        this.xToAngle = createXToAngleTable(viewSize);
+        this.upperClip = new int[viewSize.width];
+        this.lowerClip = new int[viewSize.width];
+        this.solidFirst = new int[viewSize.width / 2 + 3]; // Worst case: every other column covered
+        this.solidLast = new int[viewSize.width / 2 + 3];
         this.drawSegs = new ArrayList<>();
     }
 
-    public void update() {
+    public void update(FrameSnapshot view, int[] framebuffer) {
+        this.view = view;
+        this.framebuffer = framebuffer;
+        this.viewAngle = Bam.fromDegrees(view.viewAngle);
         initFloorCeilClipHeight();
         initScreenRange();
         drawSegs.clear();
     }
     
-    // Compatibility method for ViewRenderer which expects double[]
-    public double[] getXToAngleTable() {
-        double[] doubleArray = new double[xToAngleTable.length];
-        for (int i = 0; i < xToAngleTable.length; i++) {
-            doubleArray[i] = xToAngleTable[i].degrees();
+    /**
+     * Angle of each screen column from the view centre in degrees, positive to the left.
+     */
+    public static double[] createXToAngleDegrees(ViewSize viewSize) {
+        double[] degrees = new double[viewSize.width + 1];
+        for (int i = 0; i <= viewSize.width; i++) {
+            degrees[i] = Math.toDegrees(Math.atan2((double) viewSize.halfWidth - i, viewSize.screenDist));
         }
-        return doubleArray;
-    }
-    
-    // Direct access to the Angle array for geometry-aware code
-    public Angle[] getXToAngleTableAsAngles() {
-        return xToAngleTable;
+        return degrees;
     }
 
     private void initFloorCeilClipHeight() {
         Arrays.fill(upperClip, -1);
-        Arrays.fill(lowerClip, Constants.HEIGHT);
+        Arrays.fill(lowerClip, viewSize.height);
     }
 
     /**
-     * Creates the x-to-angle table using the new Angle class for better type safety.
+     * Creates the x-to-angle table as vanilla's xtoviewangle, in BAM.
      */
-    private static Angle[] createXToAngleTable() {
-        Angle[] table = new Angle[Constants.WIDTH + 1];
-        for (int i = 0; i <= Constants.WIDTH; i++) {
-            // Angle of screen column i relative to view center
-            double angleRad = Math.atan2((double) Constants.H_WIDTH - i, Constants.SCREEN_DIST);
-            table[i] = Angle.radians(angleRad);
+    private static int[] createXToAngleTable(ViewSize viewSize) {
+        double[] degrees = createXToAngleDegrees(viewSize);
+        int[] table = new int[degrees.length];
+        for (int i = 0; i < degrees.length; i++) {
+            table[i] = Bam.fromDegrees(degrees[i]);
         }
         return table;
     }
 
     /**
-     * Enhanced scale calculation using geometry classes for cleaner code.
+     * Scale of the wall at screen column x, as vanilla's R_ScaleFromGlobalAngle.
      */
-    private double scaleFromGlobalAngle(int x, Angle rwNormalAngle, double rwDistance) {
-        Angle xAngle = this.xToAngleTable[x];
-        Angle playerAngle = Angle.degrees(player.angle);
-        
-        // Calculate the angle between wall normal and ray to screen column x
-        Angle angleDiff = rwNormalAngle.subtract(playerAngle).subtract(xAngle);
-        double cosTheta = angleDiff.cos();
+    private double scaleFromGlobalAngle(int x, int rwNormalAngle, double rwDistance) {
+        int xAngle = this.xToAngle[x];
 
-        double numerator = Constants.SCREEN_DIST * cosTheta;
-        double denominator = rwDistance * xAngle.cos();
+        // Cosine of the angle between wall normal and ray to screen column x
+        double numerator = viewSize.screenDist * Bam.cos(rwNormalAngle - viewAngle - xAngle);
+        double denominator = rwDistance * Bam.cos(xAngle);
 
         if (Math.abs(denominator) < 1e-6) return MAX_SCALE;
 
@@ -114,19 +141,82 @@ public class SegHandler {
         return GeometryUtils.clamp(scale, MIN_SCALE, MAX_SCALE);
     }
 
-    private void initScreenRange() {
-        this.screenRange.clear();
-        for (int i = 0; i < Constants.WIDTH; i++) {
-            this.screenRange.add(i);
+    private double textureColumnAt(int x, int rwCenterAngle, double rwDistance, double rwOffset) {
+        return rwDistance * Bam.tan(rwCenterAngle - xToAngle[x]) - rwOffset;
+    }
+
+    /**
+     * Scale and texture column stepped across a seg in 16.16 fixed point, like vanilla's
+     * rw_scalestep. For a flat wall both 1/depth and texture column / depth are linear in
+     * screen x, so only the two endpoints need trigonometry.
+     */
+    private static final class FixedWallStep {
+        private int x1;
+        private int scale1;
+        private int scaleStep;
+        private long columnScale1;    // Texture column times fixed scale at x1
+        private long columnScaleStep;
+
+        FixedWallStep set(int x1, int x2, double scale1, double scale2, double column1, double column2) {
+            int span = Math.max(1, x2 - x1);
+            this.x1 = x1;
+            this.scale1 = FixedPoint.toFixed(scale1);
+            this.scaleStep = (FixedPoint.toFixed(scale2) - this.scale1) / span;
+            this.columnScale1 = Math.round(column1 * this.scale1);
+            this.columnScaleStep = (Math.round(column2 * FixedPoint.toFixed(scale2)) - this.columnScale1) / span;
+            return this;
+        }
+
+        int scale(int x) {
+            return Math.max(1, scale1 + (x - x1) * scaleStep);
         }
+
+        int textureColumn(int x, int scale) {
+            return (int) Math.floorDiv(columnScale1 + (x - x1) * columnScaleStep, (long) scale);
+        }
+    }
+
+    private void initScreenRange() {
+        solidFirst[0] = Integer.MIN_VALUE;
+        solidLast[0] = stripStart - 1;
+        solidFirst[1] = stripEnd + 1;
+        solidLast[1] = Integer.MAX_VALUE;
+        solidCount = 2;
+    }
+
+    /**
+     * True once solid walls cover every column (of the strip), so nothing further back can be visible.
+     */
+    public boolean isScreenFull() {
+        return solidCount == 1; // Both sentinels merged into one range
+    }
+
+    /**
+     * True if solid walls already cover every column first..last, so nothing behind them
+     * in that range can be visible. Columns outside the strip count as covered.
+     */
+    public boolean isRangeCovered(int first, int last) {
+        int start = 0;
+        while (solidLast[start] < last) start++;
+        return first >= solidFirst[start];
     }
 
     /**
      * Enhanced segment classification using geometry classes.
+     *
+     * @param rwAngle1    BAM world angle from the view point to the seg's start vertex
+     * @param rwHypotenuse distance from the view point to the seg's start vertex
      */
-    public void classifySegment(Seg seg, double screenX1, double screenX2, Angle rwAngle1) {
-        this.currentSeg = seg;
+    public void classifySegment(int segId, double screenX1, double screenX2, int rwAngle1, double rwHypotenuse) {
+        int frontSectorId = geometry.segFrontSector[segId];
+        if (frontSectorId < 0) return; // Unresolved seg, nothing to draw
+        int backSectorId = geometry.segBackSector[segId];
+
+        this.currentSegId = segId;
+        this.currentFrontSectorId = frontSectorId;
+        this.currentBackSectorId = backSectorId;
         this.rwAngle1 = rwAngle1;
+        this.rwHypotenuse = rwHypotenuse;
 
         int x1 = (int) Math.round(screenX1);
         int x2 = (int) Math.round(screenX2);
@@ -139,18 +229,15 @@ public class SegHandler {
         }
 
         // Clip to screen bounds using geometry utilities
-        x1 = GeometryUtils.clamp(x1, 0, Constants.WIDTH - 1);
-        x2 = GeometryUtils.clamp(x2, 0, Constants.WIDTH - 1);
+        x1 = GeometryUtils.clamp(x1, 0, viewSize.width - 1);
+        x2 = GeometryUtils.clamp(x2, 0, viewSize.width - 1);
 
         if (x1 >= x2) return;
 
-        Sector frontSector = seg.frontSector;
-        Sector backSector = seg.backSector;
-
-        if (backSector == null) {
+        if (currentBackSectorId < 0) {
             clipSolidWalls(x1, x2);
         } else {
-            clipPortalWalls(x1, x2);
+            clipPortalWalls(x1, x2 - 1);
         }
     }
 
@@ -160,93 +247,109 @@ public class SegHandler {
     private void drawSolidWallRange(int x1, int x2) {
         if (x1 > x2) return;
 
-        Seg seg = this.currentSeg;
-        Sector frontSector = seg.frontSector;
-        Linedef line = seg.linedef;
-        Sidedef side = line.frontSidedef;
+        int segId = this.currentSegId;
+        int frontCeilHeight = view.ceilHeight(currentFrontSectorId);
+        int frontFloorHeight = view.floorHeight(currentFrontSectorId);
+        double frontLight = view.lightLevel(currentFrontSectorId);
+        SegRenderCache cache = this.renderCache;
         ViewRenderer renderer = engine.getViewRenderer();
 
-        String wallTextureId = side.middleTexture;
-        String ceilTextureId = frontSector.ceilTexture;
-        String floorTextureId = frontSector.floorTexture;
-        double lightLevel = frontSector.lightLevel;
+        IndexedImage wallTexture = cache.middleTexture[segId];
+        int ceilFlat = cache.ceilFlat[currentFrontSectorId];
+        int floorFlat = cache.floorFlat[currentFrontSectorId];
+        LightTables lights = renderer.getLightTables();
+        int planeLight = LightTables.lightLevel(frontLight, 0);
+        int wallLight = LightTables.lightLevel(frontLight, cache.contrast[segId]);
 
-        double playerEyeLevel = player.getEyeLevelViewZ();
-        double worldFrontZ1 = frontSector.ceilHeight - playerEyeLevel;
-        double worldFrontZ2 = frontSector.floorHeight - playerEyeLevel;
+        double playerEyeLevel = view.viewZ;
+        double worldFrontZ1 = frontCeilHeight - playerEyeLevel;
+        double worldFrontZ2 = frontFloorHeight - playerEyeLevel;
 
-        boolean bDrawWall = !"-".equals(wallTextureId) && textures.containsKey(wallTextureId);
-        boolean bDrawCeil = worldFrontZ1 > 0 || ceilTextureId.equals(this.skyId);
+        boolean bDrawWall = wallTexture != null;
+        boolean bDrawCeil = worldFrontZ1 > 0 || cache.skyCeiling[currentFrontSectorId];
         boolean bDrawFloor = worldFrontZ2 < 0;
 
-        // Use geometry classes for cleaner angle and distance calculations
-        Angle segAngle = Angle.degrees(seg.angle);
-        Angle rwNormalAngle = segAngle.add(Angle.degrees(90)); // Wall normal
-        Angle offsetAngle = rwNormalAngle.subtract(this.rwAngle1);
-
-        // Create points for distance calculation
-        Point2D playerPos = new Point2D(player.pos.x(), player.pos.y());
-        Point2D segStart = new Point2D(seg.startVertex.x(), seg.startVertex.y());
-        
-        double hypotenuse = playerPos.distanceTo(segStart);
-        double rwDistance = hypotenuse * offsetAngle.cos(); // Perpendicular distance to wall
+        // Floor and ceiling rows are only recorded here; PlaneRenderer draws them as spans after the walk
+        PlaneRenderer planes = this.planeRenderer;
+        Visplane ceilingPlane = bDrawCeil ?
+                planes.checkPlane(planes.findPlane(frontCeilHeight, ceilFlat, cache.flatImage[ceilFlat], planeLight), x1, x2) : null;
+        Visplane floorPlane = bDrawFloor ?
+                planes.checkPlane(planes.findPlane(frontFloorHeight, floorFlat, cache.flatImage[floorFlat], planeLight), x1, x2) : null;
+
+        int rwNormalAngle = geometry.segNormalAngle[segId];
+        int offsetAngle = rwNormalAngle - this.rwAngle1;
+        double hypotenuse = this.rwHypotenuse;
+        double rwDistance = hypotenuse * Bam.cos(offsetAngle); // Perpendicular distance to wall
         if (rwDistance < MIN_SCALE) rwDistance = MIN_SCALE;
 
-        double rwScale1 = scaleFromGlobalAngle(x1, rwNormalAngle, rwDistance);
-
-        // Apply the stretched line bug fix using geometry utilities
-        double positiveOffsetAngle = offsetAngle.normalizeTo360().degrees();
-        boolean applyStretchFix = GeometryUtils.approximately(positiveOffsetAngle, 90.0, 1.0);
-        if (applyStretchFix) {
-        }
+        // Stretched line bug fix: the view is almost in line with the wall
+        boolean applyStretchFix = Math.abs(offsetAngle - Bam.ANG90) <= Bam.ANG1;
 
         // Note: We'll calculate scale per-column instead of interpolating linearly
         // This fixes the wall height inaccuracy bug when moving back from walls
 
-        int[][] wallTexture = bDrawWall ? textures.get(wallTextureId) : null;
         double middleTexAlt = 0;
         if (bDrawWall) {
-            if ((line.flags & WADDataService.LINEDEF_FLAGS_MAP.get("DONT_PEG_BOTTOM")) != 0) {
-                middleTexAlt = (frontSector.floorHeight + wallTexture[0].length) - playerEyeLevel;
+            if (cache.lowerUnpegged[segId]) {
+                middleTexAlt = (frontFloorHeight + wallTexture.height) - playerEyeLevel;
             } else {
                 middleTexAlt = worldFrontZ1;
             }
-            middleTexAlt += side.yOffset;
+            middleTexAlt += cache.textureYOffset[segId];
         }
 
-        double rwOffset = hypotenuse * offsetAngle.sin();
-        rwOffset += seg.offset + side.xOffset;
-
-        Angle playerAngle = Angle.degrees(player.angle);
-        Angle rwCenterAngle = rwNormalAngle.subtract(playerAngle);
+        double rwOffset = hypotenuse * Bam.sin(offsetAngle) + cache.textureXOffset[segId];
+
+        int rwCenterAngle = rwNormalAngle - viewAngle;
+
+        FixedWallStep fixedStep = null;
+        int frontZ1Fixed = 0, frontZ2Fixed = 0, middleTexAltFixed = 0;
+        if (fixedPoint) {
+            double stretch = applyStretchFix ? 0.01 : 1.0;
+            fixedStep = this.fixedStep.set(x1, x2,
+                    scaleFromGlobalAngle(x1, rwNormalAngle, rwDistance) * stretch,
+                    scaleFromGlobalAngle(x2, rwNormalAngle, rwDistance) * stretch,
+                    textureColumnAt(x1, rwCenterAngle, rwDistance, rwOffset),
+                    textureColumnAt(x2, rwCenterAngle, rwDistance, rwOffset));
+            frontZ1Fixed = FixedPoint.toFixed(worldFrontZ1);
+            frontZ2Fixed = FixedPoint.toFixed(worldFrontZ2);
+            middleTexAltFixed = FixedPoint.toFixed(middleTexAlt);
+        }
 
         for (int x = x1; x <= x2; x++) {
-            if (!screenRange.contains(x)) continue;
-
             int curUpperClip = upperClip[x];
             int curLowerClip = lowerClip[x];
 
-            // Calculate accurate scale for this specific column
-            double currentScale = scaleFromGlobalAngle(x, rwNormalAngle, rwDistance);
-            
-            // Apply stretch fix if needed
-            if (applyStretchFix) {
-                currentScale *= 0.01;
-            }
+            double currentScale;
+            int fixedScale = 0;
+            int drawWallY1, drawWallY2;
+            if (fixedStep != null) {
+                fixedScale = fixedStep.scale(x);
+                currentScale = FixedPoint.toDouble(fixedScale);
+                drawWallY1 = FixedPoint.projectY(frontZ1Fixed, fixedScale, viewSize);
+                drawWallY2 = FixedPoint.projectY(frontZ2Fixed, fixedScale, viewSize);
+            } else {
+                // Calculate accurate scale for this specific column
+                currentScale = scaleFromGlobalAngle(x, rwNormalAngle, rwDistance);
 
-            // Calculate wall Y positions using the accurate scale for this column
-            double wallY1 = Constants.H_HEIGHT - worldFrontZ1 * currentScale;
-            double wallY2 = Constants.H_HEIGHT - worldFrontZ2 * currentScale;
+                // Apply stretch fix if needed
+                if (applyStretchFix) {
+                    currentScale *= 0.01;
+                }
+
+                // Calculate wall Y positions using the accurate scale for this column
+                double wallY1 = viewSize.halfHeight - worldFrontZ1 * currentScale;
+                double wallY2 = viewSize.halfHeight - worldFrontZ2 * currentScale;
 
-            int drawWallY1 = (int) Math.round(wallY1);
-            int drawWallY2 = (int) Math.round(wallY2);
+                drawWallY1 = (int) Math.round(wallY1);
+                drawWallY2 = (int) Math.round(wallY2);
+            }
 
             if (bDrawCeil) {
                 int cy1 = curUpperClip + 1;
                 int cy2 = Math.min(drawWallY1 - 1, curLowerClip - 1);
                 if (cy1 <= cy2) {
-                    renderer.drawFlat(framebuffer, ceilTextureId, lightLevel, x, cy1, cy2, 
-                                    frontSector.ceilHeight, xToAngleTable[x].degrees());
+                    ceilingPlane.mark(x, cy1, cy2);
                 }
             }
 
@@ -254,15 +357,18 @@ public class SegHandler {
                 int wy1 = Math.max(drawWallY1, curUpperClip + 1);
                 int wy2 = Math.min(drawWallY2 - 1, curLowerClip - 1);
 
-                if (wy1 <= wy2) {
-                    Angle angle = rwCenterAngle.subtract(xToAngleTable[x]);
-                    double textureColumn = rwDistance * angle.tan() - rwOffset;
+                if (wy1 <= wy2 && fixedStep != null) {
+                    ViewRenderer.drawWallColumnFixed(viewSize, framebuffer, wallTexture,
+                                              lights.forScale(wallLight, currentScale),
+                                              fixedStep.textureColumn(x, fixedScale), x, wy1, wy2, middleTexAltFixed,
+                                              FixedPoint.div(FixedPoint.FRAC_UNIT, fixedScale));
+                } else if (wy1 <= wy2) {
+                    double textureColumn = textureColumnAt(x, rwCenterAngle, rwDistance, rwOffset);
                     double invScale = 1.0 / currentScale;
-                    double columnDepth = Constants.SCREEN_DIST / currentScale;
-                    
-                    ViewRenderer.drawWallColumn(framebuffer, engine.getDepthBuffer(), wallTexture, 
-                                              textureColumn, x, wy1, wy2, middleTexAlt, invScale, 
-                                              lightLevel, columnDepth);
+
+                    ViewRenderer.drawWallColumn(viewSize, framebuffer, wallTexture,
+                                              lights.forScale(wallLight, currentScale),
+                                              textureColumn, x, wy1, wy2, middleTexAlt, invScale);
                 }
             }
 
@@ -270,72 +376,120 @@ public class SegHandler {
                 int fy1 = Math.max(drawWallY2, curUpperClip + 1);
                 int fy2 = curLowerClip - 1;
                 if (fy1 <= fy2) {
-                    renderer.drawFlat(framebuffer, floorTextureId, lightLevel, x, fy1, fy2, 
-                                    frontSector.floorHeight, xToAngleTable[x].degrees());
+                    floorPlane.mark(x, fy1, fy2);
                 }
             }
             
             // Update clipping arrays for solid walls
-            upperClip[x] = Constants.HEIGHT - 1;
+            upperClip[x] = viewSize.height - 1;
             lowerClip[x] = 0;
         }
         
-        // Create DrawSeg for this solid wall segment
-        double avgScale = (scaleFromGlobalAngle(x1, rwNormalAngle, rwDistance) + scaleFromGlobalAngle(x2, rwNormalAngle, rwDistance)) / 2.0;
-        createDrawSeg(x1, x2, avgScale, false, null);
+        // A solid wall hides every sprite behind it
+        createDrawSeg(x1, x2, scaleFromGlobalAngle(x1, rwNormalAngle, rwDistance),
+                scaleFromGlobalAngle(x2, rwNormalAngle, rwDistance),
+                DrawSeg.SIL_BOTH, Double.MAX_VALUE, -Double.MAX_VALUE);
     }
 
     /**
-     * Creates a DrawSeg with proper occlusion information.
+     * Records the seg just drawn for sprite clipping, with the silhouette rows taken from the
+     * clip arrays as they are after its columns were drawn.
      */
-    private void createDrawSeg(int x1, int x2, double scale, boolean isMasked, String maskedTextureName) {
-        DrawSeg drawSeg = new DrawSeg(x1, x2, scale, isMasked, maskedTextureName, Constants.HEIGHT);
-        
-        // Fill occlusion arrays based on current clipping state
-        for (int x = x1; x <= x2; x++) {
-            int index = x - x1;
-            if (index >= 0 && index < drawSeg.sprtopclip.length) {
-                drawSeg.sprtopclip[index] = (short) upperClip[x];
-                drawSeg.sprbottomclip[index] = (short) lowerClip[x];
-            }
-        }
-        
-        drawSegs.add(drawSeg);
+    private void createDrawSeg(int x1, int x2, double scale1, double scale2, int silhouette,
+                               double bottomSilHeight, double topSilHeight) {
+        int[] sprTopClip = (silhouette & DrawSeg.SIL_TOP) != 0 ? Arrays.copyOfRange(upperClip, x1, x2 + 1) : null;
+        int[] sprBottomClip = (silhouette & DrawSeg.SIL_BOTTOM) != 0 ? Arrays.copyOfRange(lowerClip, x1, x2 + 1) : null;
+        drawSegs.add(new DrawSeg(currentSegId, x1, x2, scale1, scale2, silhouette,
+                bottomSilHeight, topSilHeight, sprTopClip, sprBottomClip));
+    }
+
+    /**
+     * Walls and portals drawn this frame, nearest first, for clipping sprites.
+     */
+    public List<DrawSeg> getDrawSegs() {
+        return drawSegs;
     }
 
     // Placeholder methods for portal walls and clipping - these would be implemented similarly
-    private void clipSolidWalls(int x1, int x2) {
-        drawSolidWallRange(x1, x2);
-        // Remove drawn columns from screen range
-        for (int x = x1; x <= x2; x++) {
-            screenRange.remove(x);
+    /**
+     * Draws the parts of a solid wall not yet covered and adds its columns to the solid ranges
+     * (R_ClipSolidWallSegment). Cost is proportional to the ranges it overlaps.
+     */
+    private void clipSolidWalls(int first, int last) {
+        int start = 0;
+        while (solidLast[start] < first - 1) start++;
+
+        if (first < solidFirst[start]) {
+            if (last < solidFirst[start] - 1) {
+                // Entirely in front of this range: draw it all and insert a new range
+                drawSolidWallRange(first, last);
+                System.arraycopy(solidFirst, start, solidFirst, start + 1, solidCount - start);
+                System.arraycopy(solidLast, start, solidLast, start + 1, solidCount - start);
+                solidFirst[start] = first;
+                solidLast[start] = last;
+                solidCount++;
+                return;
+            }
+            // Visible fragment to the left of the range; the range grows to cover it
+            drawSolidWallRange(first, solidFirst[start] - 1);
+            solidFirst[start] = first;
         }
+
+        if (last <= solidLast[start]) return; // Remaining part already covered
+
+        int next = start;
+        while (last >= solidFirst[next + 1] - 1) {
+            // Fill the gap up to the next range, then swallow it
+            drawSolidWallRange(solidLast[next] + 1, solidFirst[next + 1] - 1);
+            next++;
+            if (last <= solidLast[next]) {
+                solidLast[start] = solidLast[next];
+                removeSolidRanges(start, next);
+                return;
+            }
+        }
+
+        // Visible fragment past the last overlapped range
+        drawSolidWallRange(solidLast[next] + 1, last);
+        solidLast[start] = last;
+        removeSolidRanges(start, next);
+    }
+
+    // Drops ranges start+1..next, now merged into start
+    private void removeSolidRanges(int start, int next) {
+        if (next == start) return;
+        System.arraycopy(solidFirst, next + 1, solidFirst, start + 1, solidCount - next - 1);
+        System.arraycopy(solidLast, next + 1, solidLast, start + 1, solidCount - next - 1);
+        solidCount -= next - start;
     }
 
-    private void clipPortalWalls(int xStart, int xEnd) { // xEnd is exclusive
-        if (xStart >= xEnd) return;
+    /**
+     * Draws the parts of a see-through wall not covered by solid walls, leaving the solid
+     * ranges unchanged (R_ClipPassWallSegment).
+     */
+    private void clipPortalWalls(int first, int last) {
+        if (first > last) return;
+
+        int start = 0;
+        while (solidLast[start] < first - 1) start++;
 
-        List<Integer> intersection = new ArrayList<>();
-        for (int x = xStart; x < xEnd; x++) {
-            if (screenRange.contains(x)) {
-                intersection.add(x);
+        if (first < solidFirst[start]) {
+            if (last < solidFirst[start] - 1) {
+                drawPortalWallRange(first, last);
+                return;
             }
+            drawPortalWallRange(first, solidFirst[start] - 1);
         }
-        if (intersection.isEmpty()) return;
-        Collections.sort(intersection);
-
-        int currentRunStart = -1;
-        for (int i = 0; i < intersection.size(); i++) {
-            int x = intersection.get(i);
-            if (currentRunStart == -1) {
-                currentRunStart = x;
-            }
-            if (i + 1 == intersection.size() || intersection.get(i + 1) != x + 1) {
-                // End of a contiguous run
-                drawPortalWallRange(currentRunStart, x); // x is inclusive here
-                currentRunStart = -1;
-            }
+
+        if (last <= solidLast[start]) return;
+
+        while (last >= solidFirst[start + 1] - 1) {
+            drawPortalWallRange(solidLast[start] + 1, solidFirst[start + 1] - 1);
+            start++;
+            if (last <= solidLast[start]) return;
         }
+
+        drawPortalWallRange(solidLast[start] + 1, last);
     }
 
     /**
@@ -344,131 +498,165 @@ public class SegHandler {
     private void drawPortalWallRange(int x1, int x2) { // x2 is inclusive
         if (x1 > x2) return;
 
-        Seg seg = this.currentSeg;
-        Sector frontSector = seg.frontSector;
-        Sector backSector = seg.backSector;
-        Linedef line = seg.linedef;
-        Sidedef side = line.frontSidedef;
+        int segId = this.currentSegId;
+        int frontCeilHeight = view.ceilHeight(currentFrontSectorId);
+        int frontFloorHeight = view.floorHeight(currentFrontSectorId);
+        double frontLight = view.lightLevel(currentFrontSectorId);
+        int backCeilHeight = view.ceilHeight(currentBackSectorId);
+        int backFloorHeight = view.floorHeight(currentBackSectorId);
+        double backLight = view.lightLevel(currentBackSectorId);
+        SegRenderCache cache = this.renderCache;
         ViewRenderer renderer = engine.getViewRenderer();
 
-        String upperWallTexId = side.upperTexture;
-        String lowerWallTexId = side.lowerTexture;
-        String ceilTexId = frontSector.ceilTexture;
-        String floorTexId = frontSector.floorTexture;
-        double light = frontSector.lightLevel;
-
-        // Use player's current eye level for Z calculations
-        double playerEyeLevel = player.getEyeLevelViewZ();
-        double worldFrontZ1 = frontSector.ceilHeight - playerEyeLevel;
-        double worldBackZ1 = backSector.ceilHeight - playerEyeLevel;
-        double worldFrontZ2 = frontSector.floorHeight - playerEyeLevel;
-        double worldBackZ2 = backSector.floorHeight - playerEyeLevel;
-
-        if (frontSector.ceilTexture.equals(this.skyId) &&
-                backSector.ceilTexture.equals(this.skyId)) {
+        IndexedImage upperTexture = cache.upperTexture[segId];
+        IndexedImage lowerTexture = cache.lowerTexture[segId];
+        int ceilFlat = cache.ceilFlat[currentFrontSectorId];
+        int floorFlat = cache.floorFlat[currentFrontSectorId];
+        LightTables lights = renderer.getLightTables();
+        int planeLight = LightTables.lightLevel(frontLight, 0);
+        int wallLight = LightTables.lightLevel(frontLight, cache.contrast[segId]);
+
+        // Use the snapshot's eye level for Z calculations
+        double playerEyeLevel = view.viewZ;
+        double worldFrontZ1 = frontCeilHeight - playerEyeLevel;
+        double worldBackZ1 = backCeilHeight - playerEyeLevel;
+        double worldFrontZ2 = frontFloorHeight - playerEyeLevel;
+        double worldBackZ2 = backFloorHeight - playerEyeLevel;
+
+        if (cache.skyCeiling[currentFrontSectorId] && cache.skyCeiling[currentBackSectorId]) {
             worldFrontZ1 = worldBackZ1; // Sky hack
         }
 
         boolean bDrawUpperWall = false, bDrawCeil = false;
         if (worldFrontZ1 != worldBackZ1 ||
-                !frontSector.ceilTexture.equals(backSector.ceilTexture) ||
-                frontSector.lightLevel != backSector.lightLevel) {
-            bDrawCeil = worldFrontZ1 > 0 || ceilTexId.equals(this.skyId);
-            bDrawUpperWall = !"-".equals(upperWallTexId) && textures.containsKey(upperWallTexId);
+                ceilFlat != cache.ceilFlat[currentBackSectorId] ||
+                frontLight != backLight) {
+            bDrawCeil = worldFrontZ1 > 0 || cache.skyCeiling[currentFrontSectorId];
+            bDrawUpperWall = upperTexture != null;
         }
 
         boolean bDrawLowerWall = false, bDrawFloor = false;
         if (worldFrontZ2 != worldBackZ2 ||
-                !frontSector.floorTexture.equals(backSector.floorTexture) ||
-                frontSector.lightLevel != backSector.lightLevel) {
+                floorFlat != cache.floorFlat[currentBackSectorId] ||
+                frontLight != backLight) {
             bDrawFloor = worldFrontZ2 < 0;
-            bDrawLowerWall = !"-".equals(lowerWallTexId) && textures.containsKey(lowerWallTexId);
+            bDrawLowerWall = lowerTexture != null;
         }
 
-        // Enhanced geometry calculations using geometry classes
-        Angle segAngle = Angle.degrees(seg.angle);
-        Angle rwNormalAngle = segAngle.add(Angle.degrees(90)); // Wall normal
-        Angle offsetAngle = rwNormalAngle.subtract(this.rwAngle1);
+        PlaneRenderer planes = this.planeRenderer;
+        Visplane ceilingPlane = bDrawCeil ?
+                planes.checkPlane(planes.findPlane(frontCeilHeight, ceilFlat, cache.flatImage[ceilFlat], planeLight), x1, x2) : null;
+        Visplane floorPlane = bDrawFloor ?
+                planes.checkPlane(planes.findPlane(frontFloorHeight, floorFlat, cache.flatImage[floorFlat], planeLight), x1, x2) : null;
 
-        Point2D playerPos = new Point2D(player.pos.x(), player.pos.y());
-        Point2D segStart = new Point2D(seg.startVertex.x(), seg.startVertex.y());
-        
-        double hypotenuse = playerPos.distanceTo(segStart);
-        double rwDistance = hypotenuse * offsetAngle.cos();
+        int rwNormalAngle = geometry.segNormalAngle[segId];
+        int offsetAngle = rwNormalAngle - this.rwAngle1;
+        double hypotenuse = this.rwHypotenuse;
+        double rwDistance = hypotenuse * Bam.cos(offsetAngle);
         if (rwDistance < MIN_SCALE) rwDistance = MIN_SCALE;
 
         // Note: We'll calculate scale per-column instead of interpolating linearly
         // This fixes the wall height inaccuracy bug when moving back from walls
 
-        // Texture setup for upper and lower walls
-        int[][] upperTexture = bDrawUpperWall ? textures.get(upperWallTexId) : null;
-        int[][] lowerTexture = bDrawLowerWall ? textures.get(lowerWallTexId) : null;
-        
+        // Texture alignment for upper and lower walls
         double upperTexAlt = 0, lowerTexAlt = 0;
         if (bDrawUpperWall) {
-            if ((line.flags & WADDataService.LINEDEF_FLAGS_MAP.get("DONT_PEG_TOP")) != 0) {
+            if (cache.upperUnpegged[segId]) {
                 upperTexAlt = worldFrontZ1;
             } else {
-                upperTexAlt = worldBackZ1 + upperTexture[0].length;
+                upperTexAlt = worldBackZ1 + upperTexture.height;
             }
-            upperTexAlt += side.yOffset;
+            upperTexAlt += cache.textureYOffset[segId];
         }
         
         if (bDrawLowerWall) {
-            if ((line.flags & WADDataService.LINEDEF_FLAGS_MAP.get("DONT_PEG_BOTTOM")) != 0) {
+            if (cache.lowerUnpegged[segId]) {
                 lowerTexAlt = worldFrontZ1;
             } else {
                 lowerTexAlt = worldBackZ2;
             }
-            lowerTexAlt += side.yOffset;
+            lowerTexAlt += cache.textureYOffset[segId];
         }
 
-        double rwOffset = hypotenuse * offsetAngle.sin();
-        rwOffset += seg.offset + side.xOffset;
-
-        Angle playerAngle = Angle.degrees(player.angle);
-        Angle rwCenterAngle = rwNormalAngle.subtract(playerAngle);
+        double rwOffset = hypotenuse * Bam.sin(offsetAngle) + cache.textureXOffset[segId];
+
+        int rwCenterAngle = rwNormalAngle - viewAngle;
+
+        FixedWallStep fixedStep = null;
+        int frontZ1Fixed = 0, frontZ2Fixed = 0, backZ1Fixed = 0, backZ2Fixed = 0;
+        int upperTexAltFixed = 0, lowerTexAltFixed = 0;
+        if (fixedPoint) {
+            fixedStep = this.fixedStep.set(x1, x2,
+                    scaleFromGlobalAngle(x1, rwNormalAngle, rwDistance),
+                    scaleFromGlobalAngle(x2, rwNormalAngle, rwDistance),
+                    textureColumnAt(x1, rwCenterAngle, rwDistance, rwOffset),
+                    textureColumnAt(x2, rwCenterAngle, rwDistance, rwOffset));
+            frontZ1Fixed = FixedPoint.toFixed(worldFrontZ1);
+            frontZ2Fixed = FixedPoint.toFixed(worldFrontZ2);
+            backZ1Fixed = FixedPoint.toFixed(worldBackZ1);
+            backZ2Fixed = FixedPoint.toFixed(worldBackZ2);
+            upperTexAltFixed = FixedPoint.toFixed(upperTexAlt);
+            lowerTexAltFixed = FixedPoint.toFixed(lowerTexAlt);
+        }
 
         for (int x = x1; x <= x2; x++) {
-            if (!screenRange.contains(x)) continue;
-
             int curUpperClip = upperClip[x];
             int curLowerClip = lowerClip[x];
 
-            // Calculate accurate scale for this specific column
-            double currentScale = scaleFromGlobalAngle(x, rwNormalAngle, rwDistance);
+            double currentScale;
+            int fixedScale = 0;
+            int drawWallY1, drawWallY2, drawPortalY1 = 0, drawPortalY2 = 0;
+            double textureColumn = 0, invScale = 0;
+            int fixedTextureColumn = 0, fixedInvScale = 0;
+            if (fixedStep != null) {
+                fixedScale = fixedStep.scale(x);
+                currentScale = FixedPoint.toDouble(fixedScale);
+                drawWallY1 = FixedPoint.projectY(frontZ1Fixed, fixedScale, viewSize);
+                drawWallY2 = FixedPoint.projectY(frontZ2Fixed, fixedScale, viewSize);
+                if (bDrawUpperWall || bDrawCeil) {
+                    drawPortalY1 = (worldBackZ1 > worldFrontZ2) ? FixedPoint.projectY(backZ1Fixed, fixedScale, viewSize) : drawWallY2;
+                }
+                if (bDrawLowerWall || bDrawFloor) {
+                    drawPortalY2 = (worldBackZ2 < worldFrontZ1) ? FixedPoint.projectY(backZ2Fixed, fixedScale, viewSize) : drawWallY1;
+                }
+                if (bDrawUpperWall || bDrawLowerWall) {
+                    fixedTextureColumn = fixedStep.textureColumn(x, fixedScale);
+                    fixedInvScale = FixedPoint.div(FixedPoint.FRAC_UNIT, fixedScale);
+                }
+            } else {
+                // Calculate accurate scale for this specific column
+                currentScale = scaleFromGlobalAngle(x, rwNormalAngle, rwDistance);
 
-            // Calculate wall positions using the accurate scale for this column
-            double wallY1 = Constants.H_HEIGHT - worldFrontZ1 * currentScale; // Front ceiling
-            double wallY2 = Constants.H_HEIGHT - worldFrontZ2 * currentScale; // Front floor
+                // Calculate wall positions using the accurate scale for this column
+                double wallY1 = viewSize.halfHeight - worldFrontZ1 * currentScale; // Front ceiling
+                double wallY2 = viewSize.halfHeight - worldFrontZ2 * currentScale; // Front floor
 
-            double portalY1 = 0; // Back ceiling
-            if (bDrawUpperWall || bDrawCeil) {
-                portalY1 = (worldBackZ1 > worldFrontZ2) ? (Constants.H_HEIGHT - worldBackZ1 * currentScale) : wallY2;
-            }
+                double portalY1 = 0; // Back ceiling
+                if (bDrawUpperWall || bDrawCeil) {
+                    portalY1 = (worldBackZ1 > worldFrontZ2) ? (viewSize.halfHeight - worldBackZ1 * currentScale) : wallY2;
+                }
 
-            double portalY2 = 0; // Back floor
-            if (bDrawLowerWall || bDrawFloor) {
-                portalY2 = (worldBackZ2 < worldFrontZ1) ? (Constants.H_HEIGHT - worldBackZ2 * currentScale) : wallY1;
-            }
+                double portalY2 = 0; // Back floor
+                if (bDrawLowerWall || bDrawFloor) {
+                    portalY2 = (worldBackZ2 < worldFrontZ1) ? (viewSize.halfHeight - worldBackZ2 * currentScale) : wallY1;
+                }
 
-            int drawWallY1 = (int) Math.round(wallY1);       // Front ceil
-            int drawWallY2 = (int) Math.round(wallY2);       // Front floor
-            int drawPortalY1 = (int) Math.round(portalY1);   // Back ceil
-            int drawPortalY2 = (int) Math.round(portalY2);   // Back floor
+                drawWallY1 = (int) Math.round(wallY1);       // Front ceil
+                drawWallY2 = (int) Math.round(wallY2);       // Front floor
+                drawPortalY1 = (int) Math.round(portalY1);   // Back ceil
+                drawPortalY2 = (int) Math.round(portalY2);   // Back floor
 
-            double textureColumn = 0, invScale = 0;
-            if (bDrawUpperWall || bDrawLowerWall) {
-                Angle angle = rwCenterAngle.subtract(xToAngleTable[x]);
-                textureColumn = rwDistance * angle.tan() - rwOffset;
-                invScale = 1.0 / currentScale;
+                if (bDrawUpperWall || bDrawLowerWall) {
+                    textureColumn = textureColumnAt(x, rwCenterAngle, rwDistance, rwOffset);
+                    invScale = 1.0 / currentScale;
+                }
             }
 
             if (bDrawCeil) {
                 int cy1 = curUpperClip + 1;
                 int cy2 = Math.min(drawWallY1 - 1, curLowerClip - 1);
                 if (cy1 <= cy2) {
-                    renderer.drawFlat(framebuffer, ceilTexId, light, x, cy1, cy2, frontSector.ceilHeight, xToAngleTable[x].degrees());
+                    ceilingPlane.mark(x, cy1, cy2);
                     curUpperClip = Math.max(curUpperClip, cy2);
                 }
             }
@@ -477,8 +665,11 @@ public class SegHandler {
                 int wy1 = Math.max(drawWallY1, curUpperClip + 1);
                 int wy2 = Math.min(drawPortalY1 - 1, curLowerClip - 1);
                 if (wy1 <= wy2) {
-                    double columnDepth = Constants.SCREEN_DIST / currentScale;
-                    ViewRenderer.drawWallColumn(framebuffer, engine.getDepthBuffer(), upperTexture, textureColumn, x, wy1, wy2, upperTexAlt, invScale, light, columnDepth);
+                    if (fixedStep != null) {
+                        ViewRenderer.drawWallColumnFixed(viewSize, framebuffer, upperTexture, lights.forScale(wallLight, currentScale), fixedTextureColumn, x, wy1, wy2, upperTexAltFixed, fixedInvScale);
+                    } else {
+                        ViewRenderer.drawWallColumn(viewSize, framebuffer, upperTexture, lights.forScale(wallLight, currentScale), textureColumn, x, wy1, wy2, upperTexAlt, invScale);
+                    }
                     curUpperClip = Math.max(curUpperClip, wy2);
                 }
             }
@@ -490,7 +681,7 @@ public class SegHandler {
                 int fy1 = Math.max(drawWallY2, curUpperClip + 1);
                 int fy2 = curLowerClip - 1;
                 if (fy1 <= fy2) {
-                    renderer.drawFlat(framebuffer, floorTexId, light, x, fy1, fy2, frontSector.floorHeight, xToAngleTable[x].degrees());
+                    floorPlane.mark(x, fy1, fy2);
                     curLowerClip = Math.min(curLowerClip, fy1);
                 }
             }
@@ -499,8 +690,11 @@ public class SegHandler {
                 int wy1 = Math.max(drawPortalY2, curUpperClip + 1);
                 int wy2 = Math.min(drawWallY2 - 1, curLowerClip - 1);
                 if (wy1 <= wy2) {
-                    double columnDepth = Constants.SCREEN_DIST / currentScale;
-                    ViewRenderer.drawWallColumn(framebuffer, engine.getDepthBuffer(), lowerTexture, textureColumn, x, wy1, wy2, lowerTexAlt, invScale, light, columnDepth);
+                    if (fixedStep != null) {
+                        ViewRenderer.drawWallColumnFixed(viewSize, framebuffer, lowerTexture, lights.forScale(wallLight, currentScale), fixedTextureColumn, x, wy1, wy2, lowerTexAltFixed, fixedInvScale);
+                    } else {
+                        ViewRenderer.drawWallColumn(viewSize, framebuffer, lowerTexture, lights.forScale(wallLight, currentScale), textureColumn, x, wy1, wy2, lowerTexAlt, invScale);
+                    }
                     curLowerClip = Math.min(curLowerClip, wy1);
                 }
             }
@@ -510,9 +704,37 @@ public class SegHandler {
             this.lowerClip[x] = curLowerClip;
         }
 
-        // Create DrawSeg for this portal segment
-        double avgScale = (scaleFromGlobalAngle(x1, rwNormalAngle, rwDistance) + scaleFromGlobalAngle(x2, rwNormalAngle, rwDistance)) / 2.0;
-        createDrawSeg(x1, x2, avgScale, false, null);
+        // Silhouettes as in vanilla R_StoreWallRange: a step down hides the bottom of sprites
+        // behind it, a lower ceiling their top; a closed door hides them completely
+        int silhouette = DrawSeg.SIL_NONE;
+        double bottomSilHeight = Double.MAX_VALUE;
+        double topSilHeight = -Double.MAX_VALUE;
+        if (frontFloorHeight > backFloorHeight) {
+            silhouette |= DrawSeg.SIL_BOTTOM;
+            bottomSilHeight = frontFloorHeight;
+        } else if (backFloorHeight > playerEyeLevel) {
+            silhouette |= DrawSeg.SIL_BOTTOM;
+        }
+        if (frontCeilHeight < backCeilHeight) {
+            silhouette |= DrawSeg.SIL_TOP;
+            topSilHeight = frontCeilHeight;
+        } else if (backCeilHeight < playerEyeLevel) {
+            silhouette |= DrawSeg.SIL_TOP;
+        }
+        boolean closed = backCeilHeight <= frontFloorHeight || backFloorHeight >= frontCeilHeight;
+        if (closed) {
+            silhouette = DrawSeg.SIL_BOTH;
+            bottomSilHeight = Double.MAX_VALUE;
+            topSilHeight = -Double.MAX_VALUE;
+        }
+        if (silhouette != DrawSeg.SIL_NONE) {
+            createDrawSeg(x1, x2, scaleFromGlobalAngle(x1, rwNormalAngle, rwDistance),
+                    scaleFromGlobalAngle(x2, rwNormalAngle, rwDistance), silhouette, bottomSilHeight, topSilHeight);
+            if (closed) {
+                DrawSeg door = drawSegs.get(drawSegs.size() - 1);
+                Arrays.fill(door.sprBottomClip, -1);
+            }
+        }
     }
 
     /**
@@ -0,0 +1,110 @@
+package com.doomengine.rendering.bsp;
+
+import com.doomengine.wad.MapGeometry;
+import com.doomengine.wad.WADDataService;
+import com.doomengine.wad.assets.AssetData;
+import com.doomengine.wad.assets.IndexedImage;
+import com.doomengine.wad.datatypes.Sector;
+import com.doomengine.wad.datatypes.Seg;
+import com.doomengine.wad.datatypes.Sidedef;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything about a seg's walls that does not change while a level is played, resolved once
+ * when the level starts: texture images, offsets and pegging, plus the flats of each sector.
+ * Wall and plane drawing then never look up textures by name (AssetData.getTexture is
+ * synchronized, which parallel strips would contend on) or compare flat names as strings.
+ * <p>
+ * Read-only once built, so all render strips share one instance.
+ */
+public final class SegRenderCache {
+    /** Flat id of the sky, so a sky ceiling is recognised without comparing names. */
+    public static final int SKY_FLAT = 0;
+
+    // Per seg, indexed like the seg arrays of MapGeometry. Textures are null when not drawn.
+    public final IndexedImage[] upperTexture;
+    public final IndexedImage[] middleTexture;
+    public final IndexedImage[] lowerTexture;
+    public final double[] textureXOffset; // Seg offset along its linedef plus the sidedef offset
+    public final double[] textureYOffset;
+    public final boolean[] upperUnpegged;
+    public final boolean[] lowerUnpegged;
+    public final int[] contrast;          // Fake contrast light adjustment, see wallContrast
+
+    // Per sector, indexed like WADDataService.sectors
+    public final int[] ceilFlat;          // Ids of distinct flat names, so flats compare as ints
+    public final int[] floorFlat;
+    public final boolean[] skyCeiling;
+
+    // Per flat id
+    public final IndexedImage[] flatImage; // Null for the sky and for names that are not flats
+
+    public SegRenderCache(MapGeometry geometry, List<Seg> segs, List<Sector> sectors, AssetData assetData) {
+        int dontPegTop = WADDataService.LINEDEF_FLAGS_MAP.get("DONT_PEG_TOP");
+        int dontPegBottom = WADDataService.LINEDEF_FLAGS_MAP.get("DONT_PEG_BOTTOM");
+
+        int numSegs = geometry.numSegs;
+        this.upperTexture = new IndexedImage[numSegs];
+        this.middleTexture = new IndexedImage[numSegs];
+        this.lowerTexture = new IndexedImage[numSegs];
+        this.textureXOffset = new double[numSegs];
+        this.textureYOffset = new double[numSegs];
+        this.upperUnpegged = new boolean[numSegs];
+        this.lowerUnpegged = new boolean[numSegs];
+        this.contrast = new int[numSegs];
+        for (int i = 0; i < numSegs; i++) {
+            contrast[i] = wallContrast(geometry, i);
+            Seg seg = segs.get(i);
+            if (seg.linedef == null || seg.linedef.frontSidedef == null) continue;
+
+            Sidedef side = seg.linedef.frontSidedef;
+            upperTexture[i] = wallTexture(assetData, side.upperTexture);
+            middleTexture[i] = wallTexture(assetData, side.middleTexture);
+            lowerTexture[i] = wallTexture(assetData, side.lowerTexture);
+            textureXOffset[i] = geometry.segOffset[i] + side.xOffset;
+            textureYOffset[i] = side.yOffset;
+
+            int lineFlags = geometry.linedefFlags[geometry.segLinedef[i]];
+            upperUnpegged[i] = (lineFlags & dontPegTop) != 0;
+            lowerUnpegged[i] = (lineFlags & dontPegBottom) != 0;
+        }
+
+        Map<String, Integer> flatIds = new HashMap<>();
+        flatIds.put(assetData.skyId, SKY_FLAT);
+        this.ceilFlat = new int[sectors.size()];
+        this.floorFlat = new int[sectors.size()];
+        this.skyCeiling = new boolean[sectors.size()];
+        for (int i = 0; i < sectors.size(); i++) {
+            Sector sector = sectors.get(i);
+            ceilFlat[i] = flatIds.computeIfAbsent(sector.ceilTexture, name -> flatIds.size());
+            floorFlat[i] = flatIds.computeIfAbsent(sector.floorTexture, name -> flatIds.size());
+            skyCeiling[i] = ceilFlat[i] == SKY_FLAT;
+        }
+
+        this.flatImage = new IndexedImage[flatIds.size()];
+        flatIds.forEach((name, id) -> {
+            if (id != SKY_FLAT) flatImage[id] = assetData.getTexture(name);
+        });
+    }
+
+    private static IndexedImage wallTexture(AssetData assetData, String name) {
+        if ("-".equals(name) || !assetData.hasTexture(name)) return null;
+        return assetData.getTexture(name);
+    }
+
+    /**
+     * Vanilla's fake contrast: walls running east-west are a light level darker,
+     * walls running north-south a level brighter.
+     */
+    private static int wallContrast(MapGeometry geometry, int segId) {
+        int v1 = geometry.segStartVertex[segId];
+        int v2 = geometry.segEndVertex[segId];
+        if (v1 >= geometry.numVertexes || v2 >= geometry.numVertexes) return 0;
+        if (geometry.vertexY[v1] == geometry.vertexY[v2]) return -1;
+        if (geometry.vertexX[v1] == geometry.vertexX[v2]) return 1;
+        return 0;
+    }
+}
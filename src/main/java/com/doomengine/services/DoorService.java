@@ -7,4 +7,6 @@ public interface DoorService {
     boolean tryUseDoor(Player player, Vector2D position, double radius);
 
     boolean isDoorBlocking(int linedefId);
+
+    boolean isExitSwitchInRange(Vector2D position, double useRange, boolean secret);
 }
\ No newline at end of file
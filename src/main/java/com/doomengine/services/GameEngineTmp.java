@@ -6,7 +6,7 @@ public interface GameEngineTmp {
     double getDeltaTime();
     int getCurrentSkillLevel();
     int[] getFramebuffer();
-    double[] getDepthBuffer();
     boolean isRunning();
     Player getPlayer();
+    void exitLevel(boolean secret);
 }
\ No newline at end of file
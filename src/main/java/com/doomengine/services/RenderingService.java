@@ -2,7 +2,5 @@ package com.doomengine.services;
 
 public interface RenderingService {
     int[] getFramebuffer();
-    double[] getDepthBuffer();
     void clearFramebuffer();
-    void clearDepthBuffer();
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.doomengine.wad;
+
+import com.doomengine.wad.WADReader.LumpInfo;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Hash index over a WAD directory. Lump names are upper-cased and packed into a
+ * {@code long} (8 ASCII chars, one byte each), so lookups are a single hash probe
+ * instead of a linear {@code equalsIgnoreCase} scan.
+ * <p>
+ * When a name occurs more than once the last lump wins, matching the engine's
+ * behaviour for PWAD overrides. Lumps between the usual marker pairs
+ * ({@code S_START}/{@code S_END}, {@code F_START}/{@code F_END},
+ * {@code P_START}/{@code P_END} and their doubled variants) are additionally
+ * indexed per {@link Namespace}, so a sprite and a flat with the same name do not
+ * shadow each other.
+ */
+public class LumpDirectory {
+    private static final Logger LOGGER = Logger.getLogger(LumpDirectory.class.getName());
+
+    /** Key used for names that cannot occur in a directory (longer than 8 chars). */
+    private static final long INVALID_KEY = -1L;
+
+    public enum Namespace {
+        GLOBAL(null),
+        SPRITES("S"),
+        FLATS("F"),
+        PATCHES("P");
+
+        private final String markerPrefix;
+
+        Namespace(String markerPrefix) {
+            this.markerPrefix = markerPrefix;
+        }
+    }
+
+    private final List<LumpInfo> directory;
+    private final Map<Long, Integer> globalIndex;
+    private final Map<Namespace, Map<Long, Integer>> namespaceIndex;
+    private final Map<Namespace, int[]> namespaceLumps;
+
+    public LumpDirectory(List<LumpInfo> directory) {
+        this.directory = directory;
+        this.globalIndex = new HashMap<>(directory.size() * 2);
+        this.namespaceIndex = new EnumMap<>(Namespace.class);
+        this.namespaceLumps = new EnumMap<>(Namespace.class);
+
+        for (Namespace ns : Namespace.values()) {
+            if (ns != Namespace.GLOBAL) {
+                namespaceIndex.put(ns, new HashMap<>());
+            }
+        }
+
+        Namespace current = Namespace.GLOBAL;
+        for (int i = 0; i < directory.size(); i++) {
+            LumpInfo lumpInfo = directory.get(i);
+            String name = lumpInfo.lumpName;
+            long key = packName(name);
+            globalIndex.put(key, i); // Later lumps override earlier ones
+
+            Namespace opened = markerNamespace(name, "_START");
+            if (opened != null) {
+                current = opened;
+                continue;
+            }
+            Namespace closed = markerNamespace(name, "_END");
+            if (closed != null) {
+                if (closed != current) {
+                    LOGGER.warning("Unbalanced namespace marker " + name + " at lump " + i);
+                }
+                current = Namespace.GLOBAL;
+                continue;
+            }
+            if (current != Namespace.GLOBAL && lumpInfo.lumpSize > 0) {
+                namespaceIndex.get(current).put(key, i);
+            }
+        }
+
+        for (Map.Entry<Namespace, Map<Long, Integer>> entry : namespaceIndex.entrySet()) {
+            // Keep directory order so loads stay deterministic
+            int[] lumps = entry.getValue().values().stream().mapToInt(Integer::intValue).sorted().toArray();
+            namespaceLumps.put(entry.getKey(), lumps);
+        }
+    }
+
+    /**
+     * Recognises {@code X_START}, {@code XX_START}, {@code X_END} and {@code XX_END}
+     * markers for the namespaces above.
+     */
+    private static Namespace markerNamespace(String name, String suffix) {
+        if (!name.endsWith(suffix)) return null;
+        String prefix = name.substring(0, name.length() - suffix.length());
+        for (Namespace ns : Namespace.values()) {
+            if (ns.markerPrefix == null) continue;
+            if (prefix.equals(ns.markerPrefix) || prefix.equals(ns.markerPrefix + ns.markerPrefix)) {
+                return ns;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Packs an upper-cased lump name into a long, one byte per character.
+     * Names longer than 8 characters never match a directory entry.
+     */
+    public static long packName(String name) {
+        int len = name.length();
+        if (len > 8) return INVALID_KEY;
+        long key = 0;
+        for (int i = 0; i < len; i++) {
+            char c = Character.toUpperCase(name.charAt(i));
+            key |= (long) (c & 0x7F) << (i * 8);
+        }
+        return key;
+    }
+
+    public int size() {
+        return directory.size();
+    }
+
+    public LumpInfo get(int lumpIndex) {
+        return directory.get(lumpIndex);
+    }
+
+    public List<LumpInfo> getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return Index of the last lump with the given name, or -1 if not found.
+     */
+    public int getLumpIndex(String lumpName) {
+        Integer idx = globalIndex.get(packName(lumpName));
+        return idx != null ? idx : -1;
+    }
+
+    /**
+     * Looks a name up inside a namespace; {@link Namespace#GLOBAL} searches the whole directory.
+     * @return Index of the last matching lump, or -1 if not found.
+     */
+    public int getLumpIndex(String lumpName, Namespace namespace) {
+        if (namespace == Namespace.GLOBAL) return getLumpIndex(lumpName);
+        Integer idx = namespaceIndex.get(namespace).get(packName(lumpName));
+        return idx != null ? idx : -1;
+    }
+
+    public LumpInfo getLumpInfo(String lumpName) {
+        int idx = getLumpIndex(lumpName);
+        return idx >= 0 ? directory.get(idx) : null;
+    }
+
+    public LumpInfo getLumpInfo(String lumpName, Namespace namespace) {
+        int idx = getLumpIndex(lumpName, namespace);
+        return idx >= 0 ? directory.get(idx) : null;
+    }
+
+    /**
+     * Lookup inside a namespace that falls back to the whole directory, for lumps
+     * (e.g. texture patches) that vanilla WADs do not always wrap in markers.
+     */
+    public LumpInfo findLumpInfo(String lumpName, Namespace namespace) {
+        LumpInfo info = getLumpInfo(lumpName, namespace);
+        return info != null ? info : getLumpInfo(lumpName);
+    }
+
+    /**
+     * Indices of the non-empty lumps in a namespace, one per name (the last one wins),
+     * in directory order.
+     */
+    public int[] getNamespaceLumps(Namespace namespace) {
+        if (namespace == Namespace.GLOBAL) {
+            List<Integer> all = new ArrayList<>(globalIndex.values());
+            return all.stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+        return namespaceLumps.get(namespace).clone();
+    }
+}
@@ -0,0 +1,218 @@
+package com.doomengine.wad;
+
+import com.doomengine.geometry.Vector2D;
+import com.doomengine.wad.WADReader.LumpInfo;
+import com.doomengine.wad.datatypes.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static com.doomengine.wad.WADDataService.LINEDEF_FLAGS_MAP;
+import static com.doomengine.wad.WADDataService.LUMP_INDICES_MAP;
+
+/**
+ * The per-map lumps of one level (things, linedefs, sidedefs, vertexes, segs, subsectors,
+ * nodes and sectors) with their cross references resolved, plus the {@link MapGeometry}
+ * built from them.
+ * <p>
+ * A map only reads from the mounted WADs' mappings, never from global asset state, so
+ * it can be loaded on a worker thread while another map is being played and handed to
+ * {@link WADDataService#setMap(MapData)} once it is ready.
+ */
+public class MapData {
+    private static final Logger LOGGER = Logger.getLogger(MapData.class.getName());
+
+    public final String mapName;
+
+    public final List<Vector2D> vertexes;
+    public final List<Linedef> linedefs;
+    public final List<Node> nodes;
+    public final List<SubSector> subSectors;
+    public final List<Seg> segments;
+    public final List<Thing> things;
+    public final List<Sidedef> sidedefs;
+    public final List<Sector> sectors;
+
+    public final MapGeometry geometry;
+
+    MapData(ResourceStack resources, String mapName) throws IOException {
+        this.mapName = mapName.toUpperCase();
+        // Last lump wins, so a PWAD's copy of the map replaces the IWAD's
+        int mapLumpIndex = resources.getLumpDirectory().getLumpIndex(this.mapName);
+        if (mapLumpIndex == -1) {
+            throw new IOException("Map " + mapName + " not found in WAD.");
+        }
+
+        this.vertexes = getLumpData(resources,
+                WADReader::readVertex,
+                mapLumpIndex + LUMP_INDICES_MAP.get("VERTEXES"),
+                4); // num bytes per vertex
+
+        this.linedefs = getLumpData(resources,
+                WADReader::readLinedef,
+                mapLumpIndex + LUMP_INDICES_MAP.get("LINEDEFS"),
+                14);
+
+        this.nodes = getLumpData(resources,
+                WADReader::readNode,
+                mapLumpIndex + LUMP_INDICES_MAP.get("NODES"),
+                28);
+
+        this.subSectors = getLumpData(resources,
+                WADReader::readSubSector,
+                mapLumpIndex + LUMP_INDICES_MAP.get("SSECTORS"),
+                4);
+
+        this.segments = getLumpData(resources,
+                WADReader::readSegment,
+                mapLumpIndex + LUMP_INDICES_MAP.get("SEGS"),
+                12);
+
+        this.things = getLumpData(resources,
+                WADReader::readThing,
+                mapLumpIndex + LUMP_INDICES_MAP.get("THINGS"),
+                10);
+
+        this.sidedefs = getLumpData(resources,
+                WADReader::readSidedef,
+                mapLumpIndex + LUMP_INDICES_MAP.get("SIDEDEFS"),
+                30);
+
+        this.sectors = getLumpData(resources,
+                WADReader::readSector,
+                mapLumpIndex + LUMP_INDICES_MAP.get("SECTORS"),
+                26);
+
+        updateDataRelationships();
+        this.geometry = new MapGeometry(vertexes, linedefs, segments, subSectors, nodes, sectors);
+    }
+
+    private void updateDataRelationships() {
+        updateSidedefs();
+        updateLinedefs();
+        updateSegs();
+    }
+
+    private void updateSidedefs() {
+        for (Sidedef sidedef : this.sidedefs) {
+            if (sidedef.sectorId >= 0 && sidedef.sectorId < this.sectors.size()) {
+                sidedef.sector = this.sectors.get(sidedef.sectorId);
+            } else {
+                LOGGER.warning("Invalid sidedef sector_id: " + sidedef.sectorId);
+                // Potentially assign a default/dummy sector or handle error
+            }
+        }
+    }
+
+    private void updateLinedefs() {
+        for (Linedef linedef : this.linedefs) {
+            if (linedef.frontSidedefId >= 0 && linedef.frontSidedefId < this.sidedefs.size()) {
+                linedef.frontSidedef = this.sidedefs.get(linedef.frontSidedefId);
+            } else {
+                LOGGER.warning("Invalid linedef front_sidedef_id: " + linedef.frontSidedefId);
+            }
+
+            if (linedef.backSidedefId == 0xFFFF || linedef.backSidedefId == -1) { // 0xFFFF as unsigned short
+                linedef.backSidedef = null;
+            } else {
+                if (linedef.backSidedefId >= 0 && linedef.backSidedefId < this.sidedefs.size()) {
+                    linedef.backSidedef = this.sidedefs.get(linedef.backSidedefId);
+                } else {
+                    LOGGER.warning("Invalid linedef back_sidedef_id: " + linedef.backSidedefId);
+                    linedef.backSidedef = null;
+                }
+            }
+        }
+    }
+
+    private void updateSegs() {
+        for (Seg seg : this.segments) {
+            if (seg.startVertexId >= 0 && seg.startVertexId < this.vertexes.size()) {
+                seg.startVertex = this.vertexes.get(seg.startVertexId);
+            }
+            if (seg.endVertexId >= 0 && seg.endVertexId < this.vertexes.size()) {
+                seg.endVertex = this.vertexes.get(seg.endVertexId);
+            }
+            if (seg.linedefId >= 0 && seg.linedefId < this.linedefs.size()) {
+                seg.linedef = this.linedefs.get(seg.linedefId);
+            }
+
+            if (seg.linedef == null) {
+                LOGGER.warning("Seg has null linedef (id: " + seg.linedefId + "), skipping update.");
+                continue;
+            }
+
+            Sidedef frontSidedef, backSidedef;
+            if (seg.direction == 1) { // 1 means seg is on back side of linedef
+                frontSidedef = seg.linedef.backSidedef;
+                backSidedef = seg.linedef.frontSidedef;
+            } else { // 0 means seg is on front side of linedef
+                frontSidedef = seg.linedef.frontSidedef;
+                backSidedef = seg.linedef.backSidedef;
+            }
+
+            if (frontSidedef != null) {
+                seg.frontSector = frontSidedef.sector;
+            } else {
+                LOGGER.warning("Seg's effective front sidedef is null.");
+            }
+
+            if ((seg.linedef.flags & LINEDEF_FLAGS_MAP.get("TWO_SIDED")) != 0) {
+                if (backSidedef != null) {
+                    seg.backSector = backSidedef.sector;
+                } else {
+                    LOGGER.warning("Two-sided linedef but back sidedef is null for seg id: " + seg.linedefId);
+                    seg.backSector = null;
+                }
+            } else {
+                seg.backSector = null;
+            }
+
+            seg.angle = bamsToDegrees(seg.rawBamsAngle);
+
+            if (seg.frontSector != null && seg.backSector != null && frontSidedef != null) {
+                if ("-".equals(frontSidedef.upperTexture)) {
+                    seg.linedef.frontSidedef.upperTexture = backSidedef.upperTexture;
+                }
+                if ("-".equals(frontSidedef.lowerTexture)) {
+                    seg.linedef.frontSidedef.lowerTexture = backSidedef.lowerTexture;
+                }
+            }
+        }
+    }
+
+    /**
+     * Convert a 16-bit Binary Angle Measurement System (BAMS) value to degrees in [0,360).
+     * @param bams 16-bit BAMS angle
+     * @return angle in degrees
+     */
+    private static double bamsToDegrees(short bams) {
+        int unsigned = bams & 0xFFFF;
+        return unsigned * (360.0 / 65536.0);
+    }
+
+    // Functional interface for reading data items out of a lump buffer
+    @FunctionalInterface
+    private interface ItemReader<T> {
+        T read(ByteBuffer lump, int offset);
+    }
+
+    private static <T> List<T> getLumpData(ResourceStack resources, ItemReader<T> readerFunc,
+                                           int lumpIndexInDir, int numBytesPerItem) {
+        if (lumpIndexInDir < 0 || lumpIndexInDir >= resources.getDirectory().size()) {
+            LOGGER.warning("Invalid lump index: " + lumpIndexInDir);
+            return new ArrayList<>();
+        }
+        LumpInfo lumpInfo = resources.getDirectory().get(lumpIndexInDir);
+        ByteBuffer lump = resources.getLumpBuffer(lumpInfo); // Decoded in place from the WAD mapping
+        int count = lumpInfo.lumpSize / numBytesPerItem;
+        List<T> data = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            data.add(readerFunc.read(lump, i * numBytesPerItem));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,174 @@
+package com.doomengine.wad;
+
+import com.doomengine.geometry.Bam;
+import com.doomengine.geometry.Vector2D;
+import com.doomengine.wad.datatypes.Linedef;
+import com.doomengine.wad.datatypes.Node;
+import com.doomengine.wad.datatypes.Sector;
+import com.doomengine.wad.datatypes.Seg;
+import com.doomengine.wad.datatypes.SubSector;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Structure-of-arrays view of the static map geometry (vertexes, linedefs, segs,
+ * subsectors and nodes). Built once when a map is loaded so the BSP traversal and
+ * the automap can walk flat primitive arrays instead of chasing object references.
+ * Mutable state (sector heights, textures) stays on the {@link Sector} objects and
+ * is referenced here by index.
+ */
+public final class MapGeometry {
+    private static final Logger LOGGER = Logger.getLogger(MapGeometry.class.getName());
+
+    /** Offsets of a bounding box inside its 4-entry group in {@link #nodeBBox}. */
+    public static final int BOXTOP = 0;
+    public static final int BOXBOTTOM = 1;
+    public static final int BOXLEFT = 2;
+    public static final int BOXRIGHT = 3;
+    /** Number of shorts stored per node in {@link #nodeBBox}: front box then back box. */
+    public static final int BBOX_STRIDE = 8;
+
+    public final int numVertexes;
+    public final short[] vertexX;
+    public final short[] vertexY;
+
+    public final int numLinedefs;
+    public final int[] linedefStartVertex;
+    public final int[] linedefEndVertex;
+    public final int[] linedefFlags;
+
+    public final int numSegs;
+    public final int[] segStartVertex;
+    public final int[] segEndVertex;
+    public final int[] segLinedef;
+    public final int[] segFrontSector; // -1 if unresolved
+    public final int[] segBackSector;  // -1 for one-sided segs
+    public final double[] segAngle;    // Degrees in [0, 360)
+    public final int[] segNormalAngle; // BAM, a quarter turn left of segAngle
+    public final short[] segOffset;
+
+    public final int numSubSectors;
+    public final int[] subSectorFirstSeg;
+    public final int[] subSectorSegCount;
+
+    public final int numNodes;
+    public final short[] nodeX;
+    public final short[] nodeY;
+    public final short[] nodeDx;
+    public final short[] nodeDy;
+    public final short[] nodeBBox;     // BBOX_STRIDE entries per node
+    public final int[] nodeChildren;   // 2 entries per node: front, back
+    public final int rootNodeId;
+
+    public MapGeometry(List<Vector2D> vertexes, List<Linedef> linedefs, List<Seg> segs,
+                       List<SubSector> subSectors, List<Node> nodes, List<Sector> sectors) {
+        this.numVertexes = vertexes.size();
+        this.vertexX = new short[numVertexes];
+        this.vertexY = new short[numVertexes];
+        for (int i = 0; i < numVertexes; i++) {
+            Vector2D v = vertexes.get(i);
+            vertexX[i] = (short) v.x();
+            vertexY[i] = (short) v.y();
+        }
+
+        this.numLinedefs = linedefs.size();
+        this.linedefStartVertex = new int[numLinedefs];
+        this.linedefEndVertex = new int[numLinedefs];
+        this.linedefFlags = new int[numLinedefs];
+        for (int i = 0; i < numLinedefs; i++) {
+            Linedef line = linedefs.get(i);
+            linedefStartVertex[i] = line.startVertexId;
+            linedefEndVertex[i] = line.endVertexId;
+            linedefFlags[i] = line.flags;
+        }
+
+        Map<Sector, Integer> sectorIndices = new IdentityHashMap<>(sectors.size());
+        for (int i = 0; i < sectors.size(); i++) {
+            sectorIndices.put(sectors.get(i), i);
+        }
+
+        this.numSegs = segs.size();
+        this.segStartVertex = new int[numSegs];
+        this.segEndVertex = new int[numSegs];
+        this.segLinedef = new int[numSegs];
+        this.segFrontSector = new int[numSegs];
+        this.segBackSector = new int[numSegs];
+        this.segAngle = new double[numSegs];
+        this.segNormalAngle = new int[numSegs];
+        this.segOffset = new short[numSegs];
+        for (int i = 0; i < numSegs; i++) {
+            Seg seg = segs.get(i);
+            // Vertex and linedef ids are unsigned 16-bit values in the WAD
+            segStartVertex[i] = Short.toUnsignedInt(seg.startVertexId);
+            segEndVertex[i] = Short.toUnsignedInt(seg.endVertexId);
+            segLinedef[i] = Short.toUnsignedInt(seg.linedefId);
+            segFrontSector[i] = seg.frontSector != null ? sectorIndices.getOrDefault(seg.frontSector, -1) : -1;
+            segBackSector[i] = seg.backSector != null ? sectorIndices.getOrDefault(seg.backSector, -1) : -1;
+            segAngle[i] = seg.angle;
+            segNormalAngle[i] = Bam.fromDegrees(seg.angle) + Bam.ANG90;
+            segOffset[i] = seg.offset;
+            if (segStartVertex[i] >= numVertexes || segEndVertex[i] >= numVertexes) {
+                LOGGER.warning("Seg " + i + " references a vertex outside the VERTEXES lump");
+            }
+        }
+
+        this.numSubSectors = subSectors.size();
+        this.subSectorFirstSeg = new int[numSubSectors];
+        this.subSectorSegCount = new int[numSubSectors];
+        for (int i = 0; i < numSubSectors; i++) {
+            SubSector subSector = subSectors.get(i);
+            int firstSeg = Short.toUnsignedInt(subSector.firstSegId);
+            int segCount = Short.toUnsignedInt(subSector.segCount);
+            // Clamp once here so the traversal never has to bounds-check seg ids
+            subSectorFirstSeg[i] = Math.min(firstSeg, numSegs);
+            subSectorSegCount[i] = Math.max(0, Math.min(segCount, numSegs - subSectorFirstSeg[i]));
+        }
+
+        this.numNodes = nodes.size();
+        this.nodeX = new short[numNodes];
+        this.nodeY = new short[numNodes];
+        this.nodeDx = new short[numNodes];
+        this.nodeDy = new short[numNodes];
+        this.nodeBBox = new short[numNodes * BBOX_STRIDE];
+        this.nodeChildren = new int[numNodes * 2];
+        for (int i = 0; i < numNodes; i++) {
+            Node node = nodes.get(i);
+            nodeX[i] = node.xPartition;
+            nodeY[i] = node.yPartition;
+            nodeDx[i] = node.dxPartition;
+            nodeDy[i] = node.dyPartition;
+            storeBBox(i, 0, node.frontBBox);
+            storeBBox(i, 1, node.backBBox);
+            nodeChildren[i * 2] = node.frontChildId;
+            nodeChildren[i * 2 + 1] = node.backChildId;
+        }
+        this.rootNodeId = numNodes - 1;
+    }
+
+    private void storeBBox(int nodeId, int side, Node.BBox bbox) {
+        int base = bboxIndex(nodeId, side);
+        nodeBBox[base + BOXTOP] = bbox.top;
+        nodeBBox[base + BOXBOTTOM] = bbox.bottom;
+        nodeBBox[base + BOXLEFT] = bbox.left;
+        nodeBBox[base + BOXRIGHT] = bbox.right;
+    }
+
+    /**
+     * Index of the first entry of a node's bounding box in {@link #nodeBBox}.
+     * @param side 0 for the front child's box, 1 for the back child's box.
+     */
+    public static int bboxIndex(int nodeId, int side) {
+        return nodeId * BBOX_STRIDE + side * 4;
+    }
+
+    /**
+     * Gets the child ID of a node based on the side.
+     * @param side 0 for front, 1 for back.
+     */
+    public int nodeChild(int nodeId, int side) {
+        return nodeChildren[nodeId * 2 + side];
+    }
+}
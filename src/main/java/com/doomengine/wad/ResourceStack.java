@@ -0,0 +1,126 @@
+package com.doomengine.wad;
+
+import com.doomengine.wad.WADReader.LumpInfo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * An IWAD with any number of PWADs mounted on top of it.
+ * <p>
+ * The directories of all mounted WADs are concatenated in load order and indexed by a
+ * single {@link LumpDirectory}, so name lookups resolve top-down: a lump in a later PWAD
+ * overrides the same name in earlier files. This covers map, TEXTUREx/PNAMES, flat,
+ * sprite and sound replacements. Nothing is decoded at mount time; lump contents are
+ * read from the memory-mapped file only when {@link #getLumpBuffer(LumpInfo)} is called.
+ */
+public class ResourceStack implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ResourceStack.class.getName());
+
+    private final List<WADReader> wads;
+    private final List<String> wadPaths;
+    private final LumpDirectory lumpDirectory;
+
+    public ResourceStack(String iwadPath) throws IOException {
+        this(iwadPath, Collections.emptyList());
+    }
+
+    public ResourceStack(String iwadPath, List<String> pwadPaths) throws IOException {
+        this.wads = new ArrayList<>(1 + pwadPaths.size());
+        this.wadPaths = new ArrayList<>(1 + pwadPaths.size());
+        try {
+            mount(iwadPath);
+            for (String pwadPath : pwadPaths) {
+                mount(pwadPath);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+
+        if (!"IWAD".equals(wads.get(0).getWadType())) {
+            LOGGER.warning(iwadPath + " is not an IWAD (" + wads.get(0).getWadType() + ")");
+        }
+
+        List<LumpInfo> directory = new ArrayList<>();
+        for (WADReader wad : wads) {
+            directory.addAll(wad.getDirectory());
+        }
+        this.lumpDirectory = new LumpDirectory(Collections.unmodifiableList(directory));
+        LOGGER.info("Mounted " + wads.size() + " WAD(s) with " + directory.size() + " lumps");
+    }
+
+    private void mount(String wadPath) throws IOException {
+        WADReader reader = new WADReader(wadPath);
+        wads.add(reader);
+        wadPaths.add(wadPath);
+    }
+
+    public LumpDirectory getLumpDirectory() {
+        return lumpDirectory;
+    }
+
+    public List<LumpInfo> getDirectory() {
+        return lumpDirectory.getDirectory();
+    }
+
+    public List<String> getWadPaths() {
+        return Collections.unmodifiableList(wadPaths);
+    }
+
+    /**
+     * SHA-256 over the contents of every mounted WAD in load order, as a hex string.
+     * Identifies the decoded asset set independently of file names and timestamps.
+     */
+    public String computeContentHash() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // Mandatory on every JRE
+        }
+        for (WADReader wad : wads) {
+            wad.updateDigest(digest);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public LumpInfo getLumpInfo(String lumpName) {
+        return lumpDirectory.getLumpInfo(lumpName);
+    }
+
+    /**
+     * Zero-copy view of a lump from whichever mounted WAD it belongs to.
+     */
+    public ByteBuffer getLumpBuffer(LumpInfo lumpInfo) {
+        return lumpInfo.source.getLumpBuffer(lumpInfo);
+    }
+
+    /**
+     * @return The contents of the topmost lump with this name, or null if no WAD provides it.
+     */
+    public ByteBuffer getLumpBuffer(String lumpName) {
+        LumpInfo lumpInfo = lumpDirectory.getLumpInfo(lumpName);
+        return lumpInfo != null ? getLumpBuffer(lumpInfo) : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (WADReader wad : wads) {
+            try {
+                wad.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure != null) throw failure;
+    }
+}
@@ -1,16 +1,23 @@
 package com.doomengine.wad;
 
+import com.doomengine.audio.AudioClip;
 import com.doomengine.audio.SoundEngine;
 import com.doomengine.geometry.Vector2D;
+import com.doomengine.wad.assets.AssetCache;
 import com.doomengine.wad.assets.AssetData;
 import com.doomengine.wad.datatypes.*;
 import com.doomengine.wad.WADReader.LumpInfo;
 import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 public class WADDataService {
@@ -40,10 +47,10 @@ public class WADDataService {
     );
 
 
-    private final WADReader reader;
-    private final int mapLumpIndex;
-    private final String mapName;
+    private final ResourceStack resources;
 
+    // Fields of the map currently being played; replaced as a whole by setMap()
+    private MapData map;
     public List<Vector2D> vertexes;
     public List<Linedef> linedefs;
     public List<Node> nodes;
@@ -53,225 +60,136 @@ public class WADDataService {
     public List<Sidedef> sidedefs;
     public List<Sector> sectors;
 
+    // Primitive-array view of the static geometry used by the BSP traversal and automap
+    public MapGeometry geometry;
+
+    // Global assets, shared by every map
     public AssetData assetData;
 
 
     public WADDataService(String wadPath, String mapName) throws IOException {
-        this.reader = new WADReader(wadPath);
-        this.mapName = mapName.toUpperCase();
-        this.mapLumpIndex = getLumpIndexByName(this.mapName);
-        if (this.mapLumpIndex == -1) {
-            throw new IOException("Map " + mapName + " not found in WAD.");
-        }
-
-        // Load map specific lumps
-        this.vertexes = getLumpData(
-                offset -> reader.readVertex(offset),
-                this.mapLumpIndex + LUMP_INDICES_MAP.get("VERTEXES"),
-                4); // num bytes per vertex
-
-        this.linedefs = getLumpData(
-                offset -> reader.readLinedef(offset),
-                this.mapLumpIndex + LUMP_INDICES_MAP.get("LINEDEFS"),
-                14);
-
-        this.nodes = getLumpData(
-                offset -> reader.readNode(offset),
-                this.mapLumpIndex + LUMP_INDICES_MAP.get("NODES"),
-                28);
-
-        this.subSectors = getLumpData(
-                offset -> reader.readSubSector(offset),
-                this.mapLumpIndex + LUMP_INDICES_MAP.get("SSECTORS"),
-                4);
-
-        this.segments = getLumpData(
-                offset -> reader.readSegment(offset),
-                this.mapLumpIndex + LUMP_INDICES_MAP.get("SEGS"),
-                12);
-
-        this.things = getLumpData(
-                offset -> reader.readThing(offset),
-                this.mapLumpIndex + LUMP_INDICES_MAP.get("THINGS"),
-                10);
+        this(wadPath, Collections.emptyList(), mapName);
+    }
 
-        this.sidedefs = getLumpData(
-                offset -> reader.readSidedef(offset),
-                this.mapLumpIndex + LUMP_INDICES_MAP.get("SIDEDEFS"),
-                30);
+    public WADDataService(String iwadPath, List<String> pwadPaths, String mapName) throws IOException {
+        this(iwadPath, pwadPaths, mapName, true);
+    }
 
-        this.sectors = getLumpData(
-                offset -> reader.readSector(offset),
-                this.mapLumpIndex + LUMP_INDICES_MAP.get("SECTORS"),
-                26);
+    /**
+     * @param useAssetCache Load decoded assets from (and save them to) the on-disk asset cache.
+     */
+    public WADDataService(String iwadPath, List<String> pwadPaths, String mapName, boolean useAssetCache) throws IOException {
+        this.resources = new ResourceStack(iwadPath, pwadPaths);
 
-        updateDataRelationships();
+        // Load map specific lumps
+        setMap(loadMap(mapName));
+
+        // Decoded assets are cached per WAD contents, so any edited or added PWAD gets its own file
+        AssetCache assetCache = null;
+        String contentHash = null;
+        Path cacheFile = null;
+        if (useAssetCache) {
+            contentHash = resources.computeContentHash();
+            cacheFile = AssetCache.cacheFileFor(contentHash);
+            assetCache = AssetCache.open(cacheFile, contentHash);
+        }
 
         // Load assets (textures, sprites, palettes)
-        // Pass the reader and its directory to AssetData
-        this.assetData = new AssetData(this.reader, this.reader.getDirectory());
+        // Pass the mounted WADs to AssetData
+        this.assetData = new AssetData(this.resources, assetCache);
+        this.assetData.precacheMapTextures(this.sidedefs, this.sectors);
         
         // Load sounds
-        loadSounds();
+        Map<String, AudioClip> sounds = assetCache != null ? assetCache.getSounds() : decodeSounds();
+        sounds.forEach(SoundEngine.getInstance()::addSound);
+        LOGGER.info("Loaded " + sounds.size() + " sounds from " + (assetCache != null ? "asset cache" : "WAD"));
 
-        // It's important AssetData is created *before* closing the reader if it needs it.
-        this.reader.close(); // Close WAD file after all data is read
-    }
-
-    private void updateDataRelationships() {
-        updateSidedefs();
-        updateLinedefs();
-        updateSegs();
-    }
-
-    private void updateSidedefs() {
-        for (Sidedef sidedef : this.sidedefs) {
-            if (sidedef.sectorId >= 0 && sidedef.sectorId < this.sectors.size()) {
-                sidedef.sector = this.sectors.get(sidedef.sectorId);
-            } else {
-                LOGGER.warning("Invalid sidedef sector_id: " + sidedef.sectorId);
-                // Potentially assign a default/dummy sector or handle error
-            }
+        if (useAssetCache && assetCache == null) {
+            // Mappings stay readable after close(), so the writer can keep composing textures
+            this.assetData.writeCacheInBackground(cacheFile, contentHash, sounds);
         }
-    }
-
-    private void updateLinedefs() {
-        for (Linedef linedef : this.linedefs) {
-            if (linedef.frontSidedefId >= 0 && linedef.frontSidedefId < this.sidedefs.size()) {
-                linedef.frontSidedef = this.sidedefs.get(linedef.frontSidedefId);
-            } else {
-                LOGGER.warning("Invalid linedef front_sidedef_id: " + linedef.frontSidedefId);
-            }
 
-            if (linedef.backSidedefId == 0xFFFF || linedef.backSidedefId == -1) { // 0xFFFF as unsigned short
-                linedef.backSidedef = null;
-            } else {
-                if (linedef.backSidedefId >= 0 && linedef.backSidedefId < this.sidedefs.size()) {
-                    linedef.backSidedef = this.sidedefs.get(linedef.backSidedefId);
-                } else {
-                    LOGGER.warning("Invalid linedef back_sidedef_id: " + linedef.backSidedefId);
-                    linedef.backSidedef = null;
-                }
-            }
-        }
+        // Closes the file channels only; the mappings stay readable, so later maps can still be loaded
+        this.resources.close();
     }
 
-    private void updateSegs() {
-        for (Seg seg : this.segments) {
-            if (seg.startVertexId >= 0 && seg.startVertexId < this.vertexes.size()) {
-                seg.startVertex = this.vertexes.get(seg.startVertexId);
-            }
-            if (seg.endVertexId >= 0 && seg.endVertexId < this.vertexes.size()) {
-                seg.endVertex = this.vertexes.get(seg.endVertexId);
-            }
-            if (seg.linedefId >= 0 && seg.linedefId < this.linedefs.size()) {
-                seg.linedef = this.linedefs.get(seg.linedefId);
-            }
-
-            if (seg.linedef == null) {
-                LOGGER.warning("Seg has null linedef (id: " + seg.linedefId + "), skipping update.");
-                continue;
-            }
-
-            Sidedef frontSidedef, backSidedef;
-            if (seg.direction == 1) { // 1 means seg is on back side of linedef
-                frontSidedef = seg.linedef.backSidedef;
-                backSidedef = seg.linedef.frontSidedef;
-            } else { // 0 means seg is on front side of linedef
-                frontSidedef = seg.linedef.frontSidedef;
-                backSidedef = seg.linedef.backSidedef;
-            }
-
-            if (frontSidedef != null) {
-                seg.frontSector = frontSidedef.sector;
-            } else {
-                LOGGER.warning("Seg's effective front sidedef is null.");
-            }
-
-            if ((seg.linedef.flags & LINEDEF_FLAGS_MAP.get("TWO_SIDED")) != 0) {
-                if (backSidedef != null) {
-                    seg.backSector = backSidedef.sector;
-                } else {
-                    LOGGER.warning("Two-sided linedef but back sidedef is null for seg id: " + seg.linedefId);
-                    seg.backSector = null;
-                }
-            } else {
-                seg.backSector = null;
-            }
-
-            seg.angle = bamsToDegrees(seg.rawBamsAngle);
-
-            if (seg.frontSector != null && seg.backSector != null && frontSidedef != null) {
-                if ("-".equals(frontSidedef.upperTexture)) {
-                    seg.linedef.frontSidedef.upperTexture = backSidedef.upperTexture;
-                }
-                if ("-".equals(frontSidedef.lowerTexture)) {
-                    seg.linedef.frontSidedef.lowerTexture = backSidedef.lowerTexture;
-                }
-            }
-        }
+    /**
+     * @return True if any mounted WAD contains a map with this name.
+     */
+    public boolean hasMap(String mapName) {
+        return mapName != null && resources.getLumpDirectory().getLumpIndex(mapName.toUpperCase()) != -1;
     }
 
     /**
-     * Convert a 16-bit Binary Angle Measurement System (BAMS) value to degrees in [0,360).
-     * @param bams 16-bit BAMS angle
-     * @return angle in degrees
+     * Reads and links a map's lumps without touching the map currently in use.
+     * Safe to call from a worker thread while another map is being played.
      */
-    private static double bamsToDegrees(short bams) {
-        int unsigned = bams & 0xFFFF;
-        return unsigned * (360.0 / 65536.0);
+    public MapData loadMap(String mapName) throws IOException {
+        long start = System.nanoTime();
+        MapData data = new MapData(resources, mapName);
+        LOGGER.info("Loaded map " + data.mapName + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return data;
     }
-    
-    // Functional interface for reading data items
-    @FunctionalInterface
-    private interface ItemReader<T> {
-        T read(long offset) throws IOException;
+
+    /**
+     * Makes a loaded map the current one. Global assets are kept. Callers must rebuild any
+     * renderer or game state that captured the previous map's lists.
+     */
+    public void setMap(MapData map) {
+        this.map = map;
+        this.vertexes = map.vertexes;
+        this.linedefs = map.linedefs;
+        this.nodes = map.nodes;
+        this.subSectors = map.subSectors;
+        this.segments = map.segments;
+        this.things = map.things;
+        this.sidedefs = map.sidedefs;
+        this.sectors = map.sectors;
+        this.geometry = map.geometry;
     }
 
-    private <T> List<T> getLumpData(ItemReader<T> readerFunc, int lumpIndexInDir, int numBytesPerItem) throws IOException {
-        if (lumpIndexInDir < 0 || lumpIndexInDir >= reader.getDirectory().size()) {
-            LOGGER.warning("Invalid lump index: " + lumpIndexInDir);
-            return new ArrayList<>();
-        }
-        LumpInfo lumpInfo = reader.getDirectory().get(lumpIndexInDir);
-        int count = lumpInfo.lumpSize / numBytesPerItem;
-        List<T> data = new ArrayList<>(count);
-        for (int i = 0; i < count; i++) {
-            long offset = lumpInfo.lumpOffset + (long)i * numBytesPerItem;
-            data.add(readerFunc.read(offset));
-        }
-        return data;
+    public MapData getMap() {
+        return map;
     }
 
-    private int getLumpIndexByName(String lumpName) {
-        List<LumpInfo> directory = reader.getDirectory();
-        for (int i = 0; i < directory.size(); i++) {
-            if (lumpName.equalsIgnoreCase(directory.get(i).lumpName)) {
-                return i;
-            }
-        }
-        return -1; // Not found
+    public String getMapName() {
+        return map.mapName;
     }
 
-    private void loadSounds() {
-        SoundEngine soundEngine = SoundEngine.getInstance();
-        int soundsLoaded = 0;
-        
+    private Map<String, AudioClip> decodeSounds() {
         LOGGER.info("Loading sounds from WAD...");
         
-        // Load all sound lumps (they start with DS)
-        for (LumpInfo lumpInfo : reader.getDirectory()) {
-            if (lumpInfo.lumpName.startsWith("DS") && lumpInfo.lumpSize > 0) {
-                try {
-                    byte[] soundData = reader.readBytesFromFile(lumpInfo.lumpOffset, lumpInfo.lumpSize);
-                    soundEngine.loadSound(lumpInfo.lumpName, soundData);
-                    soundsLoaded++;
-                } catch (IOException e) {
-                    LOGGER.warning("Failed to load sound: " + lumpInfo.lumpName + " - " + e.getMessage());
-                }
+        // Collect all sound lumps (they start with DS); only the topmost copy of each name is decoded
+        LumpDirectory lumps = resources.getLumpDirectory();
+        List<LumpInfo> soundLumps = new ArrayList<>();
+        for (int i = 0; i < lumps.size(); i++) {
+            LumpInfo lumpInfo = lumps.get(i);
+            if (lumpInfo.lumpName.startsWith("DS") && lumpInfo.lumpSize > 0 &&
+                    lumps.getLumpIndex(lumpInfo.lumpName) == i) {
+                soundLumps.add(lumpInfo);
             }
         }
-        
-        LOGGER.info("Loaded " + soundsLoaded + " sounds from WAD");
+
+        // Convert the DMX data in parallel, then collect in directory order
+        List<AudioClip> clips = soundLumps.parallelStream().map(this::decodeSound).toList();
+        Map<String, AudioClip> sounds = new LinkedHashMap<>();
+        for (int i = 0; i < soundLumps.size(); i++) {
+            if (clips.get(i) != null) {
+                sounds.put(soundLumps.get(i).lumpName, clips.get(i));
+            }
+        }
+        return sounds;
+    }
+
+    private AudioClip decodeSound(LumpInfo lumpInfo) {
+        ByteBuffer lump = resources.getLumpBuffer(lumpInfo);
+        byte[] soundData = new byte[lumpInfo.lumpSize];
+        lump.get(0, soundData);
+        try {
+            return new AudioClip(soundData);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to load sound: " + lumpInfo.lumpName, e);
+            return null;
+        }
     }
 }
\ No newline at end of file
@@ -3,19 +3,32 @@ package com.doomengine.wad;
 import com.doomengine.geometry.Vector2D;
 import com.doomengine.wad.datatypes.*;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.charset.StandardCharsets;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.logging.Logger;
+
+/**
+ * Reads a WAD file through a read-only memory mapping of the whole file.
+ * All field reads are absolute, little-endian gets on the mapping, so decoding a lump
+ * costs neither a syscall nor a temporary buffer. Lump contents are exposed as
+ * zero-copy {@link ByteBuffer} slices via {@link #getLumpBuffer(LumpInfo)}.
+ */
 public class WADReader implements AutoCloseable {
-    private final RandomAccessFile wadFile;
+    private static final Logger LOGGER = Logger.getLogger(WADReader.class.getName());
+
+    private final FileChannel wadChannel;
+    private final MappedByteBuffer wadBuffer; // Whole file, little-endian (DOOM WADs are little-endian)
     private final WADHeaderInfo header;
     private final List<LumpInfo> directory;
+    private final LumpDirectory lumpDirectory;
 
     public static class WADHeaderInfo {
         public String wadType;
@@ -27,56 +40,89 @@ public class WADReader implements AutoCloseable {
         public int lumpOffset;
         public int lumpSize;
         public String lumpName;
+        public WADReader source; // WAD file the lump lives in
     }
 
     public WADReader(String wadPath) throws IOException {
-        this.wadFile = new RandomAccessFile(new File(wadPath), "r");
-        this.header = readHeader();
-        this.directory = readDirectory();
+        this.wadChannel = FileChannel.open(Path.of(wadPath), StandardOpenOption.READ);
+        try {
+            long fileSize = wadChannel.size();
+            if (fileSize < 12) {
+                throw new IOException("Not a WAD file (too short): " + wadPath);
+            }
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("WAD file too large to map: " + wadPath);
+            }
+            this.wadBuffer = wadChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            this.wadBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            this.header = readHeader();
+            this.directory = readDirectory();
+            this.lumpDirectory = new LumpDirectory(this.directory);
+        } catch (IOException | RuntimeException e) {
+            wadChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a zero-copy, read-only, little-endian view of a lump's contents.
+     * Positions in the returned buffer are relative to the start of the lump.
+     * The view stays valid after {@link #close()}; the mapping is released once unreachable.
+     */
+    public ByteBuffer getLumpBuffer(LumpInfo lumpInfo) {
+        return wadBuffer.slice(lumpInfo.lumpOffset, lumpInfo.lumpSize).order(ByteOrder.LITTLE_ENDIAN);
     }
 
-    public byte[] readBytesFromFile(long offset, int numBytes) throws IOException {
-        wadFile.seek(offset);
+    /**
+     * Feeds the whole file into a digest, straight from the mapping.
+     */
+    public void updateDigest(MessageDigest digest) {
+        digest.update(wadBuffer.duplicate().clear());
+    }
+
+    public byte[] readBytesFromFile(long offset, int numBytes) {
         byte[] buffer = new byte[numBytes];
-        wadFile.readFully(buffer);
+        wadBuffer.get((int) offset, buffer);
         return buffer;
     }
 
-    private ByteBuffer getByteBuffer(long offset, int numBytes) throws IOException {
-        byte[] bytes = readBytesFromFile(offset, numBytes);
-        ByteBuffer bb = ByteBuffer.wrap(bytes);
-        bb.order(ByteOrder.LITTLE_ENDIAN); // DOOM WADs are little-endian
-        return bb;
+    // Read methods for different data types (absolute file offsets)
+    public int read1Byte(long offset) { // Unsigned byte
+        return Byte.toUnsignedInt(wadBuffer.get((int) offset));
     }
 
-    // Read methods for different data types
-    public int read1Byte(long offset) throws IOException { // Unsigned byte
-        return Byte.toUnsignedInt(getByteBuffer(offset, 1).get());
+    public short readSignedShort(long offset) { // 'h'
+        return wadBuffer.getShort((int) offset);
     }
 
-    public short readSignedShort(long offset) throws IOException { // 'h'
-        return getByteBuffer(offset, 2).getShort();
+    public int readUnsignedShort(long offset) { // 'H'
+        return Short.toUnsignedInt(wadBuffer.getShort((int) offset));
     }
 
-    public int readUnsignedShort(long offset) throws IOException { // 'H'
-        return Short.toUnsignedInt(getByteBuffer(offset, 2).getShort());
+    public int readSignedInt(long offset) { // 'i'
+        return wadBuffer.getInt((int) offset);
     }
 
-    public int readSignedInt(long offset) throws IOException { // 'i'
-        return getByteBuffer(offset, 4).getInt();
+    public long readUnsignedInt(long offset) { // 'I' (Java doesn't have unsigned int directly)
+        return Integer.toUnsignedLong(wadBuffer.getInt((int) offset));
     }
 
-    public long readUnsignedInt(long offset) throws IOException { // 'I' (Java doesn't have unsigned int directly)
-        return Integer.toUnsignedLong(getByteBuffer(offset, 4).getInt());
+    public String readString(long offset, int numBytes) {
+        return readString(wadBuffer, (int) offset, numBytes);
     }
 
-    public String readString(long offset, int numBytes) throws IOException {
-        byte[] bytes = readBytesFromFile(offset, numBytes);
+    // Reads a zero-padded ASCII name (lump names, texture names) from a buffer
+    public static String readString(ByteBuffer buffer, int offset, int numBytes) {
+        char[] chars = new char[numBytes];
         int len = 0;
-        while (len < numBytes && bytes[len] != 0) {
-            len++;
+        while (len < numBytes) {
+            byte b = buffer.get(offset + len);
+            if (b == 0) {
+                break;
+            }
+            chars[len++] = (char) (b & 0x7F);
         }
-        return new String(bytes, 0, len, StandardCharsets.US_ASCII).toUpperCase();
+        return new String(chars, 0, len).toUpperCase();
     }
 
 
@@ -89,82 +135,96 @@ public class WADReader implements AutoCloseable {
     }
 
     private List<LumpInfo> readDirectory() throws IOException {
-        List<LumpInfo> dir = new ArrayList<>();
+        long dirEnd = this.header.initOffset + (long) this.header.lumpCount * 16;
+        if (this.header.lumpCount < 0 || this.header.initOffset < 0 || dirEnd > wadBuffer.capacity()) {
+            throw new IOException("Corrupt WAD directory (" + this.header.lumpCount + " lumps at " + this.header.initOffset + ")");
+        }
+        List<LumpInfo> dir = new ArrayList<>(this.header.lumpCount);
         for (int i = 0; i < this.header.lumpCount; i++) {
             long entryOffset = this.header.initOffset + (long)i * 16;
             LumpInfo lumpInfo = new LumpInfo();
             lumpInfo.lumpOffset = readSignedInt(entryOffset);
             lumpInfo.lumpSize = readSignedInt(entryOffset + 4);
             lumpInfo.lumpName = readString(entryOffset + 8, 8);
+            lumpInfo.source = this;
+            if (lumpInfo.lumpOffset < 0 || lumpInfo.lumpSize < 0 ||
+                    (long) lumpInfo.lumpOffset + lumpInfo.lumpSize > wadBuffer.capacity()) {
+                LOGGER.warning("Lump " + lumpInfo.lumpName + " lies outside the WAD file, treating it as empty");
+                lumpInfo.lumpOffset = 0;
+                lumpInfo.lumpSize = 0;
+            }
             dir.add(lumpInfo);
         }
         return dir;
     }
 
+    public String getWadType() {
+        return header.wadType;
+    }
+
     public List<LumpInfo> getDirectory() {
         return directory;
     }
 
+    public LumpDirectory getLumpDirectory() {
+        return lumpDirectory;
+    }
+
     public LumpInfo getLumpInfo(String lumpName) {
-        for (LumpInfo info : directory) {
-            if (lumpName.equalsIgnoreCase(info.lumpName)) {
-                return info;
-            }
-        }
-        return null;
+        return lumpDirectory.getLumpInfo(lumpName);
     }
 
 
-    // Methods to read specific WAD structures
-    public TextureMap readTextureMap(long offset) throws IOException {
+    // Methods to read specific WAD structures.
+    // Offsets are relative to the lump buffer passed in (see getLumpBuffer), so they
+    // work on lumps from any mounted WAD.
+    public static TextureMap readTextureMap(ByteBuffer lump, int offset) {
         TextureMap texMap = new TextureMap();
-        texMap.name = readString(offset, 8);
-        texMap.flags = (int) readUnsignedInt(offset + 8); // Assuming 'I' maps to unsigned int
-        texMap.width = readUnsignedShort(offset + 12);
-        texMap.height = readUnsignedShort(offset + 14);
-        // texMap.columnDir = readUnsignedInt(offset + 16); // unused
-        texMap.patchCount = readUnsignedShort(offset + 20);
-
-        texMap.patchMaps = new ArrayList<>();
+        texMap.name = readString(lump, offset, 8);
+        texMap.flags = lump.getInt(offset + 8); // Assuming 'I' maps to unsigned int
+        texMap.width = Short.toUnsignedInt(lump.getShort(offset + 12));
+        texMap.height = Short.toUnsignedInt(lump.getShort(offset + 14));
+        // texMap.columnDir = lump.getInt(offset + 16); // unused
+        texMap.patchCount = Short.toUnsignedInt(lump.getShort(offset + 20));
+
+        texMap.patchMaps = new ArrayList<>(texMap.patchCount);
         for (int i = 0; i < texMap.patchCount; i++) {
-            texMap.patchMaps.add(readPatchMap(offset + 22 + (long)i * 10));
+            texMap.patchMaps.add(readPatchMap(lump, offset + 22 + i * 10));
         }
         return texMap;
     }
 
-    public PatchMap readPatchMap(long offset) throws IOException {
+    public static PatchMap readPatchMap(ByteBuffer lump, int offset) {
         PatchMap patchMap = new PatchMap();
-        patchMap.xOffset = readSignedShort(offset);
-        patchMap.yOffset = readSignedShort(offset + 2);
-        patchMap.pNameIndex = readUnsignedShort(offset + 4);
+        patchMap.xOffset = lump.getShort(offset);
+        patchMap.yOffset = lump.getShort(offset + 2);
+        patchMap.pNameIndex = Short.toUnsignedInt(lump.getShort(offset + 4));
         return patchMap;
     }
 
-    public TextureHeader readTextureHeader(long offset) throws IOException {
+    public static TextureHeader readTextureHeader(ByteBuffer lump) {
         TextureHeader texHeader = new TextureHeader();
-        texHeader.textureCount = (int) readUnsignedInt(offset); // Assuming 'I'
+        texHeader.textureCount = lump.getInt(0); // Assuming 'I'
 
-        texHeader.textureDataOffset = new ArrayList<>();
+        texHeader.textureDataOffset = new ArrayList<>(texHeader.textureCount);
         for (int i = 0; i < texHeader.textureCount; i++) {
-            texHeader.textureDataOffset.add((int)readUnsignedInt(offset + 4 + (long)i * 4));
+            texHeader.textureDataOffset.add(lump.getInt(4 + i * 4));
         }
         return texHeader;
     }
 
     // Returns PatchColumn and the new offset to read the next column from
-    public Pair<PatchColumn, Long> readPatchColumn(long offset) throws IOException {
+    public static Pair<PatchColumn, Integer> readPatchColumn(ByteBuffer lump, int offset) {
         PatchColumn patchColumn = new PatchColumn();
-        patchColumn.topDelta = read1Byte(offset);
+        patchColumn.topDelta = Byte.toUnsignedInt(lump.get(offset));
 
         if (patchColumn.topDelta != 0xFF) {
-            patchColumn.length = read1Byte(offset + 1);
-            // patchColumn.paddingPre = read1Byte(offset + 2); // unused
+            patchColumn.length = Byte.toUnsignedInt(lump.get(offset + 1));
+            // patchColumn.paddingPre = lump.get(offset + 2); // unused
 
-            patchColumn.data = new ArrayList<>();
-            for (int i = 0; i < patchColumn.length; i++) {
-                patchColumn.data.add(read1Byte(offset + 3 + i));
-            }
-            // patchColumn.paddingPost = read1Byte(offset + 3 + patchColumn.length); // unused
+            patchColumn.data = new byte[patchColumn.length];
+            lump.get(offset + 3, patchColumn.data);
+            // patchColumn.paddingPost = lump.get(offset + 3 + patchColumn.length); // unused
             return new Pair<>(patchColumn, offset + 4 + patchColumn.length);
         }
         return new Pair<>(patchColumn, offset + 1);
@@ -177,150 +237,129 @@ public class WADReader implements AutoCloseable {
     }
 
 
-    public PatchHeader readPatchHeader(long offset) throws IOException {
+    public static PatchHeader readPatchHeader(ByteBuffer lump) {
         PatchHeader patchHeader = new PatchHeader();
-        patchHeader.width = readUnsignedShort(offset);
-        patchHeader.height = readUnsignedShort(offset + 2);
-        patchHeader.leftOffset = readSignedShort(offset + 4);
-        patchHeader.topOffset = readSignedShort(offset + 6);
+        patchHeader.width = Short.toUnsignedInt(lump.getShort(0));
+        patchHeader.height = Short.toUnsignedInt(lump.getShort(2));
+        patchHeader.leftOffset = lump.getShort(4);
+        patchHeader.topOffset = lump.getShort(6);
 
-        patchHeader.columnOffset = new ArrayList<>();
+        patchHeader.columnOffset = new ArrayList<>(patchHeader.width);
         for (int i = 0; i < patchHeader.width; i++) {
-            patchHeader.columnOffset.add((int)readUnsignedInt(offset + 8 + (long)i * 4));
+            patchHeader.columnOffset.add(lump.getInt(8 + i * 4));
         }
         return patchHeader;
     }
 
-    public List<int[]> readPalette(long offset) throws IOException { // List of RGB int arrays
-        List<int[]> palette = new ArrayList<>();
+    public static List<int[]> readPalette(ByteBuffer lump, int offset) { // List of RGB int arrays
+        List<int[]> palette = new ArrayList<>(256);
         for (int i = 0; i < 256; i++) {
-            int r = read1Byte(offset + (long)i * 3);
-            int g = read1Byte(offset + (long)i * 3 + 1);
-            int b = read1Byte(offset + (long)i * 3 + 2);
+            int r = Byte.toUnsignedInt(lump.get(offset + i * 3));
+            int g = Byte.toUnsignedInt(lump.get(offset + i * 3 + 1));
+            int b = Byte.toUnsignedInt(lump.get(offset + i * 3 + 2));
             palette.add(new int[]{r, g, b});
         }
         return palette;
     }
 
-    public Sector readSector(long offset) throws IOException {
+    public static Sector readSector(ByteBuffer lump, int offset) {
         Sector sector = new Sector();
-        sector.floorHeight = readSignedShort(offset);
-        sector.ceilHeight = readSignedShort(offset + 2);
-        sector.floorTexture = readString(offset + 4, 8);
-        sector.ceilTexture = readString(offset + 12, 8);
-        sector.lightLevel = readUnsignedShort(offset + 20) / 255.0;
-        sector.type = readUnsignedShort(offset + 22);
-        sector.tag = readUnsignedShort(offset + 24);
+        sector.floorHeight = lump.getShort(offset);
+        sector.ceilHeight = lump.getShort(offset + 2);
+        sector.floorTexture = readString(lump, offset + 4, 8);
+        sector.ceilTexture = readString(lump, offset + 12, 8);
+        sector.lightLevel = Short.toUnsignedInt(lump.getShort(offset + 20)) / 255.0;
+        sector.type = Short.toUnsignedInt(lump.getShort(offset + 22));
+        sector.tag = Short.toUnsignedInt(lump.getShort(offset + 24));
         return sector;
     }
 
-    public Sidedef readSidedef(long offset) throws IOException {
+    public static Sidedef readSidedef(ByteBuffer lump, int offset) {
         Sidedef sidedef = new Sidedef();
-        sidedef.xOffset = readSignedShort(offset);
-        sidedef.yOffset = readSignedShort(offset + 2);
-        sidedef.upperTexture = readString(offset + 4, 8);
-        sidedef.lowerTexture = readString(offset + 12, 8);
-        sidedef.middleTexture = readString(offset + 20, 8);
-        sidedef.sectorId = readUnsignedShort(offset + 28);
+        sidedef.xOffset = lump.getShort(offset);
+        sidedef.yOffset = lump.getShort(offset + 2);
+        sidedef.upperTexture = readString(lump, offset + 4, 8);
+        sidedef.lowerTexture = readString(lump, offset + 12, 8);
+        sidedef.middleTexture = readString(lump, offset + 20, 8);
+        sidedef.sectorId = Short.toUnsignedInt(lump.getShort(offset + 28));
         return sidedef;
     }
 
-    public Thing readThing(long offset) throws IOException {
+    public static Thing readThing(ByteBuffer lump, int offset) {
         Thing thing = new Thing();
-        short x = readSignedShort(offset);
-        short y = readSignedShort(offset + 2);
+        short x = lump.getShort(offset);
+        short y = lump.getShort(offset + 2);
         thing.pos = new Vector2D(x, y);
-        thing.angle = readUnsignedShort(offset + 4);
-        thing.type = readUnsignedShort(offset + 6);
-        thing.flags = readUnsignedShort(offset + 8);
+        thing.angle = Short.toUnsignedInt(lump.getShort(offset + 4));
+        thing.type = Short.toUnsignedInt(lump.getShort(offset + 6));
+        thing.flags = Short.toUnsignedInt(lump.getShort(offset + 8));
         return thing;
     }
 
-    // In WADReader.java
-    public Seg readSegment(long offset) throws IOException {
+    public static Seg readSegment(ByteBuffer lump, int offset) {
         Seg seg = new Seg();
-        seg.startVertexId = readSignedShort(offset);
-        seg.endVertexId = readSignedShort(offset + 2);
-        // seg.angle = readSignedShort(offset + 4); // Seg.angle IS DOUBLE. This line is the direct cause if Seg.angle is double.
-        // You cannot assign a short to a double field named 'angle' and then
-        // later assign a double to the same field without problems IF it was short.
-
-        // Let's assume Seg.angle is indeed double.
-        // We need to read the short BAMS value first.
-        short bamsAngleRaw = readSignedShort(offset + 4); // Read the raw short
-
-        seg.linedefId = readSignedShort(offset + 6);
-        seg.direction = readSignedShort(offset + 8);
-        seg.offset = readSignedShort(offset + 10);
-
-        // Now, in WADData.updateSegs, we will use bamsAngleRaw to calculate the final double seg.angle.
-        // So, how does WADData get bamsAngleRaw?
-        // We can add a temporary field to Seg to pass this:
-        // In Seg.java: public short rawBamsAngle; (and initialize Seg.angle to 0.0 initially)
-        // Then in WADReader: seg.rawBamsAngle = readSignedShort(offset+4);
-
-        // OR, WADReader.readSegment could return a more complex object or a Pair,
-        // but that complicates getLumpData.
-
-        // Simplest for now: Add rawBamsAngle to Seg.java
-        // In Seg.java:
-
-        seg.rawBamsAngle = bamsAngleRaw; // Store it temporarily
-
+        seg.startVertexId = lump.getShort(offset);
+        seg.endVertexId = lump.getShort(offset + 2);
+        // The raw BAMS angle is converted to degrees in WADDataService.updateSegs
+        seg.rawBamsAngle = lump.getShort(offset + 4);
+        seg.linedefId = lump.getShort(offset + 6);
+        seg.direction = lump.getShort(offset + 8);
+        seg.offset = lump.getShort(offset + 10);
         return seg;
     }
 
-    public SubSector readSubSector(long offset) throws IOException {
+    public static SubSector readSubSector(ByteBuffer lump, int offset) {
         SubSector subSector = new SubSector();
-        subSector.segCount = readSignedShort(offset);
-        subSector.firstSegId = readSignedShort(offset + 2);
+        subSector.segCount = lump.getShort(offset);
+        subSector.firstSegId = lump.getShort(offset + 2);
         return subSector;
     }
 
-    public Node readNode(long offset) throws IOException {
+    public static Node readNode(ByteBuffer lump, int offset) {
         Node node = new Node();
-        node.xPartition = readSignedShort(offset);
-        node.yPartition = readSignedShort(offset + 2);
-        node.dxPartition = readSignedShort(offset + 4);
-        node.dyPartition = readSignedShort(offset + 6);
-
-        node.bbox.get("front").top = readSignedShort(offset + 8);
-        node.bbox.get("front").bottom = readSignedShort(offset + 10);
-        node.bbox.get("front").left = readSignedShort(offset + 12);
-        node.bbox.get("front").right = readSignedShort(offset + 14);
-
-        node.bbox.get("back").top = readSignedShort(offset + 16);
-        node.bbox.get("back").bottom = readSignedShort(offset + 18);
-        node.bbox.get("back").left = readSignedShort(offset + 20);
-        node.bbox.get("back").right = readSignedShort(offset + 22);
-
-        node.frontChildId = readUnsignedShort(offset + 24);
-        node.backChildId = readUnsignedShort(offset + 26);
+        node.xPartition = lump.getShort(offset);
+        node.yPartition = lump.getShort(offset + 2);
+        node.dxPartition = lump.getShort(offset + 4);
+        node.dyPartition = lump.getShort(offset + 6);
+
+        node.frontBBox.top = lump.getShort(offset + 8);
+        node.frontBBox.bottom = lump.getShort(offset + 10);
+        node.frontBBox.left = lump.getShort(offset + 12);
+        node.frontBBox.right = lump.getShort(offset + 14);
+
+        node.backBBox.top = lump.getShort(offset + 16);
+        node.backBBox.bottom = lump.getShort(offset + 18);
+        node.backBBox.left = lump.getShort(offset + 20);
+        node.backBBox.right = lump.getShort(offset + 22);
+
+        node.frontChildId = Short.toUnsignedInt(lump.getShort(offset + 24));
+        node.backChildId = Short.toUnsignedInt(lump.getShort(offset + 26));
         return node;
     }
 
-    public Linedef readLinedef(long offset) throws IOException {
+    public static Linedef readLinedef(ByteBuffer lump, int offset) {
         Linedef linedef = new Linedef();
-        linedef.startVertexId = readUnsignedShort(offset);
-        linedef.endVertexId = readUnsignedShort(offset + 2);
-        linedef.flags = readUnsignedShort(offset + 4);
-        linedef.lineType = readUnsignedShort(offset + 6);
-        linedef.sectorTag = readUnsignedShort(offset + 8);
-        linedef.frontSidedefId = readUnsignedShort(offset + 10);
-        linedef.backSidedefId = readUnsignedShort(offset + 12); // 0xFFFF is -1 as short, check unsigned
+        linedef.startVertexId = Short.toUnsignedInt(lump.getShort(offset));
+        linedef.endVertexId = Short.toUnsignedInt(lump.getShort(offset + 2));
+        linedef.flags = Short.toUnsignedInt(lump.getShort(offset + 4));
+        linedef.lineType = Short.toUnsignedInt(lump.getShort(offset + 6));
+        linedef.sectorTag = Short.toUnsignedInt(lump.getShort(offset + 8));
+        linedef.frontSidedefId = Short.toUnsignedInt(lump.getShort(offset + 10));
+        linedef.backSidedefId = Short.toUnsignedInt(lump.getShort(offset + 12)); // 0xFFFF is -1 as short, check unsigned
         return linedef;
     }
 
-    public Vector2D readVertex(long offset) throws IOException {
-        short x = readSignedShort(offset);
-        short y = readSignedShort(offset + 2);
+    public static Vector2D readVertex(ByteBuffer lump, int offset) {
+        short x = lump.getShort(offset);
+        short y = lump.getShort(offset + 2);
         return new Vector2D(x, y);
     }
 
     @Override
     public void close() throws IOException {
-        if (wadFile != null) {
-            wadFile.close();
+        // The mapping itself outlives the channel; lump buffers handed out remain readable.
+        if (wadChannel != null) {
+            wadChannel.close();
         }
     }
 }
\ No newline at end of file
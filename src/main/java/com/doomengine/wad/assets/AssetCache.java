@@ -0,0 +1,363 @@
+package com.doomengine.wad.assets;
+
+import com.doomengine.audio.AudioClip;
+import com.doomengine.wad.WADReader;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * On-disk cache of fully decoded assets, keyed by the content hash of the mounted WADs.
+ * <p>
+ * The file holds composed wall textures and flats and unscaled sprite and HUD patches
+ * (column-major palette indices plus an optional opacity bitmask, see {@link IndexedImage}),
+ * palettes and converted PCM sound data.
+ * It is written once after a cold load and memory-mapped on later launches; textures
+ * are copied out of the mapping only when first requested.
+ * <p>
+ * Layout (little-endian): a header with magic, version, content hash and the offset of
+ * the index, followed by the raw pixel/sample blobs, followed by the index itself.
+ */
+public final class AssetCache {
+    private static final Logger LOGGER = Logger.getLogger(AssetCache.class.getName());
+
+    private static final int MAGIC = 0x43414A44; // "DJAC"
+    private static final int VERSION = 2;
+    private static final int HASH_BYTES = 32;    // Leading hex digits of the content hash
+    private static final int HEADER_BYTES = 4 + 4 + HASH_BYTES + 8;
+    private static final String TEMP_PREFIX = "assets";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // Older temp files were left by a writer that died; younger ones may still be being written
+    private static final long STALE_TEMP_MILLIS = 10 * 60 * 1000;
+
+    /** A cached sprite or HUD patch: unscaled paletted texels plus offsets. */
+    public record CachedPatch(String name, int width, int height, int leftOffset, int topOffset, IndexedImage pixels) {
+    }
+
+    private record TextureEntry(int width, int height, int dataOffset, int maskOffset) {
+    }
+
+    private final MappedByteBuffer buffer;
+    private final List<List<int[]>> palettes;
+    private final Map<String, TextureEntry> textures;
+    private final List<CachedPatch> patches;
+    private final Map<String, AudioClip> sounds;
+
+    private AssetCache(MappedByteBuffer buffer, int indexOffset) {
+        this.buffer = buffer;
+        int pos = indexOffset;
+
+        int paletteCount = buffer.getInt(pos);
+        pos += 4;
+        this.palettes = new ArrayList<>(paletteCount);
+        for (int p = 0; p < paletteCount; p++) {
+            palettes.add(WADReader.readPalette(buffer, pos));
+            pos += 256 * 3;
+        }
+
+        int textureCount = buffer.getInt(pos);
+        pos += 4;
+        this.textures = new HashMap<>(textureCount * 2);
+        for (int i = 0; i < textureCount; i++) {
+            String name = WADReader.readString(buffer, pos, 8);
+            textures.put(name, new TextureEntry(buffer.getInt(pos + 8), buffer.getInt(pos + 12),
+                    buffer.getInt(pos + 16), buffer.getInt(pos + 20)));
+            pos += 24;
+        }
+
+        int patchCount = buffer.getInt(pos);
+        pos += 4;
+        this.patches = new ArrayList<>(patchCount);
+        for (int i = 0; i < patchCount; i++) {
+            String name = WADReader.readString(buffer, pos, 8);
+            int width = Short.toUnsignedInt(buffer.getShort(pos + 8));
+            int height = Short.toUnsignedInt(buffer.getShort(pos + 10));
+            int leftOffset = buffer.getShort(pos + 12);
+            int topOffset = buffer.getShort(pos + 14);
+            IndexedImage pixels = readImage(width, height, buffer.getInt(pos + 16), buffer.getInt(pos + 20));
+            patches.add(new CachedPatch(name, width, height, leftOffset, topOffset, pixels));
+            pos += 24;
+        }
+
+        int soundCount = buffer.getInt(pos);
+        pos += 4;
+        this.sounds = new LinkedHashMap<>();
+        for (int i = 0; i < soundCount; i++) {
+            String name = WADReader.readString(buffer, pos, 8);
+            AudioFormat format = new AudioFormat(
+                    buffer.get(pos + 16) != 0 ? AudioFormat.Encoding.PCM_SIGNED : AudioFormat.Encoding.PCM_UNSIGNED,
+                    buffer.getFloat(pos + 8),
+                    buffer.get(pos + 12),     // Sample size in bits
+                    buffer.get(pos + 13),     // Channels
+                    buffer.get(pos + 14),     // Frame size
+                    buffer.getFloat(pos + 8), // Frame rate
+                    buffer.get(pos + 15) != 0 // Big endian
+            );
+            int length = buffer.getInt(pos + 20);
+            int dataOffset = buffer.getInt(pos + 24);
+            byte[] pcm = new byte[length];
+            buffer.get(dataOffset, pcm);
+            sounds.put(name, new AudioClip(pcm, format));
+            pos += 28;
+        }
+    }
+
+    /**
+     * Location of the cache file for a given content hash: {@code ~/.doomj/cache/<hash>.bin}.
+     */
+    public static Path cacheFileFor(String contentHash) {
+        return Path.of(System.getProperty("user.home"), ".doomj", "cache", contentHash + ".bin");
+    }
+
+    /**
+     * Maps an existing cache file.
+     * @return The cache, or null if the file is missing, stale or unreadable.
+     */
+    public static AssetCache open(Path file, String contentHash) {
+        deleteStaleTempFiles(file.getParent());
+        if (!Files.isRegularFile(file)) return null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                LOGGER.info("Ignoring asset cache with old format: " + file);
+                return null;
+            }
+            byte[] hash = new byte[HASH_BYTES];
+            buffer.get(8, hash);
+            if (!new String(hash, StandardCharsets.US_ASCII).equals(hashPrefix(contentHash))) {
+                LOGGER.info("Ignoring asset cache for different WAD contents: " + file);
+                return null;
+            }
+            long indexOffset = buffer.getLong(8 + HASH_BYTES);
+            if (indexOffset < HEADER_BYTES || indexOffset >= size) return null;
+            return new AssetCache(buffer, (int) indexOffset);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to read asset cache " + file + ", ignoring it", e);
+            return null;
+        }
+    }
+
+    /**
+     * Removes half-written cache files left by processes that exited mid-write.
+     */
+    private static void deleteStaleTempFiles(Path dir) {
+        if (dir == null || !Files.isDirectory(dir)) return;
+        long cutoff = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(dir, TEMP_PREFIX + "*" + TEMP_SUFFIX)) {
+            for (Path temp : temps) {
+                try {
+                    if (Files.getLastModifiedTime(temp).toMillis() < cutoff) {
+                        Files.deleteIfExists(temp);
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Could not remove stale asset cache file " + temp, e);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not list asset cache directory " + dir, e);
+        }
+    }
+
+    private static String hashPrefix(String contentHash) {
+        String padded = contentHash.length() >= HASH_BYTES ? contentHash : String.format("%-" + HASH_BYTES + "s", contentHash);
+        return padded.substring(0, HASH_BYTES);
+    }
+
+    // Texels are stored column by column; maskOffset is -1 for fully opaque images
+    private IndexedImage readImage(int width, int height, int dataOffset, int maskOffset) {
+        byte[] texels = new byte[width * height];
+        buffer.get(dataOffset, texels);
+        long[] opaque = null;
+        if (maskOffset >= 0) {
+            opaque = new long[(width * height + 63) >>> 6];
+            buffer.slice(maskOffset, opaque.length * 8).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(opaque);
+        }
+        return new IndexedImage(width, height, texels, opaque);
+    }
+
+    public List<List<int[]>> getPalettes() {
+        return palettes;
+    }
+
+    public boolean hasTexture(String name) {
+        return textures.containsKey(name);
+    }
+
+    /**
+     * Copies a composed texture or flat out of the mapping.
+     * @return The texels, or null if the texture is not cached.
+     */
+    public IndexedImage getTexture(String name) {
+        TextureEntry entry = textures.get(name);
+        if (entry == null) return null;
+        return readImage(entry.width, entry.height, entry.dataOffset, entry.maskOffset);
+    }
+
+    /** Sprites and HUD graphics, in the order they were written. */
+    public List<CachedPatch> getPatches() {
+        return patches;
+    }
+
+    /** Converted sound clips by lump name, in the order they were written. */
+    public Map<String, AudioClip> getSounds() {
+        return sounds;
+    }
+
+    /**
+     * Writes a cache file. Textures are produced one at a time by {@code textureSource}
+     * so the whole set never has to be resident at once. The file is written next to its
+     * final location and moved into place atomically.
+     */
+    public static void write(Path file, String contentHash, List<List<int[]>> palettes,
+                             List<String> textureNames, Function<String, IndexedImage> textureSource,
+                             List<CachedPatch> patches, Map<String, AudioClip> sounds) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), TEMP_PREFIX, TEMP_SUFFIX);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.position(HEADER_BYTES);
+
+            // Blobs first, remembering where each one went
+            List<String> writtenTextures = new ArrayList<>();
+            List<int[]> textureIndex = new ArrayList<>(); // {width, height, dataOffset, maskOffset}
+            for (String name : textureNames) {
+                IndexedImage image = textureSource.apply(name);
+                if (image == null || image.width == 0) continue;
+                int[] offsets = writeImage(out, image);
+                writtenTextures.add(name);
+                textureIndex.add(new int[]{image.width, image.height, offsets[0], offsets[1]});
+            }
+
+            int[][] patchOffsets = new int[patches.size()][];
+            for (int i = 0; i < patches.size(); i++) {
+                patchOffsets[i] = writeImage(out, patches.get(i).pixels());
+            }
+
+            List<Map.Entry<String, AudioClip>> soundList = new ArrayList<>(sounds.entrySet());
+            int[] soundOffsets = new int[soundList.size()];
+            for (int i = 0; i < soundList.size(); i++) {
+                soundOffsets[i] = checkedOffset(out.position());
+                writeFully(out, ByteBuffer.wrap(soundList.get(i).getValue().getData()));
+            }
+
+            // Index
+            long indexOffset = out.position();
+            int indexSize = 4 + palettes.size() * 768
+                    + 4 + writtenTextures.size() * 24
+                    + 4 + patches.size() * 24
+                    + 4 + soundList.size() * 28;
+            ByteBuffer index = newBuffer(indexSize);
+            index.putInt(palettes.size());
+            for (List<int[]> palette : palettes) {
+                for (int[] rgb : palette) {
+                    index.put((byte) rgb[0]).put((byte) rgb[1]).put((byte) rgb[2]);
+                }
+            }
+            index.putInt(writtenTextures.size());
+            for (int i = 0; i < writtenTextures.size(); i++) {
+                int[] entry = textureIndex.get(i);
+                putName(index, writtenTextures.get(i));
+                index.putInt(entry[0]).putInt(entry[1]).putInt(entry[2]).putInt(entry[3]);
+            }
+            index.putInt(patches.size());
+            for (int i = 0; i < patches.size(); i++) {
+                CachedPatch patch = patches.get(i);
+                putName(index, patch.name());
+                index.putShort((short) patch.width()).putShort((short) patch.height())
+                        .putShort((short) patch.leftOffset()).putShort((short) patch.topOffset())
+                        .putInt(patchOffsets[i][0]).putInt(patchOffsets[i][1]);
+            }
+            index.putInt(soundList.size());
+            for (int i = 0; i < soundList.size(); i++) {
+                AudioClip clip = soundList.get(i).getValue();
+                AudioFormat format = clip.getAudioFormat();
+                putName(index, soundList.get(i).getKey());
+                index.putFloat(format.getSampleRate())
+                        .put((byte) format.getSampleSizeInBits())
+                        .put((byte) format.getChannels())
+                        .put((byte) format.getFrameSize())
+                        .put((byte) (format.isBigEndian() ? 1 : 0))
+                        .put((byte) (AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) ? 1 : 0))
+                        .put((byte) 0).put((byte) 0).put((byte) 0) // Padding
+                        .putInt(clip.getData().length)
+                        .putInt(soundOffsets[i]);
+            }
+            index.flip();
+            writeFully(out, index);
+
+            ByteBuffer header = newBuffer(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION);
+            header.put(hashPrefix(contentHash).getBytes(StandardCharsets.US_ASCII));
+            header.putLong(indexOffset);
+            header.flip();
+            out.position(0);
+            writeFully(out, header);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes an image's texels column by column, followed by its opacity mask if it has one.
+     * @return {dataOffset, maskOffset}, with maskOffset -1 for fully opaque images
+     */
+    private static int[] writeImage(FileChannel out, IndexedImage image) throws IOException {
+        ByteBuffer data = newBuffer(image.width * image.height);
+        data.put(image.texels);
+        int dataOffset = checkedOffset(out.position());
+        writeFully(out, data);
+
+        long[] mask = image.getOpacityMask();
+        if (mask == null) return new int[]{dataOffset, -1};
+        ByteBuffer maskData = newBuffer(mask.length * 8);
+        maskData.asLongBuffer().put(mask);
+        int maskOffset = checkedOffset(out.position());
+        writeFully(out, maskData);
+        return new int[]{dataOffset, maskOffset};
+    }
+
+    private static ByteBuffer newBuffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void putName(ByteBuffer buffer, String name) {
+        byte[] bytes = new byte[8];
+        byte[] src = name.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(src, 0, bytes, 0, Math.min(8, src.length));
+        buffer.put(bytes);
+    }
+
+    private static int checkedOffset(long position) throws IOException {
+        if (position > Integer.MAX_VALUE) throw new IOException("Asset cache exceeds 2 GB");
+        return (int) position;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer data) throws IOException {
+        data.position(0);
+        while (data.hasRemaining()) {
+            out.write(data);
+        }
+    }
+}
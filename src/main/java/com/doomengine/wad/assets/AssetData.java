@@ -1,120 +1,313 @@
 package com.doomengine.wad.assets;
 
+import com.doomengine.audio.AudioClip;
 import com.doomengine.misc.Constants;
 import com.doomengine.rendering.FrameBuffer; // Updated import
+import com.doomengine.wad.LumpDirectory;
+import com.doomengine.wad.LumpDirectory.Namespace;
+import com.doomengine.wad.ResourceStack;
 import com.doomengine.wad.WADReader;
 import com.doomengine.wad.WADReader.LumpInfo;
 import com.doomengine.wad.datatypes.*;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static com.doomengine.misc.Constants.TEXTURE_HEIGHT;
 import static com.doomengine.misc.Constants.TEXTURE_WIDTH;
 
 
 public class AssetData {
-    private final WADReader reader;
+    private final ResourceStack resources;
     private static final Logger LOGGER = Logger.getLogger(AssetData.class.getName());
-    private final List<LumpInfo> directory; // Keep a reference for getLumpIndex
+    private final LumpDirectory lumps; // Hashed, namespace-aware directory index
 
     public List<List<int[]>> palettes; // List of palettes, each palette is a List of int[3] RGB
     public int paletteIdx;
     public List<int[]> currentPalette; // Current active palette
+    public int[] currentPaletteArgb;   // Current palette packed as opaque ARGB; resolves texel indices at draw time
+    public byte[][] colormaps;         // COLORMAP light levels: [map][palette index] -> palette index
 
-    public Map<String, BufferedImage> sprites; // Name to BufferedImage
+    public Map<String, IndexedImage> sprites; // Unscaled paletted sprite and HUD graphics by lump name
+    private final Map<String, BufferedImage> spriteImages; // Screen-scaled ARGB copies for Graphics2D overlays, built on demand
     public List<String> pNames; // Patch names
-    public List<Patch> texturePatches; // Actual Patch objects
-
-    // Wall and flat textures are stored as int[width][height] (column-major) ARGB pixel arrays
-    public Map<String, int[][]> textures;
+    private final AtomicReferenceArray<Patch> texturePatches; // Decoded on first use, indexed like pNames
+
+    // Wall and flat textures are stored as column-major palette indices (see IndexedImage).
+    // They are composed on first use (or by precacheMapTextures) and kept in a bounded LRU cache.
+    private static final int COLORMAP_COUNT = 34;
+    private static final long TEXTURE_CACHE_BYTES = 16L * 1024 * 1024; // ~16M texels
+    private final Map<String, TextureMap> textureDefs; // TEXTURE1/TEXTURE2 entries by name
+    private final Map<String, LumpInfo> flatLumps;     // Flats by name
+    private final LinkedHashMap<String, IndexedImage> textureCache;
+    private long cachedTextureBytes;
     private final Map<String, Patch> spritePatches; // To store patch objects for sprites
+    private final AssetCache cache; // Decoded assets from a previous run, or null
 
     public String skyId;
     public String skyTexName;
-    public int[][] skyTex; // Sky texture as int[width][height]
+    public IndexedImage skyTex; // Sky texture
+
 
+    public AssetData(ResourceStack resources) throws IOException {
+        this(resources, null);
+    }
 
-    public AssetData(WADReader wadReader, List<LumpInfo> directory) throws IOException {
-        this.reader = wadReader;
-        this.directory = directory; // Store for getLumpIndex
+    /**
+     * @param cache Asset cache matching the mounted WADs; palettes, sprites and textures
+     *              are taken from it instead of being decoded. May be null.
+     */
+    public AssetData(ResourceStack resources, AssetCache cache) throws IOException {
+        this.resources = resources;
+        this.lumps = resources.getLumpDirectory();
+        this.cache = cache;
 
         // Palettes
-        this.palettes = loadPalettes();
+        this.palettes = cache != null ? cache.getPalettes() : loadPalettes();
         this.paletteIdx = 0;
         this.currentPalette = this.palettes.get(this.paletteIdx);
+        this.currentPaletteArgb = toArgb(this.currentPalette);
+        this.colormaps = loadColormaps();
 
         // Initialize spritePatches before loadSprites is called
         this.spritePatches = new HashMap<>();
-        // Sprites
-        this.sprites = loadSprites("S_START", "S_END");
-        
-        // Load face graphics (HUD face sprites are stored as graphics, not sprites)
-        loadFaceGraphics();
+        this.spriteImages = new HashMap<>();
+        if (cache != null) {
+            this.sprites = loadCachedSprites();
+        } else {
+            // Sprites
+            this.sprites = loadSprites();
+
+            // Load face graphics (HUD face sprites are stored as graphics, not sprites)
+            loadFaceGraphics();
+        }
+        this.sprites.values().parallelStream().forEach(IndexedImage::posts); // Decode column posts up front
 
         // Texture patch names
         LumpInfo pnamesLump = getLumpInfo("PNAMES");
-        this.pNames = reader.getLumpInfo("PNAMES") != null ?
-                loadStringList(pnamesLump.lumpOffset, pnamesLump.lumpSize, 8, 4) :
+        this.pNames = pnamesLump != null ?
+                loadStringList(resources.getLumpBuffer(pnamesLump), 8, 4) :
                 new ArrayList<>();
 
 
-        // Texture patches
-        this.texturePatches = new ArrayList<>();
-        for (String pName : this.pNames) {
-            this.texturePatches.add(new Patch(this, pName, false));
-        }
+        // Texture patches are decoded when a texture first needs them
+        this.texturePatches = new AtomicReferenceArray<>(this.pNames.size());
 
-        // Wall textures
-        this.textures = new HashMap<>();
+        // Wall texture definitions; only the directory entries are read here
+        this.textureDefs = new HashMap<>();
         List<TextureMap> textureMaps = loadTextureMaps("TEXTURE1");
         if (getLumpInfo("TEXTURE2") != null) {
             textureMaps.addAll(loadTextureMaps("TEXTURE2"));
         }
-
         for (TextureMap texMap : textureMaps) {
-            Texture texture = new Texture(this, texMap);
-            this.textures.put(texMap.name, texture.getImage());
+            this.textureDefs.put(texMap.name, texMap);
         }
 
-        // Flat textures
-        this.textures.putAll(loadFlats("F_START", "F_END"));
+        // Flat lumps
+        this.flatLumps = findFlats();
+
+        this.textureCache = new LinkedHashMap<>(256, 0.75f, true); // Access order for LRU eviction
 
         // Sky
         this.skyId = "F_SKY1"; // This is a flat name, but used as a texture reference
         this.skyTexName = "SKY1"; // This is a texture name
-        if (this.textures.containsKey(this.skyTexName)) {
-            this.skyTex = this.textures.get(this.skyTexName);
+        IndexedImage sky = getTexture(this.skyTexName);
+        if (sky != null) {
+            this.skyTex = sky;
         } else {
             LOGGER.warning("Sky texture not found: " + this.skyTexName);
             // Fallback: create a dummy small blue texture
-            this.skyTex = new int[1][1];
-            this.skyTex[0][0] = 0xFF0000FF; // Opaque Blue
+            this.skyTex = IndexedImage.opaque(1, 1, new byte[]{(byte) nearestPaletteIndex(0x0000FF)});
         }
     }
 
-    private LumpInfo getLumpInfo(String lumpName) {
-        for (LumpInfo info : this.directory) {
-            if (lumpName.equalsIgnoreCase(info.lumpName)) {
-                return info;
+    private static int[] toArgb(List<int[]> palette) {
+        int[] argb = new int[256];
+        for (int i = 0; i < Math.min(256, palette.size()); i++) {
+            int[] rgb = palette.get(i);
+            argb[i] = (255 << 24) | (rgb[0] << 16) | (rgb[1] << 8) | rgb[2];
+        }
+        return argb;
+    }
+
+    /**
+     * Index of the current palette entry closest to an RGB colour, for placeholder graphics.
+     */
+    int nearestPaletteIndex(int rgb) {
+        int best = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < currentPalette.size(); i++) {
+            int[] c = currentPalette.get(i);
+            int dr = c[0] - ((rgb >> 16) & 0xFF);
+            int dg = c[1] - ((rgb >> 8) & 0xFF);
+            int db = c[2] - (rgb & 0xFF);
+            int distance = dr * dr + dg * dg + db * db;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
             }
         }
-        return null;
+        return best;
+    }
+
+    /**
+     * A sprite or HUD graphic resolved through the current palette and scaled to the screen,
+     * for drawing with Graphics2D (weapon and status bar overlays). Built on first use;
+     * world sprites are drawn straight from {@link #sprites} instead.
+     * @return The image, or null if no sprite has this name.
+     */
+    public synchronized BufferedImage getSpriteImage(String name) {
+        if (name == null) return null;
+        BufferedImage image = spriteImages.get(name);
+        if (image == null) {
+            IndexedImage pixels = sprites.get(name);
+            if (pixels == null) return null;
+            image = scaleForScreen(pixels);
+            spriteImages.put(name, image);
+        }
+        return image;
+    }
+
+    private BufferedImage scaleForScreen(IndexedImage pixels) {
+        BufferedImage unscaled = new BufferedImage(pixels.width, pixels.height, BufferedImage.TYPE_INT_ARGB);
+        unscaled.setRGB(0, 0, pixels.width, pixels.height, pixels.toArgb(currentPaletteArgb), 0, pixels.width);
+        // Create a Framebuffer from the patch image to use scaleSelf
+        FrameBuffer patchFrameBuffer = new FrameBuffer(unscaled);
+        patchFrameBuffer.scaleSelf(
+            (int) (pixels.width * Constants.SCALE),
+            (int) (pixels.height * Constants.SCALE)
+        );
+        return patchFrameBuffer.getImageBuffer(); // Get the scaled image back
+    }
+
+    private LumpInfo getLumpInfo(String lumpName) {
+        return lumps.getLumpInfo(lumpName);
+    }
+
+    /**
+     * Returns true if a wall texture or flat with this name exists, without composing it.
+     */
+    public boolean hasTexture(String name) {
+        return name != null && (flatLumps.containsKey(name) || textureDefs.containsKey(name));
+    }
+
+    /**
+     * Returns the composed wall texture or flat as column-major palette indices,
+     * composing it on first use. Flats take precedence over wall textures of the same name.
+     * @return The texels, or null if no texture or flat has this name.
+     */
+    public synchronized IndexedImage getTexture(String name) {
+        if (name == null) return null;
+        IndexedImage image = textureCache.get(name);
+        if (image != null) return image;
+
+        image = composeTexture(name);
+        if (image != null) {
+            cacheTexture(name, image);
+        }
+        return image;
+    }
+
+    // Builds a flat or wall texture without touching the cache; safe to call from worker threads
+    private IndexedImage composeTexture(String name) {
+        if (cache != null) {
+            IndexedImage cached = cache.getTexture(name);
+            if (cached != null) return cached;
+        }
+        LumpInfo flatLump = flatLumps.get(name);
+        if (flatLump != null) {
+            return new Flat(this, resources.getLumpBuffer(flatLump)).getImage();
+        }
+        TextureMap texMap = textureDefs.get(name);
+        return texMap != null ? new Texture(this, texMap).getImage() : null;
+    }
+
+    private void cacheTexture(String name, IndexedImage image) {
+        textureCache.put(name, image);
+        cachedTextureBytes += image.byteSize();
+        // Evict least recently used entries, but never the one just added
+        Iterator<Map.Entry<String, IndexedImage>> it = textureCache.entrySet().iterator();
+        while (cachedTextureBytes > TEXTURE_CACHE_BYTES && textureCache.size() > 1 && it.hasNext()) {
+            Map.Entry<String, IndexedImage> eldest = it.next();
+            if (eldest.getKey().equals(name)) continue;
+            cachedTextureBytes -= eldest.getValue().byteSize();
+            it.remove();
+        }
     }
 
-    private int getLumpIndex(String lumpName) {
-        for (int i = 0; i < this.directory.size(); i++) {
-            if (lumpName.equalsIgnoreCase(this.directory.get(i).lumpName)) {
-                return i;
+    /**
+     * Composes every wall texture and flat referenced by a map's sidedefs and sectors up front,
+     * so the first frames do not stall on texture composition.
+     */
+    public void precacheMapTextures(List<Sidedef> sidedefs, List<Sector> sectors) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Sidedef side : sidedefs) {
+            names.add(side.upperTexture);
+            names.add(side.middleTexture);
+            names.add(side.lowerTexture);
+        }
+        for (Sector sector : sectors) {
+            names.add(sector.floorTexture);
+            names.add(sector.ceilTexture);
+        }
+        names.remove("-");
+        names.remove(null);
+        if (cache != null) {
+            names.removeIf(cache::hasTexture); // Copied out of the cache on first use instead
+        }
+
+        // Stage 1: decode every texture patch the map needs, in parallel
+        int[] patchIndices = names.stream()
+                .map(textureDefs::get)
+                .filter(texMap -> texMap != null && !flatLumps.containsKey(texMap.name))
+                .flatMap(texMap -> texMap.patchMaps.stream())
+                .mapToInt(patchMap -> patchMap.pNameIndex)
+                .filter(idx -> idx < texturePatches.length())
+                .distinct()
+                .toArray();
+        Arrays.stream(patchIndices).parallel().forEach(this::getTexturePatch);
+
+        // Stage 2: compose textures and convert flats in parallel, then merge in name order
+        List<String> missing;
+        synchronized (this) {
+            missing = names.stream().filter(name -> !textureCache.containsKey(name)).toList();
+        }
+        List<IndexedImage> images = missing.parallelStream().map(this::composeTexture).toList();
+        int composed = names.size() - missing.size();
+        synchronized (this) {
+            for (int i = 0; i < missing.size(); i++) {
+                if (images.get(i) != null) {
+                    cacheTexture(missing.get(i), images.get(i));
+                    composed++;
+                }
             }
         }
-        return -1; // Or throw exception
+        LOGGER.info("Precached " + composed + " of " + (textureDefs.size() + flatLumps.size()) + " textures and flats for map");
+    }
+
+    private Patch getTexturePatch(int pNameIndex) {
+        Patch patch = texturePatches.get(pNameIndex);
+        if (patch == null) {
+            // Decoding is idempotent, so racing workers may both decode; the first one published wins
+            texturePatches.compareAndSet(pNameIndex, null, new Patch(this, pNames.get(pNameIndex), false));
+            patch = texturePatches.get(pNameIndex);
+        }
+        return patch;
     }
 
     public Patch getSpritePatch(String spriteLumpName) {
@@ -127,47 +320,135 @@ public class AssetData {
         if (playpalLump == null) throw new IOException("PLAYPAL lump not found");
 
         List<List<int[]>> allPalettes = new ArrayList<>();
+        ByteBuffer playpal = resources.getLumpBuffer(playpalLump);
         int numPalettes = playpalLump.lumpSize / (256 * 3); // Each palette is 256 colors * 3 bytes
         for (int i = 0; i < numPalettes; i++) {
-            allPalettes.add(reader.readPalette(playpalLump.lumpOffset + (long) i * 256 * 3));
+            allPalettes.add(WADReader.readPalette(playpal, i * 256 * 3));
         }
         return allPalettes;
     }
 
-    private List<String> loadStringList(long lumpOffset, int lumpSize, int stringLength, int headerLength) throws IOException {
-        List<String> stringList = new ArrayList<>();
-        int numNames = (int) reader.readUnsignedInt(lumpOffset); // First 4 bytes is count for PNAMES
-        long currentOffset = lumpOffset + headerLength; // Skip header
+    private byte[][] loadColormaps() {
+        LumpInfo colormapLump = getLumpInfo("COLORMAP");
+        if (colormapLump == null || colormapLump.lumpSize < COLORMAP_COUNT * 256) {
+            LOGGER.warning("COLORMAP lump missing or short, deriving light levels from the palette");
+            return computeColormaps();
+        }
+        ByteBuffer lump = resources.getLumpBuffer(colormapLump);
+        byte[][] maps = new byte[COLORMAP_COUNT][256];
+        for (int i = 0; i < COLORMAP_COUNT; i++) {
+            lump.get(i * 256, maps[i]);
+        }
+        return maps;
+    }
+
+    /**
+     * Approximates COLORMAP for WADs without one: 32 levels fading linearly to black,
+     * the inverted greyscale invulnerability map and an all-black map.
+     */
+    private byte[][] computeColormaps() {
+        byte[][] maps = new byte[COLORMAP_COUNT][256];
+        for (int c = 0; c < 256 && c < currentPalette.size(); c++) {
+            int[] rgb = currentPalette.get(c);
+            for (int level = 0; level < 32; level++) {
+                int r = rgb[0] * (32 - level) / 32;
+                int g = rgb[1] * (32 - level) / 32;
+                int b = rgb[2] * (32 - level) / 32;
+                maps[level][c] = (byte) nearestPaletteIndex((r << 16) | (g << 8) | b);
+            }
+            int grey = 255 - (rgb[0] * 30 + rgb[1] * 59 + rgb[2] * 11) / 100;
+            maps[32][c] = (byte) nearestPaletteIndex((grey << 16) | (grey << 8) | grey);
+            maps[33][c] = (byte) nearestPaletteIndex(0);
+        }
+        return maps;
+    }
+
+    private List<String> loadStringList(ByteBuffer lump, int stringLength, int headerLength) {
+        int numNames = lump.getInt(0); // First 4 bytes is count for PNAMES
+        int maxNames = (lump.capacity() - headerLength) / stringLength;
+        if (numNames < 0 || numNames > maxNames) {
+            LOGGER.warning("Name list declares " + numNames + " entries but only holds " + maxNames);
+            numNames = Math.max(0, maxNames);
+        }
+        List<String> stringList = new ArrayList<>(numNames);
         for (int i = 0; i < numNames; i++) {
-            stringList.add(reader.readString(currentOffset + (long) i * stringLength, stringLength));
+            stringList.add(WADReader.readString(lump, headerLength + i * stringLength, stringLength));
         }
         return stringList;
     }
 
 
-    private Map<String, BufferedImage> loadSprites(String startMarker, String endMarker) throws IOException {
+    private Map<String, IndexedImage> loadCachedSprites() {
+        Map<String, IndexedImage> loadedSpriteImages = new HashMap<>();
+        for (AssetCache.CachedPatch cached : cache.getPatches()) {
+            Patch patch = new Patch(this, cached);
+            this.spritePatches.put(patch.name, patch);
+            loadedSpriteImages.put(patch.name, patch.getPixels());
+        }
+        LOGGER.info("Loaded " + loadedSpriteImages.size() + " sprites and graphics from asset cache");
+        return loadedSpriteImages;
+    }
+
+    /**
+     * Writes every texture, flat, sprite and palette (plus the given sounds) to an asset cache
+     * file on a background thread, so the next start with the same WADs can skip decoding.
+     * Nothing is written when the assets were themselves loaded from a cache. The JVM waits for
+     * the write on exit, so a short session still leaves a finished cache behind.
+     */
+    public void writeCacheInBackground(Path file, String contentHash, Map<String, AudioClip> sounds) {
+        if (cache != null) return;
+        List<String> textureNames = new ArrayList<>(textureDefs.keySet());
+        textureNames.addAll(flatLumps.keySet());
+        textureNames = textureNames.stream().distinct().sorted().toList();
+        List<AssetCache.CachedPatch> patches = spritePatches.values().stream()
+                .sorted(Comparator.comparing(patch -> patch.name))
+                .map(Patch::toCachedPatch)
+                .toList();
+        List<String> names = textureNames;
+        Thread writer = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                AssetCache.write(file, contentHash, palettes, names, this::composeTexture, patches, sounds);
+                LOGGER.info("Wrote asset cache " + file + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to write asset cache " + file, e);
+            }
+        }, "asset-cache-writer");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "asset-cache-writer-shutdown"));
+    }
+
+    private Map<String, IndexedImage> loadSprites() {
         // Make sure this.spritePatches is initialized before calling this
-        Map<String, BufferedImage> loadedSpriteImages = new HashMap<>();
-        int idx1 = getLumpIndex(startMarker);
-        int idx2 = getLumpIndex(endMarker);
+        Map<String, IndexedImage> loadedSpriteImages = new HashMap<>();
+        int[] spriteLumps = lumps.getNamespaceLumps(Namespace.SPRITES);
 
-        if (idx1 == -1 || idx2 == -1) {
-            LOGGER.warning("Sprite markers not found: " + startMarker + "/" + endMarker);
+        if (spriteLumps.length == 0) {
+            LOGGER.warning("No sprites found between S_START/S_END markers");
             return loadedSpriteImages;
         }
 
-        LOGGER.info("Loading sprites from " + startMarker + " to " + endMarker + " (indices " + idx1 + "-" + idx2 + ")");
+        LOGGER.info("Loading " + spriteLumps.length + " sprites");
         int spritesLoaded = 0;
-        
-        for (int i = idx1 + 1; i < idx2; i++) {
-            LumpInfo lumpInfo = this.directory.get(i);
-            if (lumpInfo.lumpSize == 0) continue;
 
-            String lumpNameUpper = lumpInfo.lumpName.toUpperCase();
+        // Each sprite lump decodes independently; the ordered toList() keeps the merge below
+        // in directory order no matter which worker finished first.
+        List<Patch> decoded = Arrays.stream(spriteLumps)
+                .parallel()
+                .mapToObj(lumpIdx -> new Patch(this, lumps.get(lumpIdx).lumpName.toUpperCase(), true)) // Use uppercase consistently
+                .toList();
 
-            Patch patch = new Patch(this, lumpNameUpper, true); // Use uppercase consistently
-            this.spritePatches.put(lumpNameUpper, patch);
-            loadedSpriteImages.put(lumpNameUpper, patch.getImage());
+        for (Patch patch : decoded) {
+            this.spritePatches.put(patch.name, patch);
+            loadedSpriteImages.put(patch.name, patch.getPixels());
             spritesLoaded++;
         }
         
@@ -178,7 +459,7 @@ public class AssetData {
         return loadedSpriteImages; // Though constructor won't use return value
     }
     
-    private void loadFaceGraphics() throws IOException {
+    private void loadFaceGraphics() {
         // List of face sprite names to look for
         String[] faceSprites = {
             "STFST00", "STFST10", "STFST20", "STFST30", "STFST40",
@@ -193,17 +474,27 @@ public class AssetData {
         LOGGER.info("Loading face graphics as patches...");
         int facesLoaded = 0;
         
-        for (String faceName : faceSprites) {
-            try {
-                // Try to load as a patch (like regular graphics)
-                Patch facePatch = new Patch(this, faceName, true); // Use sprite scaling
-                if (facePatch.getImage() != null) {
-                    this.sprites.put(faceName, facePatch.getImage());
-                    this.spritePatches.put(faceName, facePatch);
-                    LOGGER.info("Loaded face graphic: " + faceName);
-                    facesLoaded++;
-                }
-            } catch (Exception e) {
+        // Try to load as patches (like regular graphics), decoded in parallel
+        List<Patch> facePatches = Arrays.stream(faceSprites)
+                .parallel()
+                .map(faceName -> {
+                    try {
+                        return new Patch(this, faceName, true); // Use sprite scaling
+                    } catch (RuntimeException e) {
+                        return null;
+                    }
+                })
+                .toList();
+
+        for (int i = 0; i < faceSprites.length; i++) {
+            String faceName = faceSprites[i];
+            Patch facePatch = facePatches.get(i);
+            if (facePatch != null && facePatch.getPixels() != null) {
+                this.sprites.put(faceName, facePatch.getPixels());
+                this.spritePatches.put(faceName, facePatch);
+                LOGGER.info("Loaded face graphic: " + faceName);
+                facesLoaded++;
+            } else {
                 // Face sprite not found, continue to next
                 LOGGER.fine("Face graphic not found: " + faceName);
             }
@@ -212,52 +503,40 @@ public class AssetData {
         LOGGER.info("Total face graphics loaded: " + facesLoaded);
     }
 
-    private List<TextureMap> loadTextureMaps(String textureLumpName) throws IOException {
-        LumpInfo texLump = getLumpInfo(textureLumpName);
-        if (texLump == null) return new ArrayList<>();
+    private List<TextureMap> loadTextureMaps(String textureLumpName) {
+        LumpInfo texLumpInfo = getLumpInfo(textureLumpName);
+        if (texLumpInfo == null) return new ArrayList<>();
 
-        long baseOffset = texLump.lumpOffset;
-        TextureHeader textureHeader = reader.readTextureHeader(baseOffset);
+        ByteBuffer texLump = resources.getLumpBuffer(texLumpInfo);
+        TextureHeader textureHeader = WADReader.readTextureHeader(texLump);
 
-        List<TextureMap> loadedTextureMaps = new ArrayList<>();
+        List<TextureMap> loadedTextureMaps = new ArrayList<>(textureHeader.textureCount);
         for (int i = 0; i < textureHeader.textureCount; i++) {
-            // texture_header.texture_data_offset[i] is already an offset from the start of the WAD
-            // No, it's an offset from the start of the TEXTUREx lump.
-            long texMapOffset = baseOffset + textureHeader.textureDataOffset.get(i);
-            loadedTextureMaps.add(reader.readTextureMap(texMapOffset));
+            // Texture data offsets are relative to the start of the TEXTUREx lump
+            loadedTextureMaps.add(WADReader.readTextureMap(texLump, textureHeader.textureDataOffset.get(i)));
         }
         return loadedTextureMaps;
     }
 
 
-    private Map<String, int[][]> loadFlats(String startMarker, String endMarker) throws IOException {
-        Map<String, int[][]> loadedFlats = new HashMap<>();
-        int idx1 = getLumpIndex(startMarker);
-        int idx2 = getLumpIndex(endMarker);
+    private Map<String, LumpInfo> findFlats() {
+        Map<String, LumpInfo> foundFlats = new HashMap<>();
+        int[] flatLumpIndices = lumps.getNamespaceLumps(Namespace.FLATS);
 
-        if (idx1 == -1 || idx2 == -1) {
-            LOGGER.warning("Flat markers not found: " + startMarker + "/" + endMarker);
-            return loadedFlats;
+        if (flatLumpIndices.length == 0) {
+            LOGGER.warning("No flats found between F_START/F_END markers");
+            return foundFlats;
         }
 
-        for (int i = idx1 + 1; i < idx2; i++) {
-            LumpInfo flatLump = this.directory.get(i);
-            if (flatLump.lumpSize == 0) continue; // Skip empty marker lumps
-
-            // Flat data is 64x64 = 4096 bytes, 1 byte per pixel (palette index)
-            List<Integer> flatData = new ArrayList<>(flatLump.lumpSize);
-            for (int j = 0; j < flatLump.lumpSize; j++) {
-                flatData.add(reader.read1Byte(flatLump.lumpOffset + j));
-            }
-
-            Flat flat = new Flat(this, flatData);
-            loadedFlats.put(flatLump.lumpName, flat.getImage());
+        for (int lumpIdx : flatLumpIndices) {
+            LumpInfo flatLump = lumps.get(lumpIdx); // Empty marker lumps are not indexed
+            foundFlats.put(flatLump.lumpName, flatLump);
         }
-        return loadedFlats;
+        return foundFlats;
     }
 
     // Inner classes Patch, Texture, Flat
-    // These need access to AssetData's fields like reader, palette
+    // These need access to AssetData's fields like resources, palette
 
     public static class Patch {
         private final AssetData assetData;
@@ -266,53 +545,69 @@ public class AssetData {
         public List<PatchColumn> patchColumns;
         public int width;
         public int height;
-        private BufferedImage image; // This will be the final image (possibly scaled)
+        private IndexedImage pixels; // Unscaled paletted texels; built from the posts when first needed
+        private boolean missing; // Lump not found; pixels are a magenta placeholder
 
-        public Patch(AssetData assetData, String name, boolean isSprite) throws IOException {
+        public Patch(AssetData assetData, String name, boolean isSprite) {
             this.assetData = assetData;
             this.name = name.toUpperCase(); // Ensure consistent naming
 
-            LumpInfo patchLump = assetData.getLumpInfo(this.name);
+            // Face graphics and TEXTUREx patches are often outside their markers, so fall back to a global lookup
+            LumpInfo patchLump = assetData.lumps.findLumpInfo(this.name, isSprite ? Namespace.SPRITES : Namespace.PATCHES);
             if (patchLump == null || patchLump.lumpSize == 0) {
                 LOGGER.warning("Patch not found or empty: " + this.name + ". Creating dummy.");
+                this.missing = true;
                 this.width = 1;
                 this.height = 1;
                 this.header = new PatchHeader(); // Minimal header
                 this.header.width = 1;
                 this.header.height = 1;
                 this.patchColumns = new ArrayList<>();
-                this.image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
-                Graphics2D g = this.image.createGraphics();
-                g.setColor(Color.MAGENTA); // Use a distinct color for missing/dummy
-                g.fillRect(0, 0, 1, 1);
-                g.dispose();
+                // Use a distinct color for missing/dummy
+                this.pixels = IndexedImage.opaque(1, 1, new byte[]{(byte) assetData.nearestPaletteIndex(0xFF00FF)});
                 return;
             }
 
-            long patchOffset = patchLump.lumpOffset;
-            this.header = assetData.reader.readPatchHeader(patchOffset);
-            this.patchColumns = loadPatchColumns(patchOffset, this.header);
+            ByteBuffer patchData = assetData.resources.getLumpBuffer(patchLump);
+            this.header = WADReader.readPatchHeader(patchData);
+            this.patchColumns = loadPatchColumns(patchData, this.header);
             this.width = this.header.width;
             this.height = this.header.height;
 
-            this.image = createImageFromColumns();
             if (isSprite) {
-                // Create a Framebuffer from the patch image to use scaleSelf
-                FrameBuffer patchFrameBuffer = new FrameBuffer(this.image);
-                patchFrameBuffer.scaleSelf(
-                    (int) (this.width * Constants.SCALE),
-                    (int) (this.height * Constants.SCALE)
-                );
-                this.image = patchFrameBuffer.getImageBuffer(); // Get the scaled image back
+                this.pixels = createPixelsFromColumns();
             }
         }
 
-        private List<PatchColumn> loadPatchColumns(long patchOffset, PatchHeader patchHdr) throws IOException {
+        /**
+         * Rebuilds a sprite or HUD graphic from its cached texels.
+         */
+        Patch(AssetData assetData, AssetCache.CachedPatch cached) {
+            this.assetData = assetData;
+            this.name = cached.name();
+            this.header = new PatchHeader();
+            this.header.width = cached.width();
+            this.header.height = cached.height();
+            this.header.leftOffset = (short) cached.leftOffset();
+            this.header.topOffset = (short) cached.topOffset();
+            this.header.columnOffset = new ArrayList<>();
+            this.patchColumns = new ArrayList<>();
+            this.width = cached.width();
+            this.height = cached.height();
+            this.pixels = cached.pixels();
+        }
+
+        // Unscaled texels plus offsets, as stored in the asset cache
+        AssetCache.CachedPatch toCachedPatch() {
+            return new AssetCache.CachedPatch(name, width, height, header.leftOffset, header.topOffset, getPixels());
+        }
+
+        private List<PatchColumn> loadPatchColumns(ByteBuffer patchData, PatchHeader patchHdr) {
             List<PatchColumn> columns = new ArrayList<>();
             for (int i = 0; i < patchHdr.width; i++) {
-                long columnDataOffset = patchOffset + patchHdr.columnOffset.get(i);
+                int columnDataOffset = patchHdr.columnOffset.get(i);
                 while (true) {
-                    WADReader.Pair<PatchColumn, Long> colResult = assetData.reader.readPatchColumn(columnDataOffset);
+                    WADReader.Pair<PatchColumn, Integer> colResult = WADReader.readPatchColumn(patchData, columnDataOffset);
                     PatchColumn patchCol = colResult.key;
                     columns.add(patchCol);
                     columnDataOffset = colResult.value;
@@ -324,139 +619,99 @@ public class AssetData {
             return columns;
         }
 
-        // In AssetData.Patch.java
-        private BufferedImage createImageFromColumns() {
-            BufferedImage surf = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
-            // Initialize with full transparency (ARGB = 0x00000000)
-            for (int y_init = 0; y_init < this.height; y_init++) {
-                for (int x_init = 0; x_init < this.width; x_init++) {
-                    surf.setRGB(x_init, y_init, 0x00000000);
-                }
+        private IndexedImage createPixelsFromColumns() {
+            // Texels not covered by any post stay transparent
+            IndexedImage image = new IndexedImage(this.width, this.height);
+            drawInto(image, 0, 0);
+            return image;
+        }
+
+        public IndexedImage getPixels() {
+            if (pixels == null) {
+                pixels = createPixelsFromColumns(); // Texture patches are composed from their posts and rarely need one
             }
+            return pixels;
+        }
 
-            // Corrected logic (as discussed previously)
+        /**
+         * Copies the patch's opaque texels into a paletted image at the given offset.
+         */
+        void drawInto(IndexedImage dest, int xOffset, int yOffset) {
+            int destWidth = dest.width;
+            int destHeight = dest.height;
             int postListIndex = 0;
-            for (int visualX = 0; visualX < this.width; visualX++) {
-
-                if (postListIndex >= this.patchColumns.size()) {
-                    break;
-                }
-
+            for (int x = 0; x < this.width && postListIndex < this.patchColumns.size(); x++) {
+                int destX = x + xOffset;
                 while (postListIndex < this.patchColumns.size()) {
-                    PatchColumn currentPost = this.patchColumns.get(postListIndex);
-                    postListIndex++;
-
-                    if (currentPost.topDelta == 0xFF) { // End of posts for this visualX
-                        break;
-                    }
-
-                    // visualX is already constrained by the outer loop
+                    PatchColumn currentPost = this.patchColumns.get(postListIndex++);
+                    if (currentPost.topDelta == 0xFF) break; // End of posts for this column
+                    if (destX < 0 || destX >= destWidth) continue;
 
                     for (int i = 0; i < currentPost.length; i++) {
-                        int colorIdx = currentPost.data.get(i);
-
-                        if (colorIdx >= assetData.currentPalette.size()) { // Doom's transparent color is handled by not drawing
-                            continue;
-                        }
-
-                        int[] rgbPalette = assetData.currentPalette.get(colorIdx);
                         int yPos = i + currentPost.topDelta;
-
-                        if (yPos >= 0 && yPos < this.height) {
-                            // Create a temporary Framebuffer to use applyPixelToImageBuffer
-                            // This is inefficient if done per pixel. Consider if this logic can be optimized.
-                            // For now, directly setting RGB on surf as Framebuffer.setPixel was static.
-                            // If Framebuffer instance methods are preferred, surf itself should be a Framebuffer.
-                            // However, createImageFromColumns returns BufferedImage.
-                            // Let's assume direct manipulation of surf (BufferedImage) is intended here.
-                            int colorValue = (255 << 24) | (rgbPalette[0] << 16) | (rgbPalette[1] << 8) | rgbPalette[2];
-                            surf.setRGB(visualX, yPos, colorValue);
-                        }
+                        int destY = yPos + yOffset;
+                        if (yPos >= this.height || destY < 0 || destY >= destHeight) continue;
+                        dest.setTexel(destX, destY, currentPost.data[i]);
                     }
                 }
             }
-            return surf;
-        }
-
-        public BufferedImage getImage() {
-            return image;
         }
     }
 
     public static class Texture {
         private final AssetData assetData;
         private final TextureMap texMap;
-        private final int[][] image; // int[width][height] column-major ARGB
+        private final IndexedImage image;
 
-        public Texture(AssetData assetData, TextureMap texMap) throws IOException {
+        public Texture(AssetData assetData, TextureMap texMap) {
             this.assetData = assetData;
             this.texMap = texMap;
             this.image = createImage();
         }
 
-        private int[][] createImage() throws IOException {
-            BufferedImage surface = new BufferedImage(this.texMap.width, this.texMap.height, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g2d = surface.createGraphics();
-
-            // Fill with fully transparent background
-            g2d.setComposite(java.awt.AlphaComposite.Clear);
-            g2d.fillRect(0, 0, this.texMap.width, this.texMap.height);
-            g2d.setComposite(java.awt.AlphaComposite.SrcOver);
+        private IndexedImage createImage() {
+            // Composed straight into the paletted image; texels no patch covers stay transparent
+            IndexedImage columns = new IndexedImage(this.texMap.width, this.texMap.height);
 
             for (PatchMap patchMapInfo : this.texMap.patchMaps) {
-                if (patchMapInfo.pNameIndex >= assetData.texturePatches.size()) {
-                    LOGGER.warning("pNameIndex out of bounds: " + patchMapInfo.pNameIndex + " (size: " + assetData.texturePatches.size() + ") in texture " + texMap.name);
+                if (patchMapInfo.pNameIndex >= assetData.texturePatches.length()) {
+                    LOGGER.warning("pNameIndex out of bounds: " + patchMapInfo.pNameIndex + " (size: " + assetData.texturePatches.length() + ") in texture " + texMap.name);
                     continue;
                 }
-                Patch sourcePatch = assetData.texturePatches.get(patchMapInfo.pNameIndex);
-                if (sourcePatch.getImage() != null) {
-                    // BufferedImage from Patch is already ARGB with transparency handled
-                    g2d.drawImage(sourcePatch.getImage(), patchMapInfo.xOffset, patchMapInfo.yOffset, null);
-                }
+                Patch sourcePatch = assetData.getTexturePatch(patchMapInfo.pNameIndex);
+                sourcePatch.drawInto(columns, patchMapInfo.xOffset, patchMapInfo.yOffset);
             }
-            g2d.dispose();
-            // Create a Framebuffer from the surface to use getImageBufferAsColumnMajorArray
-            FrameBuffer surfaceFrameBuffer = new FrameBuffer(surface);
-            return surfaceFrameBuffer.getImageBufferAsColumnMajorArray();
+            columns.compactMask(); // Most wall textures have no holes
+            return columns;
         }
 
-        public int[][] getImage() {
+        public IndexedImage getImage() {
             return image;
         }
     }
 
     public static class Flat {
-        private final List<Integer> flatData; // Palette indices
-        private final List<int[]> palette;
-        private final int[][] image; // 64x64, int[width][height] column-major ARGB
+        private final ByteBuffer flatData; // Palette indices, read straight from the lump
+        private final IndexedImage image; // 64x64, always opaque
 
-        public Flat(AssetData assetData, List<Integer> flatData) {
+        public Flat(AssetData assetData, ByteBuffer flatData) {
             this.flatData = flatData;
-            this.palette = assetData.currentPalette;
             this.image = createImage();
         }
 
-        private int[][] createImage() {
-            BufferedImage surface = new BufferedImage(TEXTURE_WIDTH, TEXTURE_HEIGHT, BufferedImage.TYPE_INT_ARGB); // Flats are 64x64
-            for (int i = 0; i < this.flatData.size(); i++) {
-                if (i >= 64 * 64) break; // Safety for malformed flat data
-                int ix = i % 64;
-                int iy = i / 64;
-                int colorIdx = this.flatData.get(i);
-                int[] rgb = this.palette.get(colorIdx);
-                // Similar to Patch, directly setting RGB on surface.
-                int colorValue = (255 << 24) | (rgb[0] << 16) | (rgb[1] << 8) | rgb[2];
-                surface.setRGB(ix, iy, colorValue);
+        private IndexedImage createImage() {
+            byte[] texels = new byte[TEXTURE_WIDTH * TEXTURE_HEIGHT]; // Flats are 64x64
+            int size = Math.min(this.flatData.capacity(), TEXTURE_WIDTH * TEXTURE_HEIGHT); // Safety for malformed flat data
+            for (int i = 0; i < size; i++) {
+                int ix = i % TEXTURE_WIDTH;
+                int iy = i / TEXTURE_WIDTH;
+                texels[ix * TEXTURE_HEIGHT + iy] = this.flatData.get(i); // Lump is row-major, transpose to columns
             }
-
-            // Create a Framebuffer from the surface to use getImageBufferAsColumnMajorArray
-            FrameBuffer surfaceFrameBuffer = new FrameBuffer(surface);
-            return surfaceFrameBuffer.getImageBufferAsColumnMajorArray();
+            return IndexedImage.opaque(TEXTURE_WIDTH, TEXTURE_HEIGHT, texels);
         }
 
-        public int[][] getImage() {
+        public IndexedImage getImage() {
             return image;
         }
     }
 }
-
@@ -0,0 +1,175 @@
+package com.doomengine.wad.assets;
+
+/**
+ * An 8-bit paletted image: one palette index per texel, column-major, plus a separate
+ * opacity bitmask for images with holes (sprites, masked wall textures).
+ * <p>
+ * Colour is resolved only when drawing, through a palette ({@link AssetData#currentPaletteArgb})
+ * or a light table, so a texel costs one byte instead of four.
+ * <p>
+ * All texels live in one contiguous array; column x starts at {@code columnOffsets[x]}. When a
+ * dimension is a power of two its mask wraps a coordinate with a single AND, otherwise the mask
+ * is -1 and callers fall back to modulo arithmetic.
+ */
+public final class IndexedImage {
+    public final int width;
+    public final int height;
+    public final byte[] texels;        // Palette indices, column by column
+    public final int[] columnOffsets;  // Start of each column in texels
+    public final int widthMask;        // width - 1 for power-of-two widths, otherwise -1
+    public final int heightMask;       // height - 1 for power-of-two heights, otherwise -1
+    private long[] opaque;             // One bit per texel at x * height + y; null when every texel is opaque
+    private volatile ColumnPosts posts; // Opaque runs per column, built on first use
+
+    /**
+     * The opaque runs of each column, as the posts of a patch: column x has posts
+     * {@code first[x]} to {@code first[x + 1] - 1}, each starting at row {@code top[i]}
+     * and {@code length[i]} texels long. Drawing walks the posts and never visits a
+     * transparent texel.
+     */
+    public static final class ColumnPosts {
+        public final int[] first;
+        public final int[] top;
+        public final int[] length;
+
+        private ColumnPosts(int[] first, int[] top, int[] length) {
+            this.first = first;
+            this.top = top;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Creates a fully transparent image; texels become opaque as they are set.
+     */
+    IndexedImage(int width, int height) {
+        this(width, height, new byte[width * height], new long[(width * height + 63) >>> 6]);
+    }
+
+    IndexedImage(int width, int height, byte[] texels, long[] opaque) {
+        this.width = width;
+        this.height = height;
+        this.texels = texels;
+        this.opaque = opaque;
+        this.columnOffsets = new int[width];
+        for (int x = 0; x < width; x++) {
+            columnOffsets[x] = x * height;
+        }
+        this.widthMask = powerOfTwoMask(width);
+        this.heightMask = powerOfTwoMask(height);
+    }
+
+    /**
+     * Creates an image whose texels, given column by column, are all opaque, such as a flat.
+     */
+    static IndexedImage opaque(int width, int height, byte[] texels) {
+        return new IndexedImage(width, height, texels, null);
+    }
+
+    private static int powerOfTwoMask(int size) {
+        return size > 0 && (size & (size - 1)) == 0 ? size - 1 : -1;
+    }
+
+    /** Palette index of a texel. */
+    public int texel(int x, int y) {
+        return texels[columnOffsets[x] + y] & 0xFF;
+    }
+
+    void setTexel(int x, int y, byte paletteIndex) {
+        texels[columnOffsets[x] + y] = paletteIndex;
+        if (opaque != null) {
+            int bit = x * height + y;
+            opaque[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Drops the opacity mask when no texel ended up transparent, so drawing can skip the test.
+     */
+    void compactMask() {
+        if (opaque == null) return;
+        int texels = width * height;
+        for (int i = 0; i < opaque.length; i++) {
+            long expected = (i == opaque.length - 1 && (texels & 63) != 0) ? (1L << (texels & 63)) - 1 : -1L;
+            if (opaque[i] != expected) return;
+        }
+        opaque = null;
+    }
+
+    public boolean hasTransparency() {
+        return opaque != null;
+    }
+
+    public boolean isOpaque(int x, int y) {
+        if (opaque == null) return true;
+        int bit = x * height + y;
+        return (opaque[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * The image's opaque runs per column. Built from the opacity mask the first time it is
+     * asked for; AssetData builds them for every sprite at load time.
+     */
+    public ColumnPosts posts() {
+        ColumnPosts result = posts;
+        if (result == null) {
+            result = buildPosts();
+            posts = result;
+        }
+        return result;
+    }
+
+    private ColumnPosts buildPosts() {
+        int[] first = new int[width + 1];
+        int count = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (isOpaque(x, y) && (y == 0 || !isOpaque(x, y - 1))) count++;
+            }
+        }
+        int[] top = new int[count];
+        int[] length = new int[count];
+        int post = 0;
+        for (int x = 0; x < width; x++) {
+            first[x] = post;
+            int y = 0;
+            while (y < height) {
+                while (y < height && !isOpaque(x, y)) y++;
+                if (y == height) break;
+                int start = y;
+                while (y < height && isOpaque(x, y)) y++;
+                top[post] = start;
+                length[post] = y - start;
+                post++;
+            }
+        }
+        first[width] = post;
+        return new ColumnPosts(first, top, length);
+    }
+
+    /** The opacity mask as stored in the asset cache, or null when fully opaque. */
+    long[] getOpacityMask() {
+        return opaque;
+    }
+
+    /** Approximate heap footprint of the texel data, for cache accounting. */
+    public long byteSize() {
+        return (long) width * height + (opaque != null ? opaque.length * 8L : 0);
+    }
+
+    /**
+     * Resolves the image to row-major ARGB through a palette; transparent texels become 0.
+     */
+    public int[] toArgb(int[] palette) {
+        int[] argb = new int[width * height];
+        for (int x = 0; x < width; x++) {
+            int column = columnOffsets[x];
+            for (int y = 0; y < height; y++) {
+                if (isOpaque(x, y)) {
+                    argb[y * width + x] = palette[texels[column + y] & 0xFF];
+                }
+            }
+        }
+        return argb;
+    }
+}
@@ -1,8 +1,5 @@
 package com.doomengine.wad.datatypes;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class Node {
     public static class BBox {
         public short top;
@@ -15,16 +12,11 @@ public class Node {
     public short yPartition;
     public short dxPartition;
     public short dyPartition;
-    public final Map<String, BBox> bbox;
+    public final BBox frontBBox = new BBox();
+    public final BBox backBBox = new BBox();
     public int frontChildId; // H (unsigned short) - Side 0
     public int backChildId;  // H (unsigned short) - Side 1
 
-    public Node() {
-        bbox = new HashMap<>();
-        bbox.put("front", new BBox());
-        bbox.put("back", new BBox());
-    }
-
     /**
      * Gets the child ID based on the side.
      * @param side 0 for front, 1 for back.
@@ -33,4 +25,12 @@ public class Node {
     public int getChildId(int side) {
         return (side == 0) ? frontChildId : backChildId;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the bounding box of the child on the given side.
+     * @param side 0 for front, 1 for back.
+     */
+    public BBox getBBox(int side) {
+        return (side == 0) ? frontBBox : backBBox;
+    }
+}
@@ -1,11 +1,9 @@
 package com.doomengine.wad.datatypes;
 
-import java.util.List;
-
 public class PatchColumn {
     public int topDelta;    // B (unsigned byte)
     public int length;      // B (unsigned byte)
     // public int paddingPre;  // B - unused
-    public List<Integer> data; // length x B (unsigned bytes)
+    public byte[] data;     // length x B (unsigned bytes)
     // public int paddingPost; // B - unused
 }
\ No newline at end of file